@@ -0,0 +1,193 @@
+/*----------------------------------------------------------------------------------------------------------------------
+ * Copyright (C) 2008-2021 Nawapunth Manusitthipol. Implements with and for Java 11 JDK.
+ *----------------------------------------------------------------------------------------------------------------------
+ * LICENSE:
+ * 
+ * This file is part of Nawa's SimpleCompiler.
+ * 
+ * The project is a free software; you can redistribute it and/or modify it under the SIMILAR terms of the GNU General
+ * Public License as published by the Free Software Foundation; either version 2 of the License, or any later version.
+ * You are only required to inform me about your modification and redistribution as or as part of commercial software
+ * package. You can inform me via nawa<at>nawaman<dot>net.
+ * 
+ * The project is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the 
+ * implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ * ---------------------------------------------------------------------------------------------------------------------
+ */
+
+package net.nawaman.compiler;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The ordered store of arbitrary data.
+ * 
+ * Data are kept in the order they are first added so they can be accessed by index as well as by name. Reading and
+ * changing an existing data do not lock: the name is found in a concurrent map and the value is held in a volatile
+ * field of its entry. Only adding a new name is serialized and the new entry is published by a volatile count. A
+ * frozen store, or a frozen data in the store, can no longer be changed.
+ *
+ * @author Nawapunth Manusitthipol (https://github.com/NawaMan)
+ */
+final public class ArbitraryDataStore {
+	
+	/** An entry of an arbitrary data */
+	static final class Entry {
+		Entry(int pIndex, String pName, Object pValue) {
+			this.Index = pIndex;
+			this.Name  = pName;
+			this.Value = pValue;
+		}
+		final    int    Index;
+		final    String  Name;
+		volatile Object  Value;
+		volatile boolean IsFrozen = false;
+		
+		/** Changes the value of this entry */
+		synchronized void setValue(Object pValue) {
+			if(this.IsFrozen) throw new CompilationException("The data `" + this.Name + "` is frozen.");
+			this.Value = pValue;
+		}
+	}
+	
+	/** Constructs an empty store */
+	public ArbitraryDataStore() {}
+	
+	private final ConcurrentHashMap<String, Entry> EntryByNames = new ConcurrentHashMap<String, Entry>();
+	
+	private volatile Entry[] Entries  = new Entry[8];
+	private volatile int     Count    = 0;
+	private volatile boolean IsFrozen = false;
+	
+	/** Returns the number of the data */
+	public int size() {
+		return this.Count;
+	}
+	
+	/** Returns the index of the data with the name or -1 if there is no such data */
+	public int indexOf(String pName) {
+		if(pName == null) return -1;
+		Entry E = this.EntryByNames.get(pName);
+		return (E == null)?-1:E.Index;
+	}
+	
+	/** Checks if the store contains the data with the name */
+	public boolean contains(String pName) {
+		return (pName != null) && this.EntryByNames.containsKey(pName);
+	}
+	
+	/** Returns the name of the data at the index */
+	public String getName(int pIndex) {
+		Entry E = this.getEntry(pIndex);
+		return (E == null)?null:E.Name;
+	}
+	
+	/** Returns the data at the index */
+	public Object get(int pIndex) {
+		Entry E = this.getEntry(pIndex);
+		return (E == null)?null:E.Value;
+	}
+	
+	/** Returns the data with the name */
+	public Object get(String pName) {
+		if(pName == null) return null;
+		Entry E = this.EntryByNames.get(pName);
+		return (E == null)?null:E.Value;
+	}
+	
+	/** Adds or changes the data with the name */
+	public Object set(String pName, Object pValue) {
+		if(pName == null) throw new NullPointerException();
+		Entry E = this.EntryByNames.get(pName);
+		if(E != null) {
+			E.setValue(pValue);
+			return pValue;
+		}
+		
+		synchronized(this) {
+			E = this.EntryByNames.get(pName);
+			if(E != null) {
+				E.setValue(pValue);
+				return pValue;
+			}
+			if(this.IsFrozen) throw new CompilationException("The arbitrary data are frozen.");
+			
+			Entry[] Es = this.Entries;
+			int     C  = this.Count;
+			E = new Entry(C, pName, pValue);
+			if(C == Es.length) {
+				Es = Arrays.copyOf(Es, C*2);
+				this.Entries = Es;
+			}
+			Es[C] = E;
+			this.EntryByNames.put(pName, E);
+			this.Count = C + 1;	// Publish the new entry
+		}
+		return pValue;
+	}
+	
+	/** Checks if this store is frozen */
+	public boolean isFrozen() {
+		return this.IsFrozen;
+	}
+	/** Checks if the data with the name is frozen */
+	public boolean isFrozen(String pName) {
+		if(this.IsFrozen) return true;
+		Entry E = (pName == null)?null:this.EntryByNames.get(pName);
+		return (E != null) && E.IsFrozen;
+	}
+	
+	/** Freezes the whole store */
+	public synchronized void freeze() {
+		this.IsFrozen = true;
+		int C = this.Count;
+		for(int i = 0; i < C; i++) this.freeze(this.Entries[i]);
+	}
+	/** Freezes the data with the name - Returns false if the store does not contain the data */
+	public boolean freeze(String pName) {
+		Entry E = (pName == null)?null:this.EntryByNames.get(pName);
+		if(E == null) return false;
+		this.freeze(E);
+		return true;
+	}
+	/** Freezes the entry (waiting for the change in progress to finish) */
+	private void freeze(Entry pEntry) {
+		synchronized(pEntry) { pEntry.IsFrozen = true; }
+	}
+	
+	/** Returns a copy of this store (the frozen data stay frozen but the store itself is not frozen) */
+	ArbitraryDataStore duplicate() {
+		ArbitraryDataStore Store = new ArbitraryDataStore();
+		synchronized(this) {
+			int C = this.Count;
+			for(int i = 0; i < C; i++) {
+				Entry E = this.Entries[i];
+				Store.set(E.Name, E.Value);
+				if(E.IsFrozen) Store.freeze(E.Name);
+			}
+		}
+		return Store;
+	}
+	
+	/** Returns the entry at the index */
+	private Entry getEntry(int pIndex) {
+		int C = this.Count;	// Read the count first so the entry at the index is seen
+		if((pIndex < 0) || (pIndex >= C)) return null;
+		return this.Entries[pIndex];
+	}
+	
+	/** Returns the names of the data as a string */
+	@Override public String toString() {
+		StringBuilder SB = new StringBuilder();
+		SB.append("[");
+		int C = this.Count;
+		for(int i = 0; i < C; i++) {
+			if(i != 0) SB.append(", ");
+			SB.append(this.getName(i));
+		}
+		SB.append("]");
+		return SB.toString();
+	}
+}
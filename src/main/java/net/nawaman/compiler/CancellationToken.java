@@ -0,0 +1,91 @@
+/*----------------------------------------------------------------------------------------------------------------------
+ * Copyright (C) 2008-2021 Nawapunth Manusitthipol. Implements with and for Java 11 JDK.
+ *----------------------------------------------------------------------------------------------------------------------
+ * LICENSE:
+ * 
+ * This file is part of Nawa's SimpleCompiler.
+ * 
+ * The project is a free software; you can redistribute it and/or modify it under the SIMILAR terms of the GNU General
+ * Public License as published by the Free Software Foundation; either version 2 of the License, or any later version.
+ * You are only required to inform me about your modification and redistribution as or as part of commercial software
+ * package. You can inform me via nawa<at>nawaman<dot>net.
+ * 
+ * The project is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the 
+ * implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ * ---------------------------------------------------------------------------------------------------------------------
+ */
+
+
+package net.nawaman.compiler;
+
+import java.util.concurrent.CancellationException;
+
+/**
+ * A token telling if the work of a compilation should be stopped.
+ * 
+ * The token of a compile product is cancelled when the compilation is cancelled, when its deadline is passed or the
+ * moment a fatal error is reported. Tasks (or the parsers they call) that run for long should check the token and stop
+ * early once it is cancelled. The token can be handed down to code that does not know the compile product.
+ *
+ * @author Nawapunth Manusitthipol (https://github.com/NawaMan)
+ */
+final public class CancellationToken {
+	
+	/** The reason when the compilation is cancelled */
+	static public final String Reason_Cancelled  = "The compilation is cancelled.";
+	/** The reason when the compilation has passed its deadline */
+	static public final String Reason_Deadline   = "The compilation is stopped as it has passed its deadline.";
+	/** The reason when a fatal error is reported */
+	static public final String Reason_FatalError = "A fatal error is reported.";
+	
+	CancellationToken() {}
+	
+	private volatile String  Reason      = null;
+	private volatile boolean HasDeadline = false;
+	private volatile long    Deadline    =     0;
+	
+	/** Cancels with the reason - Returns if this call is the one that cancels */
+	public synchronized boolean cancel(String pReason) {
+		if(this.Reason != null) return false;
+		this.Reason = (pReason == null)?Reason_Cancelled:pReason;
+		return true;
+	}
+	/** Checks if the work should be stopped */
+	public boolean isCancelled() {
+		if(this.Reason != null) return true;
+		if(this.isDeadlinePassed()) {
+			this.cancel(Reason_Deadline);
+			return true;
+		}
+		return false;
+	}
+	/** Throws a CancellationException if the work should be stopped */
+	public void throwIfCancelled() {
+		if(this.isCancelled()) throw new CancellationException(this.Reason);
+	}
+	/** Returns the reason of the cancellation (null if it is not cancelled) */
+	public String getReason() {
+		return this.isCancelled()?this.Reason:null;
+	}
+	/** Checks if the token is cancelled because a fatal error is reported */
+	public boolean isCancelledByFatalError() {
+		return this.Reason == Reason_FatalError;
+	}
+	
+	/** Sets the deadline (as a value of System.nanoTime()) after which the token is cancelled */
+	public void setDeadline(long pDeadline) {
+		this.Deadline    = pDeadline;
+		this.HasDeadline = true;
+	}
+	/** Checks if the deadline is passed */
+	public boolean isDeadlinePassed() {
+		return this.HasDeadline && ((System.nanoTime() - this.Deadline) >= 0);
+	}
+	
+	/** Returns this token as a string */
+	@Override public String toString() {
+		String TheReason = this.getReason();
+		return "CancellationToken: " + ((TheReason == null)?"active":TheReason);
+	}
+}
@@ -19,6 +19,9 @@
 package net.nawaman.compiler;
 
 import java.io.*;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
 
 /**
@@ -79,11 +82,604 @@ abstract public class Code implements Serializable {
 			CharSequence CS = this.getAdjusted();
 			return (CS == null)?null:CS.toString();
 		}
+		
+		/**
+		 * An adjusted code which positions are mapped by a source map (see SourceMap).
+		 * 
+		 * The source is the original source of the code and the adjusted is the text after the adjustment. The map
+		 * keeps one entry per segment of the adjusted text so a position is mapped in O(log segments). A code can be
+		 * adjusted again (see <code>adjust(CharSequence, SourceMap)</code>) and the positions of the result are mapped
+		 * to the original source directly.
+		 **/
+		static public class Simple extends Adjusted {
+			
+			private static final long serialVersionUID = 3195608224862217413L;
+			
+			/** Construct an adjusted code */
+			public Simple(String pCodeName, CharSequence pSource, CharSequence pAdjusted, SourceMap pMap) {
+				if(pMap == null) throw new NullPointerException();
+				this.CodeName = pCodeName;
+				this.Source   = (pSource   == null)?"":pSource.toString();
+				this.Adjusted = (pAdjusted == null)?"":pAdjusted.toString();
+				this.Map      = pMap;
+				if(pMap.getLength() != this.Adjusted.length())
+					throw new IllegalArgumentException("The source map does not match the adjusted text of `"+pCodeName+"`.");
+			}
+			
+			final String       CodeName;
+			final CharSequence Source;
+			final CharSequence Adjusted;
+			final SourceMap    Map;
+			
+			/**{@inheritDoc}*/ @Override public String       getCodeName() { return this.CodeName; }
+			/**{@inheritDoc}*/ @Override public CharSequence getSource()   { return this.Source;   }
+			/**{@inheritDoc}*/ @Override public CharSequence getAdjusted() { return this.Adjusted; }
+			
+			/** Returns the map of the positions */
+			public SourceMap getSourceMap() {
+				return this.Map;
+			}
+			
+			/**{@inheritDoc}*/ @Override
+			public CodeRef getOriginalRef(int pThisPos) {
+				return this.Map.getOriginalRef(pThisPos);
+			}
+			/**{@inheritDoc}*/ @Override
+			public int getOriginalPos(int pThisPos) {
+				return this.Map.getOriginalPos(pThisPos);
+			}
+			
+			/** Returns this code adjusted again (the map maps the new text to the adjusted text of this code) */
+			public Simple adjust(CharSequence pAdjusted, SourceMap pMap) {
+				if(pMap == null) throw new NullPointerException();
+				return new Simple(this.CodeName, this.Source, pAdjusted, pMap.compose(this.Map));
+			}
+		}
+	}
+	
+	/**
+	 * A code that can be edited in place.
+	 * 
+	 * The text is held in a piece table: an append-only buffer (starting with the initial text) and the pieces of the
+	 * buffer that make up the current text. An edit appends the inserted text to the buffer and splits or removes the
+	 * pieces so no text is copied or rescanned. Typing extends the last piece so the number of pieces stays small; the
+	 * table is compacted once it has too many pieces or too much removed text.
+	 * 
+	 * The new line index is updated by scanning only the edited region (and one character at each side of it) and by
+	 * moving the positions after it. Each edit is recorded as a Change with a revision number so the tasks can limit
+	 * their work to the changed range (see <code>getChangeSince(long)</code>).
+	 * 
+	 * An editable code is not thread-safe; compile a <code>snapshot()</code> of it if it may be edited meanwhile.
+	 **/
+	static public class Editable extends Code {
+		
+		private static final long serialVersionUID = 4466237920612338561L;
+		
+		/** The maximum number of pieces before the table is compacted */
+		static public final int MaxPieceCount = 1024;
+		
+		/** Construct an editable code */
+		public Editable(String pCodeName, CharSequence pSource) {
+			this.CodeName = pCodeName;
+			this.compact((pSource == null)?"":pSource.toString());
+		}
+		
+		String CodeName;
+		
+		/** The append-only buffer the pieces refer to */ StringBuilder Buffer;
+		/** The offset of each piece in the buffer     */ int[]         PieceOffsets;
+		/** The length of each piece                   */ int[]         PieceLengths;
+		/** The position of each piece in the text     */ int[]         PieceStarts;
+		/** The number of the pieces                   */ int           PieceCount;
+		/** The length of the text                     */ int           Length;
+		
+		/** The piece last found (the text is often read in order) */
+		transient int LastPiece = 0;
+		
+		final Text           TheText  = new Text();
+		      long           Revision = 0;
+		final Vector<Change> Changes  = new Vector<Change>();
+		
+		/**{@inheritDoc}*/ @Override public String       getCodeName() { return this.CodeName; }
+		/**{@inheritDoc}*/ @Override public CharSequence getSource()   { return this.TheText;  }
+		
+		/** Returns a code with the current text (that will not be changed by the later edits) */
+		public Code.Simple snapshot() {
+			return new Code.Simple(this.CodeName, this.TheText.toString());
+		}
+		
+		// Edit ------------------------------------------------------------------------------------
+		
+		/** Inserts the text at the position - Returns the change */
+		public Change insert(int pPos, CharSequence pText) {
+			return this.replace(pPos, pPos, pText);
+		}
+		/** Deletes the text from pStart to before pEnd - Returns the change */
+		public Change delete(int pStart, int pEnd) {
+			return this.replace(pStart, pEnd, null);
+		}
+		/** Replaces the text from pStart to before pEnd with the text - Returns the change (null if nothing changed) */
+		public Change replace(int pStart, int pEnd, CharSequence pText) {
+			if((pStart < 0) || (pEnd < pStart) || (pEnd > this.Length))
+				throw new IllegalArgumentException("Invalid range to edit: " + pStart + " to " + pEnd + ".");
+			
+			int TextLength = (pText == null)?0:pText.length();
+			if((pStart == pEnd) && (TextLength == 0)) return null;
+			
+			// Remove the pieces in the range
+			int First = this.splitAt(pStart);
+			int Last  = this.splitAt(pEnd);
+			this.removePieces(First, Last);
+			
+			// Add the piece of the text
+			if(TextLength != 0) {
+				int BOffset = this.Buffer.length();
+				this.Buffer.append(pText);
+				
+				int Prev = First - 1;
+				if((Prev >= 0) && ((this.PieceOffsets[Prev] + this.PieceLengths[Prev]) == BOffset)) {
+					this.PieceLengths[Prev] += TextLength;	// Typing at the end of the last added text
+				} else {
+					this.insertPiece(First, BOffset, TextLength);
+				}
+			}
+			this.Length += TextLength - (pEnd - pStart);
+			this.updatePieceStarts(Math.max(0, First - 1));
+			this.updateNewLines(pStart, pEnd, TextLength);
+			
+			Change TheChange = new Change(++this.Revision, pStart, pEnd, pStart + TextLength);
+			this.Changes.add(TheChange);
+			
+			if((this.PieceCount > MaxPieceCount) || (this.Buffer.length() > (this.Length*2 + MaxPieceCount)))
+				this.compact(this.TheText.toString());
+			return TheChange;
+		}
+		
+		// Changes ---------------------------------------------------------------------------------
+		
+		/** Returns the revision of the code (the number of the edits made) */
+		public long getRevision() {
+			return this.Revision;
+		}
+		/** Returns the changes made after the revision (in the order they are made) */
+		public Change[] getChangesSince(long pRevision) {
+			int Index = this.Changes.size();
+			while((Index > 0) && (this.Changes.get(Index - 1).Revision > pRevision)) Index--;
+			List<Change> Since = this.Changes.subList(Index, this.Changes.size());
+			return Since.toArray(new Change[Since.size()]);
+		}
+		/**
+		 * Returns one change covering all the changes made after the revision (null if there is no change).
+		 * 
+		 * The start and the old end are the positions in the text of the revision and the new end is the position in
+		 * the current text so the text outside of the range is the same in both.
+		 **/
+		public Change getChangeSince(long pRevision) {
+			Change Merged = null;
+			for(Change C : this.getChangesSince(pRevision)) Merged = (Merged == null)?C:Merged.merge(C);
+			return Merged;
+		}
+		/** Discards the changes up to the revision (when they are no longer needed) */
+		public void discardChanges(long pRevision) {
+			int Count = 0;
+			while((Count < this.Changes.size()) && (this.Changes.get(Count).Revision <= pRevision)) Count++;
+			this.Changes.subList(0, Count).clear();
+		}
+		
+		/** A change made to an editable code: the text from Start to before OldEnd is replaced by Start to NewEnd */
+		static final public class Change implements Serializable {
+			
+			private static final long serialVersionUID = -6021538174032816337L;
+			
+			Change(long pRevision, int pStart, int pOldEnd, int pNewEnd) {
+				this.Revision = pRevision;
+				this.Start    = pStart;
+				this.OldEnd   = pOldEnd;
+				this.NewEnd   = pNewEnd;
+			}
+			
+			final long Revision;
+			final int  Start;
+			final int  OldEnd;
+			final int  NewEnd;
+			
+			/** Returns the revision of the code after this change */ public long getRevision() { return this.Revision; }
+			/** Returns the start of the change                     */ public int  getStart()    { return this.Start;    }
+			/** Returns the end of the replaced text                */ public int  getOldEnd()   { return this.OldEnd;   }
+			/** Returns the end of the new text                     */ public int  getNewEnd()   { return this.NewEnd;   }
+			
+			/** Returns the difference of the text length after the change */
+			public int getDelta() {
+				return (this.NewEnd - this.Start) - (this.OldEnd - this.Start);
+			}
+			/** Returns a change covering this change followed by the given change */
+			public Change merge(Change pNext) {
+				int End   = Math.max(this.NewEnd, pNext.OldEnd);
+				int Start = Math.min(this.Start,  pNext.Start);
+				return new Change(pNext.Revision, Start, End - this.getDelta(), End + pNext.getDelta());
+			}
+			
+			/** Returns the change as a string */
+			@Override public String toString() {
+				return String.format("Change#%d[%d,%d)->[%d,%d)",
+						this.Revision, this.Start, this.OldEnd, this.Start, this.NewEnd);
+			}
+		}
+		
+		// Piece table -----------------------------------------------------------------------------
+		
+		/** Replaces the table with a single piece of the text */
+		private void compact(String pText) {
+			this.Buffer       = new StringBuilder(pText);
+			this.PieceOffsets = new int[16];
+			this.PieceLengths = new int[16];
+			this.PieceStarts  = new int[16];
+			this.PieceCount   = 0;
+			this.Length       = pText.length();
+			this.LastPiece    = 0;
+			if(this.Length != 0) this.insertPiece(0, 0, this.Length);
+			if(this.NewLinePos == null) this.NewLinePos = NewLinePositionsOf(pText);
+		}
+		
+		/** Returns the index of the piece holding the position (the position must be in the text) */
+		final int findPiece(int pPos) {
+			int P = this.LastPiece;
+			if(P < this.PieceCount) {
+				int Offset = pPos - this.PieceStarts[P];
+				if((Offset >= 0) && (Offset < this.PieceLengths[P])) return P;
+			}
+			
+			int Low  = 0;
+			int High = this.PieceCount - 1;
+			while(Low < High) {
+				int Mid = (Low + High + 1) >>> 1;
+				if(this.PieceStarts[Mid] <= pPos) Low  = Mid;
+				else                              High = Mid - 1;
+			}
+			this.LastPiece = Low;
+			return Low;
+		}
+		/** Splits the piece at the position - Returns the index of the piece starting at the position */
+		private int splitAt(int pPos) {
+			if(pPos >= this.Length) return this.PieceCount;
+			int P      = this.findPiece(pPos);
+			int Offset = pPos - this.PieceStarts[P];
+			if(Offset == 0) return P;
+			
+			this.insertPiece(P + 1, this.PieceOffsets[P] + Offset, this.PieceLengths[P] - Offset);
+			this.PieceStarts [P + 1] = pPos;
+			this.PieceLengths[P]     = Offset;
+			return P + 1;
+		}
+		/** Inserts a piece at the index */
+		private void insertPiece(int pIndex, int pOffset, int pLength) {
+			if(this.PieceCount == this.PieceOffsets.length) {
+				int Capacity = this.PieceCount*2;
+				this.PieceOffsets = Arrays.copyOf(this.PieceOffsets, Capacity);
+				this.PieceLengths = Arrays.copyOf(this.PieceLengths, Capacity);
+				this.PieceStarts  = Arrays.copyOf(this.PieceStarts,  Capacity);
+			}
+			int Moved = this.PieceCount - pIndex;
+			System.arraycopy(this.PieceOffsets, pIndex, this.PieceOffsets, pIndex + 1, Moved);
+			System.arraycopy(this.PieceLengths, pIndex, this.PieceLengths, pIndex + 1, Moved);
+			System.arraycopy(this.PieceStarts,  pIndex, this.PieceStarts,  pIndex + 1, Moved);
+			this.PieceOffsets[pIndex] = pOffset;
+			this.PieceLengths[pIndex] = pLength;
+			this.PieceCount++;
+		}
+		/** Removes the pieces from pFirst to before pLast */
+		private void removePieces(int pFirst, int pLast) {
+			int Removed = pLast - pFirst;
+			if(Removed <= 0) return;
+			int Moved = this.PieceCount - pLast;
+			System.arraycopy(this.PieceOffsets, pLast, this.PieceOffsets, pFirst, Moved);
+			System.arraycopy(this.PieceLengths, pLast, this.PieceLengths, pFirst, Moved);
+			System.arraycopy(this.PieceStarts,  pLast, this.PieceStarts,  pFirst, Moved);
+			this.PieceCount -= Removed;
+			this.LastPiece   = 0;
+		}
+		/** Recalculates the start positions of the pieces from the index */
+		private void updatePieceStarts(int pFrom) {
+			for(int p = pFrom; p < this.PieceCount; p++)
+				this.PieceStarts[p] = (p == 0)?0:(this.PieceStarts[p - 1] + this.PieceLengths[p - 1]);
+		}
+		
+		/**
+		 * Updates the new line positions after the text from pStart to before pEnd is replaced by a text of the length.
+		 * 
+		 * The new lines within one character of the edit are removed and the region is scanned again (an edit may join
+		 * or split a "\r\n") while the new lines after it are moved by the change of the length.
+		 **/
+		private void updateNewLines(int pStart, int pEnd, int pTextLength) {
+			int[] NLPs = this.NewLinePos;
+			if(NLPs == null) return;	// Will be calculated when used
+			
+			int From  = IndexOfNewLineFrom(NLPs, pStart - 1);
+			int To    = IndexOfNewLineFrom(NLPs, pEnd   + 1);
+			int Delta = pTextLength - (pEnd - pStart);
+			
+			// Scan the edited region
+			int   WStart  = Math.max(0, pStart - 1);
+			int   WEnd    = Math.min(this.Length, pStart + pTextLength + 1);
+			int[] Scanned = new int[WEnd - WStart];
+			int   SCount  = 0;
+			for(int i = WStart; i < WEnd; i++) {
+				char C = this.TheText.charAt(i);
+				if(C == '\r') {
+					if(((i + 1) < this.Length) && (this.TheText.charAt(i + 1) == '\n')) {
+						if((i + 1) >= WEnd) break;	// The new line after the region is already in the index
+						i++;
+					}
+				} else if(C != '\n') continue;
+				Scanned[SCount++] = i;
+			}
+			
+			int[] NewNLPs = new int[From + SCount + (NLPs.length - To)];
+			System.arraycopy(NLPs,    0, NewNLPs, 0,    From);
+			System.arraycopy(Scanned, 0, NewNLPs, From, SCount);
+			for(int i = To, j = From + SCount; i < NLPs.length; i++, j++) NewNLPs[j] = NLPs[i] + Delta;
+			this.NewLinePos = (NewNLPs.length == 0)?NoNewLine:NewNLPs;
+		}
+		
+		/** The text of the code as a char sequence reading through the pieces */
+		final class Text implements CharSequence, Serializable {
+			
+			private static final long serialVersionUID = 2290516387390186713L;
+			
+			/**{@inheritDoc}*/ @Override
+			public int length() {
+				return Editable.this.Length;
+			}
+			/**{@inheritDoc}*/ @Override
+			public char charAt(int pIndex) {
+				if((pIndex < 0) || (pIndex >= Editable.this.Length)) throw new IndexOutOfBoundsException("" + pIndex);
+				Editable E = Editable.this;
+				int      P = E.findPiece(pIndex);
+				return E.Buffer.charAt(E.PieceOffsets[P] + pIndex - E.PieceStarts[P]);
+			}
+			/**{@inheritDoc}*/ @Override
+			public CharSequence subSequence(int pStart, int pEnd) {
+				if((pStart < 0) || (pEnd < pStart) || (pEnd > Editable.this.Length))
+					throw new IndexOutOfBoundsException(pStart + " to " + pEnd);
+				StringBuilder SB = new StringBuilder(pEnd - pStart);
+				if(pStart == pEnd) return SB.toString();
+				
+				Editable E = Editable.this;
+				for(int p = E.findPiece(pStart); (p < E.PieceCount) && (E.PieceStarts[p] < pEnd); p++) {
+					int Shift = E.PieceOffsets[p] - E.PieceStarts[p];
+					int From  = Math.max(pStart, E.PieceStarts[p]);
+					int To    = Math.min(pEnd,   E.PieceStarts[p] + E.PieceLengths[p]);
+					SB.append(E.Buffer, From + Shift, To + Shift);
+				}
+				return SB.toString();
+			}
+			/**{@inheritDoc}*/ @Override
+			public String toString() {
+				return this.subSequence(0, Editable.this.Length).toString();
+			}
+		}
+	}
+	
+	/**
+	 * A code which source is a file mapped into memory (see MappedByteBuffer).
+	 * 
+	 * The source is read from the mapped bytes when it is used so a large file is not loaded or copied on the heap.
+	 * When the file is all ASCII (or is Latin-1), a character is a byte. Otherwise the file is decoded as UTF-8: the
+	 * byte offset of every <code>CheckpointSize</code>-th character is kept so a character is decoded from the nearest
+	 * checkpoint (or from the last character read as the source is mostly read in order). A malformed byte is read as
+	 * U+FFFD. The file must not be changed while it is mapped and its size must be less than 2GB.
+	 **/
+	static public class Mapped extends Code {
+		
+		private static final long serialVersionUID = -7135049856391822264L;
+		
+		/** The number of characters between two checkpoints of a UTF-8 source */
+		static public final int CheckpointSize = 1024;
+		
+		static private final char Replacement = '\uFFFD';
+		
+		/** Constructs a mapped code of the UTF-8 file */
+		public Mapped(String pCodeName, File pFile) throws IOException {
+			this(pCodeName, pFile, false);
+		}
+		/** Constructs a mapped code of the file (Latin-1 if pIsLatin1 is true, UTF-8 otherwise) */
+		public Mapped(String pCodeName, File pFile, boolean pIsLatin1) throws IOException {
+			if(pFile == null) throw new NullPointerException();
+			this.CodeName  = pCodeName;
+			this.File      = pFile;
+			this.IsLatin1  = pIsLatin1;
+			this.map();
+		}
+		
+		final String  CodeName;
+		final File    File;
+		final boolean IsLatin1;
+		
+		transient MappedByteBuffer Bytes;
+		transient int              Length;
+		/** The character index of each checkpoint (null if a character is a byte) */ transient int[] CheckChars;
+		/** The byte offset of each checkpoint                                     */ transient int[] CheckBytes;
+		/** The last character read and its byte offset (packed, see decodeFrom)    */ transient volatile long LastRead;
+		
+		final Text TheText = new Text();
+		
+		/**{@inheritDoc}*/ @Override public String       getCodeName() { return this.CodeName; }
+		/**{@inheritDoc}*/ @Override public CharSequence getSource()   { return this.TheText;  }
+		
+		/** Returns the mapped file */
+		public File getFile() {
+			return this.File;
+		}
+		/** Checks if each character of the source is a byte (the source is ASCII or Latin-1) */
+		public boolean isSingleByte() {
+			return this.CheckChars == null;
+		}
+		
+		/** Maps the file and indexes the characters in a single pass over the bytes */
+		private void map() throws IOException {
+			try(FileChannel Channel = FileChannel.open(this.File.toPath(), StandardOpenOption.READ)) {
+				long Size = Channel.size();
+				if(Size > Integer.MAX_VALUE)
+					throw new IOException("The file is too large to be mapped: `" + this.File + "`.");
+				this.Bytes = Channel.map(FileChannel.MapMode.READ_ONLY, 0, Size);
+			}
+			
+			int ByteCount = this.Bytes.limit();
+			int Offset    = this.IsLatin1 ? ByteCount : 0;
+			while((Offset < ByteCount) && (this.Bytes.get(Offset) >= 0)) Offset++;	// ASCII prefix
+			if(Offset == ByteCount) {
+				this.Length = ByteCount;
+				return;
+			}
+			
+			// Index the UTF-8 characters
+			int   Chars      = Offset;
+			int   Count      = Offset/CheckpointSize + 1;	// The checkpoints in the ASCII prefix
+			int[] CheckChars = new int[Math.max(16, (ByteCount/CheckpointSize) + 2)];
+			int[] CheckBytes = new int[CheckChars.length];
+			for(int c = 0; c < Count; c++) CheckBytes[c] = CheckChars[c] = c*CheckpointSize;
+			while(Offset < ByteCount) {
+				if(Chars >= (Count*CheckpointSize)) {
+					CheckChars[Count] = Chars;
+					CheckBytes[Count] = Offset;
+					Count++;
+				}
+				int Decoded = this.decodeAt(Offset);
+				Chars  += (Decoded >>> 3) >= 0x10000 ? 2 : 1;
+				Offset += Decoded & 7;
+			}
+			this.Length     = Chars;
+			this.CheckChars = Arrays.copyOf(CheckChars, Count);
+			this.CheckBytes = Arrays.copyOf(CheckBytes, Count);
+		}
+		
+		/** Returns the code point at the byte offset and the number of its bytes as ((CodePoint << 3) | ByteCount) */
+		final int decodeAt(int pOffset) {
+			MappedByteBuffer B     = this.Bytes;
+			int              Limit = B.limit();
+			int              B0    = B.get(pOffset) & 0xFF;
+			if(B0 < 0x80) return (B0 << 3) | 1;
+			
+			// The range of the second byte excludes the overlong forms, the surrogates and the values over U+10FFFF
+			int Needed;
+			int CodePoint;
+			int Min = 0x80;
+			int Max = 0xBF;
+			if((B0 >= 0xC2) && (B0 <= 0xDF)) {
+				Needed    = 1;
+				CodePoint = B0 & 0x1F;
+			} else if((B0 >= 0xE0) && (B0 <= 0xEF)) {
+				Needed    = 2;
+				CodePoint = B0 & 0x0F;
+				if(B0 == 0xE0) Min = 0xA0;
+				if(B0 == 0xED) Max = 0x9F;
+			} else if((B0 >= 0xF0) && (B0 <= 0xF4)) {
+				Needed    = 3;
+				CodePoint = B0 & 0x07;
+				if(B0 == 0xF0) Min = 0x90;
+				if(B0 == 0xF4) Max = 0x8F;
+			} else return (Replacement << 3) | 1;
+			
+			if((pOffset + Needed) >= Limit) return (Replacement << 3) | 1;
+			for(int i = 1; i <= Needed; i++) {
+				int Bi = B.get(pOffset + i) & 0xFF;
+				if((Bi < Min) || (Bi > Max)) return (Replacement << 3) | 1;
+				CodePoint = (CodePoint << 6) | (Bi & 0x3F);
+				Min = 0x80;
+				Max = 0xBF;
+			}
+			return (CodePoint << 3) | (Needed + 1);
+		}
+		
+		/** Returns the character at the index decoding from the nearest known position */
+		final char charAt(int pIndex) {
+			if(this.CheckChars == null) return (char)(this.Bytes.get(pIndex) & 0xFF);
+			
+			// Start from the last read or the checkpoint
+			long Last      = this.LastRead;
+			int  CharIndex = (int)(Last >>> 32);
+			int  Offset    = (int)Last;
+			if((pIndex < CharIndex) || ((pIndex - CharIndex) > CheckpointSize)) {
+				int C = Math.min(pIndex/CheckpointSize, this.CheckChars.length - 1);
+				while((C > 0) && (this.CheckChars[C] > pIndex)) C--;
+				CharIndex = this.CheckChars[C];
+				Offset    = this.CheckBytes[C];
+			}
+			
+			while(true) {
+				int Decoded   = this.decodeAt(Offset);
+				int CodePoint = Decoded >>> 3;
+				int Chars     = (CodePoint >= 0x10000) ? 2 : 1;
+				if(pIndex < (CharIndex + Chars)) {
+					this.LastRead = (((long)CharIndex) << 32) | (Offset & 0xFFFFFFFFL);
+					if(Chars == 1) return (char)CodePoint;
+					if(pIndex == CharIndex) return Character.highSurrogate(CodePoint);
+					return Character.lowSurrogate(CodePoint);
+				}
+				CharIndex += Chars;
+				Offset    += Decoded & 7;
+			}
+		}
+		
+		/** Maps the file again after deserialization */
+		private void readObject(ObjectInputStream pIn) throws IOException, ClassNotFoundException {
+			pIn.defaultReadObject();
+			this.map();
+		}
+		
+		/** The source of the code as a char sequence reading the mapped file */
+		final class Text implements CharSequence, Serializable {
+			
+			private static final long serialVersionUID = -3400126183765815574L;
+			
+			/**{@inheritDoc}*/ @Override
+			public int length() {
+				return Mapped.this.Length;
+			}
+			/**{@inheritDoc}*/ @Override
+			public char charAt(int pIndex) {
+				if((pIndex < 0) || (pIndex >= Mapped.this.Length)) throw new IndexOutOfBoundsException("" + pIndex);
+				return Mapped.this.charAt(pIndex);
+			}
+			/**{@inheritDoc}*/ @Override
+			public CharSequence subSequence(int pStart, int pEnd) {
+				if((pStart < 0) || (pEnd < pStart) || (pEnd > Mapped.this.Length))
+					throw new IndexOutOfBoundsException(pStart + " to " + pEnd);
+				char[] Chars = new char[pEnd - pStart];
+				for(int i = pStart; i < pEnd; i++) Chars[i - pStart] = Mapped.this.charAt(i);
+				return new String(Chars);
+			}
+			/**{@inheritDoc}*/ @Override
+			public String toString() {
+				return this.subSequence(0, Mapped.this.Length).toString();
+			}
+		}
+	}
+	
+	// Fingerprint -----------------------------------------------------------------------------------------------------
+	
+	/** Returns the fingerprint of the source code (a 64-bit hash used to tell if the source has changed) */
+	public long getFingerprint() {
+		return FingerprintOf(this.getSource());
+	}
+	
+	/** Returns the fingerprint of the char sequence (64-bit FNV-1a of the characters) */
+	static public long FingerprintOf(CharSequence pSource) {
+		if(pSource == null) return 0;
+		long Hash = 0xcbf29ce484222325L;
+		for(int i = 0; i < pSource.length(); i++) {
+			Hash ^= pSource.charAt(i);
+			Hash *= 0x100000001b3L;
+		}
+		return Hash ^ pSource.length();
 	}
 	
 	// Internal services -----------------------------------------------------------------------------------------------
 	
-	int[] NewLinePos = null;
+	/** The positions of the new lines in ascending order (the position of '\n' for "\r\n") */
+	volatile int[] NewLinePos = null;
+	
+	static private final int[] NoNewLine = new int[0];
 	
 	/** Reset the new line position (use this in case the source code has changed) */
 	protected void resetNLPs() {
@@ -93,28 +689,57 @@ abstract public class Code implements Serializable {
 	/** Ensure the the new line positions are calculated */
 	protected void ensureNLPs() {
 		if(this.NewLinePos != null) return;
-		Vector<Integer> NLs = new Vector<Integer>();
-		for(int i = 0; i < this.getSource().length(); i++) {
-			if(this.getSource().charAt(i) == '\r') {
-				if((this.getSource().length() > i) && (this.getSource().charAt(i + 1) == '\n')) i++;
-			} else if(this.getSource().charAt(i) == '\n') {
-			} else continue;
-			NLs.add(i);
+		this.NewLinePos = NewLinePositionsOf(this.getSource());
+	}
+	
+	/** Returns the positions of the new lines of the source in a single pass ("\r\n", '\r' and '\n' are new lines) */
+	static int[] NewLinePositionsOf(CharSequence pSource) {
+		int Length = (pSource == null)?0:pSource.length();
+		if(Length == 0) return NoNewLine;
+		
+		int[] NLPs  = new int[16];
+		int   Count = 0;
+		for(int i = 0; i < Length; i++) {
+			char C = pSource.charAt(i);
+			if(C == '\r') {
+				if(((i + 1) < Length) && (pSource.charAt(i + 1) == '\n')) i++;
+			} else if(C != '\n') continue;
+			
+			if(Count == NLPs.length) NLPs = Arrays.copyOf(NLPs, Count*2);
+			NLPs[Count++] = i;
 		}
-
-		// Populate the array
-        this.NewLinePos = new int[NLs.size()];
-        for(int i = this.NewLinePos.length; --i >= 0; ) this.NewLinePos[i] = NLs.get(i);
+		return (Count == 0)?NoNewLine:Arrays.copyOf(NLPs, Count);
+	}
+	
+	/** Returns the index of the first new line at or after the position (binary search) */
+	static int IndexOfNewLineFrom(int[] pNLPs, int pPos) {
+		return IndexOfNewLineFrom(pNLPs, 0, pNLPs.length, pPos);
+	}
+	/** Returns the index of the first new line at or after the position within [pLow, pHigh) (pHigh if none) */
+	static int IndexOfNewLineFrom(int[] pNLPs, int pLow, int pHigh, int pPos) {
+		int Low  = pLow;
+		int High = pHigh;
+		while(Low < High) {
+			int Mid = (Low + High) >>> 1;
+			if(pNLPs[Mid] < pPos) Low  = Mid + 1;
+			else                  High = Mid;
+		}
+		return Low;
+	}
+	/** Returns the index of the line the position is on (the number of the new lines before the position) */
+	final int getLineIndexOf(int pPos) {
+		this.ensureNLPs();
+		return IndexOfNewLineFrom(this.NewLinePos, pPos);
+	}
+	/** Returns the column of the position on the line at the index */
+	final int getColOf(int pPos, int pLineIndex) {
+		return (pLineIndex == 0)?pPos:(pPos - this.NewLinePos[pLineIndex - 1] - 1);
 	}
 	
 	/** Returns the line number of the position */
 	public int getLineNumberOf(int pPos) {
 		if((pPos < 0) || (pPos >= this.getSource().length())) return -1;
-		this.ensureNLPs();
-		for(int i = this.NewLinePos.length; --i >= 0; ) {
-			if(pPos > this.NewLinePos[i]) return i + 1;
-		}
-		return 0;
+		return this.getLineIndexOf(pPos);
 	}
 	/** Returns the line number of the position */
 	public int getRowOf(int pPos) {
@@ -123,11 +748,67 @@ abstract public class Code implements Serializable {
 	/** Returns the position of on a line number of the position (i.e., column) */
 	public int getColOf(int pPos) {
 		if((pPos < 0) || (pPos >= this.getSource().length())) return -1;
+		return this.getColOf(pPos, this.getLineIndexOf(pPos));
+	}
+	
+	/**
+	 * Resolves the column and the line number of each of the offsets (-1 for an offset out of the code) in one sweep
+	 *    over the line index. The sweep moves forward from the line of the previous offset so sorted offsets are the
+	 *    cheapest but any order gives the right result. Either of the output arrays may be null.
+	 **/
+	public void resolvePositions(int[] pOffsets, int[] pOutCols, int[] pOutRows) {
+		this.resolvePositions(pOffsets, pOffsets.length, pOutCols, pOutRows);
+	}
+	/**
+	 * Resolves the column and the line number of the first pCount offsets (see resolvePositions(int[], int[], int[])).
+	 *    Each offset is read before its outputs are written so the offsets and the columns may share one array.
+	 **/
+	public void resolvePositions(int[] pOffsets, int pCount, int[] pOutCols, int[] pOutRows) {
+		int Count = pCount;
+		if((Count < 0) || (Count > pOffsets.length))
+			throw new IllegalArgumentException("Invalid offset count: " + pCount);
+		if(((pOutCols != null) && (pOutCols.length < Count)) || ((pOutRows != null) && (pOutRows.length < Count)))
+			throw new IllegalArgumentException("The output arrays must be at least as long as the offsets.");
+		
 		this.ensureNLPs();
-		for(int i = this.NewLinePos.length; --i >= 0; ) {
-			if(pPos > this.NewLinePos[i]) return pPos - this.NewLinePos[i] - 1;
+		int[] NLPs   = this.NewLinePos;
+		int   NCount = NLPs.length;
+		int   Length = this.getSource().length();
+		int   Line   = 0;
+		for(int i = 0; i < Count; i++) {
+			int Pos = pOffsets[i];
+			if((Pos < 0) || (Pos >= Length)) {
+				if(pOutCols != null) pOutCols[i] = -1;
+				if(pOutRows != null) pOutRows[i] = -1;
+				continue;
+			}
+			
+			if((Line > 0) && (NLPs[Line - 1] >= Pos)) {
+				// Going back - search the lines before
+				Line = IndexOfNewLineFrom(NLPs, 0, Line, Pos);
+			} else {
+				// Going forward - gallop from the current line then search the bracketed lines
+				int Low  = Line;
+				int High = Line;
+				int Step = 1;
+				while((High < NCount) && (NLPs[High] < Pos)) {
+					Low  = High + 1;
+					High = Line + Step;
+					Step <<= 1;
+				}
+				Line = IndexOfNewLineFrom(NLPs, Low, Math.min(High, NCount), Pos);
+			}
+			
+			if(pOutCols != null) pOutCols[i] = (Line == 0)?Pos:(Pos - NLPs[Line - 1] - 1);
+			if(pOutRows != null) pOutRows[i] = Line;
 		}
-		return pPos;
+	}
+	
+	/** Returns the column and the line number of the position ({-1, -1} for a position out of the code) */
+	final int[] getColRowOf(int pPos) {
+		if((pPos < 0) || (pPos >= this.getSource().length())) return new int[] { -1, -1 };
+		int Row = this.getLineIndexOf(pPos);
+		return new int[] { this.getColOf(pPos, Row), Row };
 	}
 	
 	/** Returns the line count */
@@ -181,13 +862,8 @@ abstract public class Code implements Serializable {
 		if(pPos >= this.getSource().length()) pPos = this.getSource().length() - 1;
 		if(pPos < 0) return null;
 		
-		this.ensureNLPs();
-		int Row = -1;
-		int Col = -1;
-		for(int i = this.NewLinePos.length; --i >= 0; ) {
-			if(pPos > this.NewLinePos[i]) { Row = i + 1; Col = pPos - this.NewLinePos[i] - 1; break; }
-		}
-		if(Row == -1) { Row = 0; Col = pPos; }
+		int Row = this.getLineIndexOf(pPos);
+		int Col = this.getColOf(pPos, Row);
 		return String.format("(%d,%d)", (Col < 0)?"x":Col, (Row < 0)?"x":(Row + 1));
 	}
 
@@ -200,13 +876,8 @@ abstract public class Code implements Serializable {
 		if(pPos >= this.getSource().length()) pPos = this.getSource().length() - 1;
 		if(pPos < 0) return null;
 		
-		this.ensureNLPs();
-		int Row = -1;
-		int Col = -1;
-		for(int i = this.NewLinePos.length; --i >= 0; ) {
-			if(pPos > this.NewLinePos[i]) { Row = i + 1; Col = pPos - this.NewLinePos[i] - 1; break; }
-		}
-		if(Row == -1) { Row = 0; Col = pPos; }
+		int Row = this.getLineIndexOf(pPos);
+		int Col = this.getColOf(pPos, Row);
 		CharSequence Line = this.getLine(Row);
 		StringBuffer SB = new StringBuffer();
 		SB.append("\n---------------------------------------------------------------------------------------------\n");
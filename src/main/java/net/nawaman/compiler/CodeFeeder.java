@@ -47,6 +47,20 @@ abstract public class CodeFeeder {
 	/** The source code file */
 	abstract public Code getCode(String pName);
 	
+	private volatile CodeNameIndex NameIndex = null;
+	
+	/** Returns the index of the code names of this feeder (the index is created once and shared) */
+	public CodeNameIndex getCodeNameIndex() {
+		CodeNameIndex CNI = this.NameIndex;
+		if(CNI != null) return CNI;
+		
+		String[] Names = new String[this.getCodeCount()];
+		for(int i = Names.length; --i >= 0; ) Names[i] = this.getCodeName(i);
+		CNI = CodeNameIndex.of(Names);
+		this.NameIndex = CNI;
+		return CNI;
+	}
+	
 	/** The source code file */
 	final public CharSequence getSourceCode(String pName) {
 		Code C = this.getCode(pName);
@@ -58,6 +72,21 @@ abstract public class CodeFeeder {
 		return (CS == null)?null:CS.toString();
 	}
 	
+	/**
+	 * Loads the code of the file.
+	 * 
+	 * A file of pMappedThreshold bytes or larger is mapped into memory (see Code.Mapped) instead of loaded as a string.
+	 * A negative threshold means the file is always loaded.
+	 **/
+	static protected Code LoadCode(String pCodeName, File pFile, long pMappedThreshold) {
+		try {
+			if((pMappedThreshold >= 0) && (pFile.length() >= pMappedThreshold)) return new Code.Mapped(pCodeName, pFile);
+			return new Code.Simple(pCodeName, Util.loadTextFile(pFile.getPath()));
+		} catch(IOException IOE) {
+			throw new CompilationException("Error reading the source file: `" + pFile.getPath() + "`.", IOE);
+		}
+	}
+	
 	/** Returns this code feeder as a string (show list of all code names in the feeder) */
 	@Override public String toString() {
 		StringBuffer SB = new StringBuffer();
@@ -168,19 +197,20 @@ abstract public class CodeFeeder {
 			this.Base = (pBase == null) ? "" : pBase;
 			this.Name = pName;
 			
-			this.CNames = new Vector<String>();
-			this.Codes  = new Code[pCodes.size()];
-			int I       = 0;
+			String[] Names = new String[pCodes.size()];
+			this.Codes     = new Code[pCodes.size()];
+			int I          = 0;
 			for(String N : pCodes.keySet()) {
-				this.CNames.add(N);
+				Names[I]        = N;
 				this.Codes[I++] = new Code.Simple(N, pCodes.get(N));
 			}
+			this.CNames = CodeNameIndex.of(Names);
 		}
 
-		final String         Base;
-		final String         Name;
-		final Vector<String> CNames;
-		final Code[]         Codes;
+		final String        Base;
+		final String        Name;
+		final CodeNameIndex CNames;
+		final Code[]        Codes;
 
 		/**{@inherDoc}*/ @Override
 		public String getBase() {
@@ -196,20 +226,20 @@ abstract public class CodeFeeder {
 		}
 		/**{@inherDoc}*/ @Override
 		public String getCodeName(int pIndex) {
-			if((pIndex < 0) || (pIndex >= this.getCodeCount())) return null;
-			return this.CNames.get(pIndex);
+			return this.CNames.getName(pIndex);
+		}
+		/**{@inherDoc}*/ @Override
+		public CodeNameIndex getCodeNameIndex() {
+			return this.CNames;
 		}
 		/**{@inherDoc}*/ @Override
 		public Code getCode(int pIndex)   {
-			return this.getCode(this.CNames.get(pIndex));
-			
+			if((pIndex < 0) || (pIndex >= this.Codes.length)) return null;
+			return this.Codes[pIndex];
 		}
 		/**{@inherDoc}*/ @Override
 		public Code getCode(String pName)   {
-			if(pName == null) return null;
-			int Index = this.CNames.indexOf(pName);
-			if((Index < -1) || (Index >= this.CNames.size())) return null;
-			return this.Codes[Index];
+			return this.getCode(this.CNames.indexOf(pName));
 		}
 	}
 	
@@ -220,13 +250,19 @@ abstract public class CodeFeeder {
 			this(pName, null);
 		}
 		public CFFile(String pName, String pPath) {
+			this(pName, pPath, -1);
+		}
+		/** Constructs a feeder of the file which is mapped into memory if it is pMappedThreshold bytes or larger */
+		public CFFile(String pName, String pPath, long pMappedThreshold) {
 			if(pName == null) throw new NullPointerException();
-			this.Name = pName;
-			this.Path = (pPath == null) ? "" : pPath;
+			this.Name            = pName;
+			this.Path            = (pPath == null) ? "" : pPath;
+			this.MappedThreshold = pMappedThreshold;
 		}
 
 		final String Name;
 		final String Path;
+		final long   MappedThreshold;
 		
 		Code Code = null;
 
@@ -247,17 +283,12 @@ abstract public class CodeFeeder {
 			return (pIndex == 0)?this.Name:null;
 		}
 		/**{@inherDoc}*/ @Override
-		public Code getCode(int pIndex)   {
+		public synchronized Code getCode(int pIndex)   {
 			if(pIndex != 0) return null;
 			
 			if(this.Code != null) return this.Code;
 			String TheName = this.getCodeName(pIndex);
-			try {
-				this.Code = new Code.Simple(TheName, Util.loadTextFile(this.Path + File.separator + TheName));
-			} catch(IOException IOE) {
-				throw new CompilationException(
-						"Error reading the source file: `" + this.Path + File.separator + TheName + "`.", IOE);
-			}
+			this.Code = LoadCode(TheName, new File(this.Path + File.separator + TheName), this.MappedThreshold);
 			return this.Code;
 		}
 		/**{@inherDoc}*/ @Override public Code getCode(String pName)   {
@@ -270,9 +301,14 @@ abstract public class CodeFeeder {
 	static public class CFFolder extends CodeFeeder {
 		
 		public CFFolder(String pPathName, String pSuffix) {
+			this(pPathName, pSuffix, -1);
+		}
+		/** Constructs a feeder of the folder which files of pMappedThreshold bytes or larger are mapped into memory */
+		public CFFolder(String pPathName, String pSuffix, long pMappedThreshold) {
 			if(pPathName == null) throw new NullPointerException();
 			if(pSuffix   == null) throw new NullPointerException();
-			this.Name = pPathName;
+			this.Name            = pPathName;
+			this.MappedThreshold = pMappedThreshold;
 			
 			File P = new File(pPathName);
 			if(!P.isDirectory()) throw new IllegalArgumentException("Invalid part name '"+pPathName+"'.");
@@ -286,11 +322,12 @@ abstract public class CodeFeeder {
 				if(!F.canRead())             continue;
 				FNames.add(FName);
 			}
-			this.CNames = (FNames.size() == 0)?null:new Vector<String>(FNames);
+			this.CNames = CodeNameIndex.of(FNames);
 		}
 		
-		final String         Name;
-		final Vector<String> CNames;
+		final String        Name;
+		final CodeNameIndex CNames;
+		final long          MappedThreshold;
 		
 		Code[] Codes = null;
 
@@ -304,20 +341,22 @@ abstract public class CodeFeeder {
 		}
 		/**{@inherDoc}*/ @Override
 		public int getCodeCount() {
-			return (this.CNames == null)?0:this.CNames.size();
+			return this.CNames.size();
 		}
 		/**{@inherDoc}*/ @Override
 		public String getCodeName(int pIndex) {
-			if((pIndex < 0) || (pIndex >= this.getCodeCount())) return null;
-			return this.CNames.get(pIndex);
+			return this.CNames.getName(pIndex);
+		}
+		/**{@inherDoc}*/ @Override
+		public CodeNameIndex getCodeNameIndex() {
+			return this.CNames;
 		}
 		/**{@inherDoc}*/ @Override
 		public Code getCode(int pIndex)   {
-			return this.getCode(this.CNames.get(pIndex));			
+			return this.getCode(this.CNames.getName(pIndex));
 		}
 		/**{@inherDoc}*/ @Override
-		public Code getCode(String pName)   {
-			if(pName == null) return null;
+		public synchronized Code getCode(String pName)   {
 			int Index = this.CNames.indexOf(pName);
 			if(Index == -1) return null;
 			
@@ -325,12 +364,8 @@ abstract public class CodeFeeder {
 			Code Code = this.Codes[Index];
 			if(Code != null) return Code;
 			
-			try {
-				Code = new Code.Simple(pName, Util.loadTextFile(this.Name + File.separator + pName));
-				this.Codes[Index] = Code;
-			} catch(IOException IOE) {
-				throw new CompilationException("Error reading the source file: `" + this.Name + File.separator + pName + "`.", IOE);
-			}
+			Code = LoadCode(pName, new File(this.Name + File.separator + pName), this.MappedThreshold);
+			this.Codes[Index] = Code;
 			return Code;
 		}
 	}
@@ -32,27 +32,31 @@ import java.util.HashMap;
  */
 public class CodeFeeders extends CompilationData.Simple {
 
-	/** Constructors from the code names */
+	/**
+	 * Constructors from the code names.
+	 * 
+	 * This is O(feeders): the code names and the name index of each feeder are shared and no code data row is created.
+	 * The code and the source code of a code are read from its feeder when they are first used (see
+	 * <code>CompilationData.getFeederProvidedCodeData(...)</code>) so a code that is never used is never loaded.
+	 **/
 	@SuppressWarnings("unchecked")
 	public CodeFeeders(CodeFeeder ... pCodeFeeders) {
 		if(pCodeFeeders == null) throw new NullPointerException();
 		this.FeederDatas = new HashMap[pCodeFeeders.length];
 		this.CodeNames   = new String[ pCodeFeeders.length][];
-		this.CodeDatas   = new HashMap[pCodeFeeders.length][];
+		this.CodeDatas   = new DataRow[pCodeFeeders.length][];
+		this.CodeIndexes = new CodeNameIndex[pCodeFeeders.length];
 		
-		// Duplicate the code name
+		this.FeederDatasOwners = new Object[pCodeFeeders.length];
+		
+		// Share the code names and the name index of the feeder (the rows are created when the data are set)
 		for(int i = pCodeFeeders.length; --i >= 0; ) {
 			if(pCodeFeeders[i] == null) continue;
 			this.FeederDatas[i]= new HashMap<String, Object>();
 			this.FeederDatas[i].put(DataName_Feeder, pCodeFeeders[i]);
-			this.CodeNames[i] = new String[pCodeFeeders[i].getCodeCount()];
-			this.CodeDatas[i] = new HashMap[pCodeFeeders[i].getCodeCount()];
-			for(int j = this.CodeNames[i].length; --j >= 0; ) {
-				this.CodeNames[i][j] = pCodeFeeders[i].getCodeName(j);
-				this.CodeDatas[i][j] = new HashMap<String, Object>();
-				this.CodeDatas[i][j].put(DataName_Code,       pCodeFeeders[i].getCode(this.CodeNames[i][j]));
-				this.CodeDatas[i][j].put(DataName_SourceCode, pCodeFeeders[i].getCode(this.CodeNames[i][j]).getSource());
-			}
+			this.FeederDatasOwners[i] = this.OwnerToken;
+			this.CodeIndexes[i] = pCodeFeeders[i].getCodeNameIndex();
+			this.CodeNames[i]   = this.CodeIndexes[i].getSharedNames();
 		}
 	}
 	
@@ -62,6 +66,15 @@ public class CodeFeeders extends CompilationData.Simple {
 	static public final String DataName_Code       = "Code";
 	/** Name of the code data that actual source code */
 	static public final String DataName_SourceCode = "Source";
+	/** Name of the code data that the fingerprint of the source code (set by the compiler when recompiling) */
+	static public final String DataName_Fingerprint = "Fingerprint";
+	
+	/** Slot of the code data that actual code */
+	static public final int DataSlot_Code        = DataSlots.slotOf(DataName_Code);
+	/** Slot of the code data that actual source code */
+	static public final int DataSlot_SourceCode  = DataSlots.slotOf(DataName_SourceCode);
+	/** Slot of the code data that the fingerprint of the source code */
+	static public final int DataSlot_Fingerprint = DataSlots.slotOf(DataName_Fingerprint);
 	
 	/** Returns the number of the feeder */
 	@Override public int getFeederCount() {
@@ -75,20 +88,20 @@ public class CodeFeeders extends CompilationData.Simple {
 	
 	/** Returns the code by the reference */
 	public Code getCode(CodeRef pCodeRef) {
-		return (Code)this.getCodeData(pCodeRef, DataName_Code);
+		return (Code)this.getCodeData(pCodeRef, DataSlot_Code);
 	}
 	/** Get the code data with the name */
 	public Code getCode(int pFeederIndex, String pCodeName) {
-		return (Code)this.getCodeData(pFeederIndex, pCodeName, DataName_Code);
+		return (Code)this.getCodeData(pFeederIndex, pCodeName, DataSlot_Code);
 	}
 
 	/** Returns the code by the reference */
 	public CharSequence getSourceCode(CodeRef pCodeRef) {
-		return (CharSequence)this.getCodeData(pCodeRef, DataName_SourceCode);
+		return (CharSequence)this.getCodeData(pCodeRef, DataSlot_SourceCode);
 	}
 	/** Get the code data with the name */
 	public CharSequence getSourceCode(int pFeederIndex, String pCodeName) {
-		return (CharSequence)this.getCodeData(pFeederIndex, pCodeName, DataName_SourceCode);
+		return (CharSequence)this.getCodeData(pFeederIndex, pCodeName, DataSlot_SourceCode);
 	}
 	
 	/** Returns this code feeder as a string (show list of all code names in the feeder) */
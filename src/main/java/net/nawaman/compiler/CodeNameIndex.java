@@ -0,0 +1,116 @@
+/*----------------------------------------------------------------------------------------------------------------------
+ * Copyright (C) 2008-2021 Nawapunth Manusitthipol. Implements with and for Java 11 JDK.
+ *----------------------------------------------------------------------------------------------------------------------
+ * LICENSE:
+ * 
+ * This file is part of Nawa's SimpleCompiler.
+ * 
+ * The project is a free software; you can redistribute it and/or modify it under the SIMILAR terms of the GNU General
+ * Public License as published by the Free Software Foundation; either version 2 of the License, or any later version.
+ * You are only required to inform me about your modification and redistribution as or as part of commercial software
+ * package. You can inform me via nawa<at>nawaman<dot>net.
+ * 
+ * The project is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the 
+ * implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ * ---------------------------------------------------------------------------------------------------------------------
+ */
+
+package net.nawaman.compiler;
+
+import java.util.Collection;
+
+/**
+ * An immutable index of the code names of a feeder.
+ * 
+ * The index maps a code name to its index in constant time. It is created once per feeder and shared by the feeder,
+ * CodeFeeders and the compilation data derived from them so finding a code by its name does not scan the names. When
+ * a name appears more than once, the first one is indexed.
+ *
+ * @author Nawapunth Manusitthipol (https://github.com/NawaMan)
+ */
+final public class CodeNameIndex {
+	
+	/** The index with no name */
+	static public final CodeNameIndex Empty = new CodeNameIndex(new String[0]);
+	
+	/** Creates an index of the names */
+	static public CodeNameIndex of(String ... pNames) {
+		if((pNames == null) || (pNames.length == 0)) return Empty;
+		return new CodeNameIndex(pNames.clone());
+	}
+	/** Creates an index of the names */
+	static public CodeNameIndex of(Collection<String> pNames) {
+		if((pNames == null) || (pNames.size() == 0)) return Empty;
+		return new CodeNameIndex(pNames.toArray(new String[pNames.size()]));
+	}
+	
+	private CodeNameIndex(String[] pNames) {
+		this.Names = pNames;
+		
+		int Size = 2;
+		while(Size < (pNames.length*2)) Size <<= 1;
+		this.Table = new int[Size];
+		
+		int Mask = Size - 1;
+		for(int i = 0; i < pNames.length; i++) {
+			String Name = pNames[i];
+			if(Name == null) continue;
+			
+			int Slot = Hash(Name) & Mask;
+			while(true) {
+				int Index = this.Table[Slot] - 1;
+				if(Index == -1)                 { this.Table[Slot] = i + 1; break; }
+				if(Name.equals(pNames[Index]))  break;	// Keep the first one
+				Slot = (Slot + 1) & Mask;
+			}
+		}
+	}
+	
+	private final String[] Names;
+	/** Open-addressing table holding the index plus one of the name (zero for an empty slot) */
+	private final int[]    Table;
+	
+	static private int Hash(String pName) {
+		int H = pName.hashCode();
+		return H ^ (H >>> 16);
+	}
+	
+	/** Returns the number of names */
+	public int size() {
+		return this.Names.length;
+	}
+	
+	/** Returns the name at the index */
+	public String getName(int pIndex) {
+		if((pIndex < 0) || (pIndex >= this.Names.length)) return null;
+		return this.Names[pIndex];
+	}
+	
+	/** Returns the index of the name or -1 if there is no such name */
+	public int indexOf(String pName) {
+		if(pName == null) return -1;
+		int Mask = this.Table.length - 1;
+		int Slot = Hash(pName) & Mask;
+		while(true) {
+			int Index = this.Table[Slot] - 1;
+			if(Index == -1)                     return -1;
+			if(pName.equals(this.Names[Index])) return Index;
+			Slot = (Slot + 1) & Mask;
+		}
+	}
+	
+	/** Checks if the index contains the name */
+	public boolean contains(String pName) {
+		return this.indexOf(pName) != -1;
+	}
+	
+	/** Returns a copy of the names */
+	public String[] getNames() {
+		return this.Names.clone();
+	}
+	/** Returns the names without copying (the returned array must not be changed) */
+	String[] getSharedNames() {
+		return this.Names;
+	}
+}
@@ -0,0 +1,119 @@
+/*----------------------------------------------------------------------------------------------------------------------
+ * Copyright (C) 2008-2021 Nawapunth Manusitthipol. Implements with and for Java 11 JDK.
+ *----------------------------------------------------------------------------------------------------------------------
+ * LICENSE:
+ * 
+ * This file is part of Nawa's SimpleCompiler.
+ * 
+ * The project is a free software; you can redistribute it and/or modify it under the SIMILAR terms of the GNU General
+ * Public License as published by the Free Software Foundation; either version 2 of the License, or any later version.
+ * You are only required to inform me about your modification and redistribution as or as part of commercial software
+ * package. You can inform me via nawa<at>nawaman<dot>net.
+ * 
+ * The project is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the 
+ * implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ * ---------------------------------------------------------------------------------------------------------------------
+ */
+
+
+package net.nawaman.compiler;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The result of compiling many code feeders in one batch.
+ * 
+ * The products are kept in the same order as the code feeders given to the batch. The batch also reports the aggregate
+ * throughput of the compilation.
+ *
+ * @author Nawapunth Manusitthipol (https://github.com/NawaMan)
+ */
+public class CompilationBatch {
+	
+	/** Constructs a compilation batch result */
+	CompilationBatch(CompileProduct[] pProducts, long pElapsedNanos) {
+		this(pProducts, new Throwable[pProducts.length], pElapsedNanos);
+	}
+	/** Constructs a compilation batch result with the failures of the units (null for a unit that did not throw) */
+	CompilationBatch(CompileProduct[] pProducts, Throwable[] pFailures, long pElapsedNanos) {
+		this.Products     = pProducts;
+		this.Failures     = pFailures;
+		this.ElapsedNanos = pElapsedNanos;
+		
+		int Count = 0;
+		for(CompileProduct Product : pProducts) {
+			if(Product == null) continue;
+			for(int f = Product.getFeederCount(); --f >= 0; ) Count += Math.max(0, Product.getCodeCount(f));
+		}
+		this.CodeCount = Count;
+	}
+	
+	final CompileProduct[] Products;
+	final Throwable[]      Failures;
+	final long             ElapsedNanos;
+	final int              CodeCount;
+	
+	/** Returns the number of the units (code feeders) in the batch */
+	public int getUnitCount() {
+		return this.Products.length;
+	}
+	/** Returns the compile product of the unit at the index */
+	public CompileProduct getProduct(int pIndex) {
+		if((pIndex < 0) || (pIndex >= this.Products.length)) return null;
+		return this.Products[pIndex];
+	}
+	/** Returns the compile products in the order of their code feeders */
+	public List<CompileProduct> getProducts() {
+		return Collections.unmodifiableList(Arrays.asList(this.Products));
+	}
+	
+	/** Returns the exception thrown while compiling the unit at the index (null if the unit did not throw) */
+	public Throwable getFailure(int pIndex) {
+		if((pIndex < 0) || (pIndex >= this.Failures.length)) return null;
+		return this.Failures[pIndex];
+	}
+	/** Returns the number of units that throw an exception (those units have no product) */
+	public int getThrownUnitCount() {
+		int Count = 0;
+		for(Throwable Failure : this.Failures) {
+			if(Failure != null) Count++;
+		}
+		return Count;
+	}
+	
+	/** Returns the number of units that have error (including the units that throw an exception) */
+	public int getFailedUnitCount() {
+		int Count = 0;
+		for(CompileProduct Product : this.Products) {
+			if((Product == null) || Product.hasErrMessage()) Count++;
+		}
+		return Count;
+	}
+	/** Returns the total number of codes compiled in the batch */
+	public int getCodeCount() {
+		return this.CodeCount;
+	}
+	
+	/** Returns the wall-clock time taken by the batch in nanoseconds */
+	public long getElapsedNanos() {
+		return this.ElapsedNanos;
+	}
+	/** Returns the number of units compiled per second */
+	public double getUnitsPerSecond() {
+		return (this.ElapsedNanos <= 0)?0:(this.Products.length * 1e9 / this.ElapsedNanos);
+	}
+	/** Returns the number of codes compiled per second */
+	public double getCodesPerSecond() {
+		return (this.ElapsedNanos <= 0)?0:(this.CodeCount * 1e9 / this.ElapsedNanos);
+	}
+	
+	/** Returns the summary of this batch as a string */
+	@Override public String toString() {
+		return String.format("CompilationBatch: %d unit(s) (%d failed), %d code(s) in %.3f ms (%.1f units/s, %.1f codes/s)",
+				this.getUnitCount(), this.getFailedUnitCount(), this.CodeCount, this.ElapsedNanos / 1e6,
+				this.getUnitsPerSecond(), this.getCodesPerSecond());
+	}
+}
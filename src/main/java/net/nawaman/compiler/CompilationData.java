@@ -38,22 +38,29 @@ abstract public class CompilationData implements ProcessDatas {
 
 	static final HashMap<String, Object>[]   EmptyFeederDatas = new HashMap[0];
 	static final String[][]                  EmptyCodeNames   = new String[0][];
-	static final HashMap<String, Object>[][] EmptyCodeDatas   = new HashMap[0][];
+	static final DataRow[][]                 EmptyCodeDatas   = new DataRow[0][];
 	
 	/** Local constructors */
 	CompilationData() {}
 	
 	/** Returns the feeder data array */ abstract protected HashMap<String, Object>[]   getFeederDatas();
 	/** Returns the code names array */  abstract protected String[][]                  getCodeNames();
-	/** Returns the code data array */   abstract protected HashMap<String, Object>[][] getCodeDatas();
+	/** Returns the code data array */   abstract protected DataRow[][]                 getCodeDatas();
 	
 	/** Returns if the code data array is created (create it if it does not and returns if that is a success) */
 	abstract protected boolean ensureCodeDatas();
 	
-	/** Returns the arbitrary data name array */ abstract protected Vector<String> getArbitraryDataNames();
-	/** Returns the arbitrary data array */      abstract protected Vector<Object> getArbitraryDatas();
+	/** Returns the name index of the codes in the feeder (see CodeNameIndex) */
+	abstract protected CodeNameIndex getCodeNameIndex(int pFeederIndex);
 	
-	/** Returns if the arbitrary data name array is created (create it if it does not and returns if that is a success) */
+	/** Returns the feeder data map that this compilation data can change (create or copy it if needed) */
+	abstract HashMap<String, Object> ensureFeederData(int pFeederIndex);
+	/** Returns the data row of the code that this compilation data can change (create or copy it if needed) */
+	abstract DataRow ensureCodeDataRow(int pFeederIndex, int pCodeIndex);
+	
+	/** Returns the arbitrary data store */ abstract protected ArbitraryDataStore getArbitraryDatas();
+	
+	/** Returns if the arbitrary data store is created (create it if it does not and returns if that is a success) */
 	abstract protected boolean ensureArbitraryDatas();
 	
 	// Satisfy ProcessDatas ------------------------------------------------------------------------
@@ -66,7 +73,7 @@ abstract public class CompilationData implements ProcessDatas {
 	/** Checks if this process data contains the data referred by the ref  */
 	public boolean contains(CompileDataRef pRef) {
 		if(pRef.isRefToArbitary())
-			return (this.getArbitraryDataNames() == null)?false:(this.getArbitraryDataNames().indexOf(pRef.DataName) != -1);
+			return (this.getArbitraryDatas() == null)?false:this.getArbitraryDatas().contains(pRef.DataName);
 		
 		int FIndex = 
 			(pRef.getFeederRef() != null)
@@ -79,23 +86,14 @@ abstract public class CompilationData implements ProcessDatas {
 			if(FIndex >= FDs.length) return false;
 			HashMap<String, Object> FD = FDs[FIndex];
 			if(FD == null) return false;
-			return FD.containsKey(pRef.getDataName());
+			synchronized(FD) { return FD.containsKey(pRef.getDataName()); }
 			
 		} else if(pRef.isRefToCode()) {
-			String     CN  = pRef.getCodeRef().getCodeName();
-			String[][] CNs = this.getCodeNames();
-			if(CNs == null) return false;
-			String[] Ns = CNs[FIndex];
-			if(Ns == null) return false;
-			for(int i = Ns.length; --i >= 0; ) {
-				String N = Ns[i];
-				if(N == null) continue;
-				if(CN.equals(N)) {
-					HashMap<String, Object> Datas = this.getCodeDatas()[FIndex][i];
-					return (Datas != null) && Datas.containsKey(pRef.getDataName());
-				}
-			}
-			return false;
+			if((FIndex < 0) || (FIndex >= this.getFeederCount())) return false;
+			int     CIndex = this.getCodeIndex(FIndex, pRef.getCodeRef().getCodeName());
+			DataRow Datas  = this.getCodeDataRow(FIndex, CIndex);
+			if((Datas != null) && Datas.contains(pRef.getDataSlot())) return true;
+			return this.getFeederProvidedCodeData(FIndex, CIndex, pRef.getDataSlot()) != null;
 			
 		} else {
 			// Not any of this, so return false;
@@ -111,7 +109,7 @@ abstract public class CompilationData implements ProcessDatas {
 	}
 	/** Returns the data at the reference */
 	public Object getData(CompileDataRef pRef) {
-		if(pRef.isRefToCode())     return this.getCodeData(  pRef.getCodeRef(),   pRef.getDataName());
+		if(pRef.isRefToCode())     return this.getCodeData(  pRef.getCodeRef(),   pRef.getDataSlot());
 		if(pRef.isRefToFeeder())   return this.getFeederData(pRef.getFeederRef(), pRef.getDataName());
 		if(pRef.isRefToArbitary()) return this.getArbitraryData(pRef.getDataName());
 		return null;
@@ -124,35 +122,126 @@ abstract public class CompilationData implements ProcessDatas {
 	}
 	/** Change the data at the reference - Returns if that success */
 	public Object setData(CompileDataRef pRef, Object pValue) {
-		if(pRef.isRefToCode())     return this.setCodeData(  pRef.getCodeRef(),   pRef.getDataName(), pValue);
+		if(pRef.isRefToCode()) {
+			int Slot = pRef.getDataSlot();
+			if(Slot == -1) return this.setCodeData(pRef.getCodeRef(), pRef.getDataName(), pValue);
+			return this.setCodeData(pRef.getCodeRef(), Slot, pValue);
+		}
 		if(pRef.isRefToFeeder())   return this.setFeederData(pRef.getFeederRef(), pRef.getDataName(), pValue);
 		if(pRef.isRefToArbitary()) return this.setArbitraryData(pRef.getDataName(), pValue);
 		return pValue;
 	}
 
-	/** Freeze the whole container  - Returns if success */
+	// Freeze --------------------------------------------------------------------------------------------------------
+	
+	/** The holder of a data that is frozen */
+	static final class FrozenData {
+		FrozenData(Object pValue) { this.Value = pValue; }
+		final Object Value;
+	}
+	
+	private volatile boolean IsFreezing = false;
+	private volatile boolean IsFrozen   = false;
+	
+	/** Checks if this compilation data is frozen (no data can be changed and all data can be read without locking) */
+	public boolean isFrozen() {
+		return this.IsFrozen;
+	}
+	/** Checks if this compilation data is being or has been frozen (no data can be changed from then on) */
+	boolean isFreezing() {
+		return this.IsFreezing;
+	}
+	
+	/** Throws an exception if this compilation data can no longer be changed */
+	final void ensureNotFrozen() {
+		if(this.isFreezing()) throw new CompilationException("The compilation data is frozen.");
+	}
+	
+	/**
+	 * Freeze the whole container  - Returns if success
+	 * 
+	 * The writes in progress are waited for and all the data stores are frozen before the container is published as
+	 * frozen so a reader seeing <code>isFrozen()</code> sees every data that will ever be in it. Any later attempt to
+	 * change a data fails with CompilationException.
+	 **/
 	public boolean freeze() {
-		// TODOLATER - This is not support at the moment.
+		synchronized(this) {
+			if(this.IsFrozen) return true;
+			this.IsFreezing = true;
+			
+			HashMap<String, Object>[] FDs = this.getFeederDatas();
+			if(FDs != null) {
+				for(HashMap<String, Object> FD : FDs) {
+					if(FD == null) continue;
+					synchronized(FD) { /* Wait for the write in progress */ }
+				}
+			}
+			
+			DataRow[][] CDs_ss = this.getCodeDatas();
+			if(CDs_ss != null) {
+				for(DataRow[] CDs_s : CDs_ss) {
+					if(CDs_s == null) continue;
+					for(DataRow CDs : CDs_s) {
+						// Shared rows are left alone as they are never changed anyway
+						if((CDs != null) && this.isOwned(CDs)) CDs.freeze();
+					}
+				}
+			}
+			
+			this.ensureArbitraryDatas();
+			this.getArbitraryDatas().freeze();
+			
+			this.IsFrozen = true;	// Publish
+		}
+		return true;
+	}
+	
+	/** Checks if the data row can be changed in place by this compilation data (it is not shared) */
+	boolean isOwned(DataRow pRow) {
 		return true;
 	}
 	
 	/** Freeze that data - Returns if success */
 	public boolean freezeData(CompileDataRef pRef) {
-		// TODOLATER - This is not support at the moment.
-		return true;
+		if(pRef == null) return false;
+		if(!this.contains(pRef)) return false;
+		if(this.isFreezing())    return true;	// All data are or will soon be frozen
+		
+		// The structure holding the data is made owned before the data is frozen so a shared one is not changed
+		if(pRef.isRefToArbitary()) {
+			this.ensureArbitraryDatas();
+			return this.getArbitraryDatas().freeze(pRef.getDataName());
+		}
+		
+		if(pRef.isRefToFeeder()) {
+			HashMap<String, Object> FD = this.ensureFeederData(pRef.getFeederRef().getFeederIndex());
+			synchronized(FD) {
+				Object Value = FD.get(pRef.getDataName());
+				if(!(Value instanceof FrozenData)) FD.put(pRef.getDataName(), new FrozenData(Value));
+			}
+			return true;
+		}
+		
+		if(pRef.isRefToCode()) {
+			int FIndex = pRef.getCodeRef().getFeederIndex();
+			int CIndex = this.getCodeIndex(FIndex, pRef.getCodeRef().getCodeName());
+			return this.ensureCodeDataRow(FIndex, CIndex).freeze(pRef.getDataSlot());
+		}
+		return false;
 	}
 	/** Freeze that data - Returns if success */
 	public boolean freezeData(net.nawaman.task.DataRef pRef) {
-		// TODOLATER - This is not support at the moment.
-		return true;
+		if(!(pRef instanceof CompileDataRef))
+			throw new ClassCastException("The reference must be CompileDataRef.");
+		return this.freezeData((CompileDataRef)pRef);
 	}
 
 	// Message -----------------------------------------------------------------------
 	
 	Vector<CompilerMessage> Messages = null;
 	
-	int ErrMessageCount  = 0;
-	int FErrMessageCount = 0;
+	volatile int ErrMessageCount  = 0;
+	volatile int FErrMessageCount = 0;
 	
 	public boolean hasErrMessage()      { return this.ErrMessageCount  != 0; }
 	public boolean hasFatalErrMessage() { return this.FErrMessageCount != 0; }
@@ -171,6 +260,44 @@ abstract public class CompilationData implements ProcessDatas {
 		return this.FErrMessageCount;
 	}
 	
+	/**
+	 * Finds the column and the line number of all the messages at once - the positions of the messages of each code
+	 *    are resolved in one sweep (see Code.resolvePositions(...)) instead of one search per message.
+	 **/
+	public void resolveMessagePositions() {
+		int Count = this.getMessageCount();
+		if(Count != 0) this.resolveMessagePositions(new int[Count], new int[Count]);
+	}
+	/**
+	 * Finds the column and the line number of all the messages at once using the given buffers (so the buffers can be
+	 *    reused across calls). Each buffer must be at least as long as the message count.
+	 **/
+	public synchronized void resolveMessagePositions(int[] pColBuffer, int[] pRowBuffer) {
+		int Count = this.getMessageCount();
+		if((pColBuffer.length < Count) || (pRowBuffer.length < Count))
+			throw new IllegalArgumentException("The buffers must be at least as long as the message count.");
+		
+		for(int i = 0; i < Count; i++) {
+			CompilerMessage M = this.Messages.get(i);
+			if(!M.needColRow()) continue;
+			
+			// Collect the offsets of the messages of the same code (the resolved ones no longer need it)
+			Code TheCode = M.Code;
+			int  PCount  = 0;
+			for(int j = i; j < Count; j++) {
+				CompilerMessage MJ = this.Messages.get(j);
+				if((MJ.Code == TheCode) && MJ.needColRow()) pColBuffer[PCount++] = MJ.Position;
+			}
+			
+			// The offsets are replaced by the columns
+			TheCode.resolvePositions(pColBuffer, PCount, pColBuffer, pRowBuffer);
+			for(int j = i, p = 0; p < PCount; j++) {
+				CompilerMessage MJ = this.Messages.get(j);
+				if((MJ.Code == TheCode) && MJ.needColRow()) MJ.setColRow(pColBuffer[p], pRowBuffer[p++]);
+			}
+		}
+	}
+	
 	/** Convert messages to string */
 	public String getMessagesToString() {
 		// Display Error -------------------------------------------------------------------------------------------
@@ -191,37 +318,42 @@ abstract public class CompilationData implements ProcessDatas {
 	
 	// Error Report ----------------------------------------------------------------------------------------------------
 
-	public void reportMessage(CompilerMessage pCMessage) {
+	public synchronized void reportMessage(CompilerMessage pCMessage) {
 		if(pCMessage     == null) return;
 		if(this.Messages == null) this.Messages = new Vector<CompilerMessage>();
 		if(pCMessage.isError())        this.ErrMessageCount++;
 		if(pCMessage.isFatalError()) { this.FErrMessageCount++; this.ErrMessageCount++; }
 		this.Messages.add(pCMessage);
+		if(pCMessage.isFatalError()) this.onFatalErrorReported();
 	}
 
-	public void reportMessage(String pMessage, Throwable pCause) {
+	public synchronized void reportMessage(String pMessage, Throwable pCause) {
 		if(this.Messages == null) this.Messages = new Vector<CompilerMessage>();
 		this.Messages.add(new CompilerMessage(MessageKind.MESSAGE, pMessage, pCause));
 	}
 
-	public void reportWarning(String pMessage, Throwable pCause) {
+	public synchronized void reportWarning(String pMessage, Throwable pCause) {
 		if(this.Messages == null) this.Messages = new Vector<CompilerMessage>();
 		this.Messages.add(new CompilerMessage(MessageKind.WARNING, pMessage, pCause));
 	}
 
-	public void reportError(String pMessage, Throwable pCause) {
+	public synchronized void reportError(String pMessage, Throwable pCause) {
 		if(this.Messages == null) this.Messages = new Vector<CompilerMessage>();
 		this.ErrMessageCount++;
 		this.Messages.add(new CompilerMessage(MessageKind.ERROR, pMessage, pCause));
 	}
 
-	public void reportFatalError(String pMessage, Throwable pCause) {
+	public synchronized void reportFatalError(String pMessage, Throwable pCause) {
 		if(this.Messages == null) this.Messages = new Vector<CompilerMessage>();
 		this.ErrMessageCount++;
 		this.FErrMessageCount++;
 		this.Messages.add(new CompilerMessage(MessageKind.FATALERROR, pMessage, pCause));
+		this.onFatalErrorReported();
 	}
 	
+	/** This method is called after a fatal error is reported */
+	protected void onFatalErrorReported() {}
+	
 	// Local lock ------------------------------------------------------------------------------------------------------
 	
 	/** A lock to limit the interface to be used only internally */
@@ -231,15 +363,44 @@ abstract public class CompilationData implements ProcessDatas {
 	
 	// SubClass --------------------------------------------------------------------------------------------------------
 	
-	/** A single self contain compilation data */
+	/**
+	 * A single self contain compilation data.
+	 * 
+	 * The data structures (code data rows, the row arrays of feeders, feeder data maps and the arbitrary data store)
+	 * can be shared with other compilation data (see <code>shareDataOf(...)</code>) so deriving or forking costs
+	 * nothing. Each structure records the owner token of the compilation data that may change it in place. Sharing
+	 * renews the token of the source so from then on neither side owns the shared structures and a structure is
+	 * copied by the side that changes it first (copy-on-write). A shared structure is, therefore, never changed.
+	 * 
+	 * Sharing data that is being changed by another thread is not supported.
+	 **/
 	static public class Simple extends CompilationData {
 		
 		HashMap<String, Object>[]   FeederDatas = EmptyFeederDatas;
 		String[][]                  CodeNames   = EmptyCodeNames;
-		HashMap<String, Object>[][] CodeDatas   = EmptyCodeDatas;
+		DataRow[][]                 CodeDatas   = EmptyCodeDatas;
+		CodeNameIndex[]             CodeIndexes = null;
 
-		Vector<String> AbitaryDataNames = null;
-		Vector<Object> AbitaryDatas     = null;
+		volatile ArbitraryDataStore AbitaryDatas = null;
+		
+		/** The spill tier of the code data (null if the code data always stay on the heap) */
+		volatile DataSpill Spill = null;
+		
+		/** Returns the spill tier of the code data */
+		@Override public DataSpill getDataSpill() {
+			return this.Spill;
+		}
+		/** Sets the spill tier of the code data (only the code data set after this are spillable) */
+		public void setDataSpill(DataSpill pSpill) {
+			this.Spill = pSpill;
+		}
+		
+		/** The token of this compilation data as the owner of the data structures it may change in place */
+		volatile Object OwnerToken = new Object();
+		
+		/** The owner token of each feeder data map */        Object[] FeederDatasOwners  = null;
+		/** The owner token of each feeder row array */       Object[] CodeDatasOwners    = null;
+		/** The owner token of the arbitrary data store */    Object   AbitaryDatasOwner  = null;
 	
 		/**{@inheritDoc}*/ @Override
 		protected HashMap<String, Object>[] getFeederDatas() {
@@ -250,33 +411,147 @@ abstract public class CompilationData implements ProcessDatas {
 			return this.CodeNames;
 		}
 		/**{@inheritDoc}*/ @Override
-		protected HashMap<String, Object>[][] getCodeDatas() {
+		protected DataRow[][] getCodeDatas() {
 			return this.CodeDatas;
 		}
 	
 		/**{@inheritDoc}*/ 
 		@Override protected boolean ensureCodeDatas() {
-			if(this.CodeDatas == null) this.CodeDatas = new HashMap[this.getFeederCount()][];
+			if(this.CodeDatas == null) this.CodeDatas = new DataRow[this.getFeederCount()][];
 			return true;
 		}
-
+		
 		/**{@inheritDoc}*/ @Override
-		protected Vector<String> getArbitraryDataNames() {
-			return this.AbitaryDataNames;
+		protected CodeNameIndex getCodeNameIndex(int pFeederIndex) {
+			CodeNameIndex[] CNIs = this.CodeIndexes;
+			if(CNIs == null) {
+				synchronized(this) {
+					if(this.CodeIndexes == null) this.CodeIndexes = new CodeNameIndex[this.getFeederCount()];
+					CNIs = this.CodeIndexes;
+				}
+			}
+			CodeNameIndex CNI = CNIs[pFeederIndex];
+			if(CNI == null) {
+				// The index is immutable so creating it twice by racing threads does no harm
+				CNI = CodeNameIndex.of(this.getCodeNames()[pFeederIndex]);
+				CNIs[pFeederIndex] = CNI;
+			}
+			return CNI;
 		}
+
 		/**{@inheritDoc}*/ @Override
-		protected Vector<Object> getArbitraryDatas() {
+		protected ArbitraryDataStore getArbitraryDatas() {
 			return this.AbitaryDatas;
 		}
 	
 		/**{@inheritDoc}*/ 
 		@Override protected boolean ensureArbitraryDatas() {
-			if(this.AbitaryDataNames == null) {
-				this.AbitaryDataNames = new Vector<String>();
-				this.AbitaryDatas     = new Vector<Object>();
+			if((this.AbitaryDatas == null) || (this.AbitaryDatasOwner != this.OwnerToken)) {
+				synchronized(this) {
+					if(this.AbitaryDatas == null)
+						 this.AbitaryDatas = new ArbitraryDataStore();
+					else if(this.AbitaryDatasOwner != this.OwnerToken)
+						 this.AbitaryDatas = this.AbitaryDatas.duplicate();
+					this.AbitaryDatasOwner = this.OwnerToken;
+				}
 			}
 			return true;
 		}
+		
+		/**{@inheritDoc}*/ @Override
+		boolean isOwned(DataRow pRow) {
+			return pRow.Owner == this.OwnerToken;
+		}
+		
+		/** Checks if the structure with the owner token can be changed in place by this compilation data */
+		final boolean isOwned(Object[] pOwners, int pIndex) {
+			return (pOwners != null) && (pOwners[pIndex] == this.OwnerToken);
+		}
+		/** Marks the structure at the index as owned by this compilation data */
+		final Object[] setOwned(Object[] pOwners, int pIndex) {
+			if(pOwners == null) pOwners = new Object[this.getFeederCount()];
+			pOwners[pIndex] = this.OwnerToken;
+			return pOwners;
+		}
+		
+		/**{@inheritDoc}*/ @Override
+		HashMap<String, Object> ensureFeederData(int pFeederIndex) {
+			HashMap<String, Object> FDs = this.FeederDatas[pFeederIndex];
+			if((FDs != null) && this.isOwned(this.FeederDatasOwners, pFeederIndex)) return FDs;
+			
+			synchronized(this) {
+				this.ensureNotFrozen();
+				FDs = this.FeederDatas[pFeederIndex];
+				if(FDs == null) FDs = new HashMap<String, Object>();
+				else if(!this.isOwned(this.FeederDatasOwners, pFeederIndex)) {
+					synchronized(FDs) { FDs = new HashMap<String, Object>(FDs); }
+				}
+				this.FeederDatas[pFeederIndex] = FDs;
+				this.FeederDatasOwners         = this.setOwned(this.FeederDatasOwners, pFeederIndex);
+				return FDs;
+			}
+		}
+		
+		/**{@inheritDoc}*/ @Override
+		DataRow ensureCodeDataRow(int pFeederIndex, int pCodeIndex) {
+			DataRow CDs = this.getCodeDataRow(pFeederIndex, pCodeIndex);
+			// A row owned by the current token is always in a row array owned by this compilation data
+			if((CDs != null) && (CDs.Owner == this.OwnerToken)) return CDs;
+			
+			synchronized(this) {
+				this.ensureNotFrozen();
+				this.ensureCodeDatas();
+				
+				DataRow[] CDs_s = this.CodeDatas[pFeederIndex];
+				if(CDs_s == null) CDs_s = new DataRow[this.getCodeCount(pFeederIndex)];
+				else if(!this.isOwned(this.CodeDatasOwners, pFeederIndex)) CDs_s = CDs_s.clone();
+				this.CodeDatas[pFeederIndex] = CDs_s;
+				this.CodeDatasOwners         = this.setOwned(this.CodeDatasOwners, pFeederIndex);
+				
+				CDs = CDs_s[pCodeIndex];
+				if(CDs == null)                         CDs = new DataRow(this.OwnerToken);
+				else if(CDs.Owner != this.OwnerToken)   CDs = CDs.duplicate(this.OwnerToken);
+				CDs_s[pCodeIndex] = CDs;
+				return CDs;
+			}
+		}
+		
+		/**
+		 * Shares all the data of the given compilation data (O(1) in the number of codes and data).
+		 * 
+		 * This is used by the constructors of subclasses. Neither this nor the source owns the shared structures after
+		 * the call so the changes made by one will not be seen by the other.
+		 **/
+		@SuppressWarnings("unchecked")
+		protected void shareDataOf(Simple pSource) {
+			if(pSource == null) throw new NullPointerException();
+			synchronized(pSource) {
+				pSource.OwnerToken = new Object();	// The source must now copy what it changes
+				
+				this.FeederDatas  = (pSource.FeederDatas == null)?null:pSource.FeederDatas.clone();
+				this.CodeNames    = pSource.CodeNames;	// Code names are never changed
+				this.CodeDatas    = (pSource.CodeDatas   == null)?null:pSource.CodeDatas.clone();
+				this.CodeIndexes  = (pSource.CodeIndexes == null)?null:pSource.CodeIndexes.clone();
+				this.AbitaryDatas = pSource.AbitaryDatas;
+				this.Spill        = pSource.Spill;
+				
+				this.OwnerToken        = new Object();
+				this.FeederDatasOwners = null;
+				this.CodeDatasOwners   = null;
+				this.AbitaryDatasOwner = null;
+			}
+		}
+		/** Shares only the arbitrary data of the source (copy-on-write, see <code>shareDataOf(...)</code>) */
+		protected void shareArbitraryDataOf(Simple pSource) {
+			if(pSource == null) throw new NullPointerException();
+			synchronized(pSource) {
+				pSource.OwnerToken = new Object();	// The source must now copy what it changes
+				synchronized(this) {
+					this.AbitaryDatas      = pSource.AbitaryDatas;
+					this.AbitaryDatasOwner = null;
+				}
+			}
+		}
 	}
 	
 	/** Sharable is a mark interface to mark a Compilation that it can be shared. */
@@ -303,7 +578,7 @@ abstract public class CompilationData implements ProcessDatas {
 			return this.Linked.getCodeNames();
 		}
 		/**{@inheritDoc}*/ @Override
-		protected HashMap<String, Object>[][] getCodeDatas() {
+		protected DataRow[][] getCodeDatas() {
 			return this.Linked.getCodeDatas();
 		}
 		/**{@inheritDoc}*/ @Override
@@ -311,11 +586,40 @@ abstract public class CompilationData implements ProcessDatas {
 			return this.Linked.ensureCodeDatas();
 		}
 		/**{@inheritDoc}*/ @Override
-		protected Vector<String> getArbitraryDataNames() {
-			return this.Linked.getArbitraryDataNames();
+		protected CodeNameIndex getCodeNameIndex(int pFeederIndex) {
+			return this.Linked.getCodeNameIndex(pFeederIndex);
+		}
+		/**{@inheritDoc}*/ @Override
+		HashMap<String, Object> ensureFeederData(int pFeederIndex) {
+			return this.Linked.ensureFeederData(pFeederIndex);
+		}
+		/**{@inheritDoc}*/ @Override
+		public DataSpill getDataSpill() {
+			return this.Linked.getDataSpill();
 		}
 		/**{@inheritDoc}*/ @Override
-		protected Vector<Object> getArbitraryDatas() {
+		DataRow ensureCodeDataRow(int pFeederIndex, int pCodeIndex) {
+			return this.Linked.ensureCodeDataRow(pFeederIndex, pCodeIndex);
+		}
+		
+		/**{@inheritDoc}*/ @Override
+		public boolean isFrozen() {
+			return this.Linked.isFrozen();
+		}
+		/**{@inheritDoc}*/ @Override
+		boolean isFreezing() {
+			return this.Linked.isFreezing();
+		}
+		/** A link does not own the linked data so it cannot freeze them - Returns if the linked data is frozen */
+		@Override public boolean freeze() {
+			return this.isFrozen();
+		}
+		/** A link does not own the linked data so it cannot freeze them - Returns false */
+		@Override public boolean freezeData(CompileDataRef pRef) {
+			return false;
+		}
+		/**{@inheritDoc}*/ @Override
+		protected ArbitraryDataStore getArbitraryDatas() {
 			return this.Linked.getArbitraryDatas();
 		}
 		
@@ -332,21 +636,24 @@ abstract public class CompilationData implements ProcessDatas {
 		public Derive(CompilationData pDerived) {
 			if(pDerived == null) throw new NullPointerException();
 			this.FeederDatas = new HashMap[pDerived.getFeederCount()];
-			this.CodeNames   = new String[ pDerived.getFeederCount()][];
-			this.CodeDatas   = new HashMap[pDerived.getFeederCount()][];
-
-			// Duplicate the code name
+			this.CodeNames   = pDerived.getCodeNames();	// Code names are never changed so they are shared
+			this.CodeDatas   = new DataRow[pDerived.getFeederCount()][];
+			this.CodeIndexes = new CodeNameIndex[pDerived.getFeederCount()];
+			
+			// Share the name index
 			for(int i = pDerived.getFeederCount(); --i >= 0; ) {
-				this.CodeNames[i] = new String[   pDerived.getCodeCount(i)];
-				for(int j = this.CodeNames[i].length; --j >= 0; ) {
-					this.CodeNames[i][j] = pDerived.getCodeName(i, j);
-				}
+				this.CodeIndexes[i] = pDerived.getCodeNameIndex(i);
 			}
 		}
 	}
 	
 	// Services --------------------------------------------------------------------------------------------------------
 	
+	/** Returns the spill tier of the code data (null if the code data always stay on the heap) */
+	public DataSpill getDataSpill() {
+		return null;
+	}
+	
 	/** Returns the number of the feeder */
 	public int getFeederCount() {
 		return (this.getFeederDatas() == null)?0:this.getFeederDatas().length;
@@ -362,14 +669,31 @@ abstract public class CompilationData implements ProcessDatas {
 		if((pFeederIndex < 0) || (pFeederIndex >= this.getFeederCount()))
 			throw new IllegalArgumentException("Feeder index is out of length.");
 		
-		HashMap<String, Object> FDs = this.getFeederDatas()[pFeederIndex];
-		if(FDs == null) {
-			FDs = new HashMap<String, Object>();
-			this.getFeederDatas()[pFeederIndex] = FDs;
+		HashMap<String, Object> FDs = this.ensureFeederData(pFeederIndex);
+		// Tasks may be performed at the same time (see TaskGraph) so the data map is guarded
+		synchronized(FDs) {
+			this.ensureNotFrozen();
+			if(FDs.get(pDataName) instanceof FrozenData)
+				throw new CompilationException("The data `" + pDataName + "` is frozen.");
+			FDs.put(pDataName, pValue);
 		}
-		FDs.put(pDataName, pValue);
 		return pValue;
 	}
+	/** Removes the feeder data with the name (see DataLiveness) - Returns false if the feeder does not have it */
+	boolean removeFeederData(int pFeederIndex, String pDataName) {
+		if((pFeederIndex < 0) || (pFeederIndex >= this.getFeederCount())) return false;
+		HashMap<String, Object> FDs = this.getFeederDatas()[pFeederIndex];
+		if(FDs == null) return false;
+		synchronized(FDs) { if(!FDs.containsKey(pDataName)) return false; }
+		
+		FDs = this.ensureFeederData(pFeederIndex);
+		synchronized(FDs) {
+			this.ensureNotFrozen();
+			if(FDs.get(pDataName) instanceof FrozenData)
+				throw new CompilationException("The data `" + pDataName + "` is frozen.");
+			return FDs.remove(pDataName) != null;
+		}
+	}
 	/** Get the feeder data with the name */
 	public Object getFeederData(FeederRef pFeederRef, String pDataName) {
 		if(pFeederRef == null) return null;
@@ -379,7 +703,12 @@ abstract public class CompilationData implements ProcessDatas {
 	public Object getFeederData(int pFeederIndex, String pDataName) {
 		if((pFeederIndex < 0) || (pFeederIndex >= this.getFeederCount())) return null;
 		HashMap<String, Object> FDs = this.getFeederDatas()[pFeederIndex];
-		return (FDs == null)?null:FDs.get(pDataName);
+		if(FDs == null) return null;
+		
+		Object Value;
+		if(this.isFrozen()) Value = FDs.get(pDataName);	// No more change so no lock is needed
+		else synchronized(FDs) { Value = FDs.get(pDataName); }
+		return (Value instanceof FrozenData)?((FrozenData)Value).Value:Value;
 	}
 	
 	/** Returns the number of code in the feeder */
@@ -398,6 +727,21 @@ abstract public class CompilationData implements ProcessDatas {
 		return Names[pCodeIndex];
 	}
 	
+	/** Returns the index of the code in the feeder or -1 if there is no such code */
+	int getCodeIndex(int pFeederIndex, String pCodeName) {
+		if(pCodeName == null) return -1;
+		if((pFeederIndex < 0) || (pFeederIndex >= this.getFeederCount())) return -1;
+		return this.getCodeNameIndex(pFeederIndex).indexOf(pCodeName);
+	}
+	
+	/** Returns the data row of the code at the index or null if the code has no data */
+	DataRow getCodeDataRow(int pFeederIndex, int pCodeIndex) {
+		if(pCodeIndex < 0) return null;
+		DataRow[][] CDs_ss = this.getCodeDatas();
+		DataRow[]   CDs_s  = (CDs_ss == null)?null:CDs_ss[pFeederIndex];
+		return ((CDs_s == null) || (pCodeIndex >= CDs_s.length))?null:CDs_s[pCodeIndex];
+	}
+	
 	/** Add or change the value of the code data associated with pDataName */
 	public Object setCodeData(CodeRef pCodeRef, String pDataName, Object pValue) {
 		return this.setCodeData(pCodeRef.getFeederIndex(), pCodeRef.getCodeName(), pDataName, pValue);
@@ -405,30 +749,24 @@ abstract public class CompilationData implements ProcessDatas {
 	/** Add or change the value of the code data associated with pDataName */
 	public Object setCodeData(int pFeederIndex, String pCodeName, String pDataName, Object pValue) {
 		if((pCodeName == null) || (pDataName == null)) throw new NullPointerException();
+		return this.setCodeData(pFeederIndex, pCodeName, DataSlots.slotOf(pDataName), pValue);
+	}
+	/** Add or change the value of the code data at the data slot (see DataSlots) */
+	public Object setCodeData(CodeRef pCodeRef, int pDataSlot, Object pValue) {
+		return this.setCodeData(pCodeRef.getFeederIndex(), pCodeRef.getCodeName(), pDataSlot, pValue);
+	}
+	/** Add or change the value of the code data at the data slot (see DataSlots) */
+	public Object setCodeData(int pFeederIndex, String pCodeName, int pDataSlot, Object pValue) {
+		if(pCodeName == null) throw new NullPointerException();
 		if((pFeederIndex < 0) || (pFeederIndex >= this.getFeederCount()))
 			throw new IllegalArgumentException("Feeder index is out of length.");
 		
-		String[] Names = this.getCodeNames()[pFeederIndex];
-		for(int i = Names.length; --i >= 0; ) {
-			if(!pCodeName.equals(Names[i])) continue;
-			
-			this.ensureCodeDatas();
-			
-			HashMap<String, Object>[] CDs_s = this.getCodeDatas()[pFeederIndex];
-			if(CDs_s == null) {
-				CDs_s = new HashMap[Names.length];
-				this.getCodeDatas()[pFeederIndex] = CDs_s;
-			}
-			
-			HashMap<String, Object> CDs = CDs_s[i];
-			if(CDs == null) {
-				CDs = new HashMap<String, Object>();
-				CDs_s[i] = CDs;
-			}
-			CDs.put(pDataName, pValue);
-			return true;
-		}
-		return pValue;
+		int CIndex = this.getCodeIndex(pFeederIndex, pCodeName);
+		if(CIndex == -1) return pValue;
+		
+		DataSpill Spill = this.getDataSpill();
+		this.ensureCodeDataRow(pFeederIndex, CIndex).set(pDataSlot, (Spill == null)?pValue:Spill.hold(pDataSlot, pValue));
+		return true;
 	}
 	/** Get the code data with the name */
 	public Object getCodeData(CodeRef pCodeRef, String pDataName) {
@@ -436,58 +774,79 @@ abstract public class CompilationData implements ProcessDatas {
 	}
 	/** Get the code data with the name */
 	public Object getCodeData(int pFeederIndex, String pCodeName, String pDataName) {
-		if(pCodeName == null) return null;
 		if(pDataName == null) return null;
+		return this.getCodeData(pFeederIndex, pCodeName, DataSlots.findSlot(pDataName));
+	}
+	/** Get the code data at the data slot (see DataSlots) */
+	public Object getCodeData(CodeRef pCodeRef, int pDataSlot) {
+		return this.getCodeData(pCodeRef.getFeederIndex(), pCodeRef.getCodeName(), pDataSlot);
+	}
+	/** Get the code data at the data slot (see DataSlots) */
+	public Object getCodeData(int pFeederIndex, String pCodeName, int pDataSlot) {
+		if(pDataSlot < 0) return null;
 		if((pFeederIndex < 0) || (pFeederIndex >= this.getFeederCount())) return null;
-		String[] Names = this.getCodeNames()[pFeederIndex];
-		for(int i = Names.length; --i >= 0; ) {
-			if(!pCodeName.equals(Names[i])) continue;
-			
-			if(this.getCodeDatas() == null) return null;
-			HashMap<String, Object>[] CDs_s = this.getCodeDatas()[pFeederIndex];
-			if(CDs_s == null) return null;
-			
-			HashMap<String, Object> CDs = CDs_s[i];
-			return (CDs == null)?null:CDs.get(pDataName);
-		}
-		return null;
+		int     CIndex = this.getCodeIndex(pFeederIndex, pCodeName);
+		DataRow CDs    = this.getCodeDataRow(pFeederIndex, CIndex);
+		if((CDs == null) || !CDs.contains(pDataSlot))
+			return this.getFeederProvidedCodeData(pFeederIndex, CIndex, pDataSlot);
+		
+		Object Value = CDs.get(pDataSlot);
+		if(Value instanceof RecomputableData) Value = ((RecomputableData)Value).get(this, pFeederIndex, CIndex);
+		return Value;
+	}
+	/**
+	 * Returns the code data the code feeder provides (the code and its source code) or null for other data.
+	 * 
+	 * The code data rows do not hold these data unless they are set (see CodeFeeders) so they are read from the feeder
+	 * when they are used. The feeder caches the codes it loads.
+	 **/
+	final Object getFeederProvidedCodeData(int pFeederIndex, int pCodeIndex, int pDataSlot) {
+		if((pDataSlot != CodeFeeders.DataSlot_Code) && (pDataSlot != CodeFeeders.DataSlot_SourceCode)) return null;
+		if(pCodeIndex < 0) return null;
+		
+		Object Feeder = this.getFeederData(pFeederIndex, CodeFeeders.DataName_Feeder);
+		if(!(Feeder instanceof CodeFeeder)) return null;
+		
+		Code TheCode = ((CodeFeeder)Feeder).getCode(pCodeIndex);
+		if(TheCode == null) return null;
+		return (pDataSlot == CodeFeeders.DataSlot_Code)?TheCode:TheCode.getSource();
+	}
+	
+	/** Removes the code data at the data slot (see DataLiveness) - Returns false if the code does not have it */
+	boolean removeCodeData(int pFeederIndex, int pCodeIndex, int pDataSlot) {
+		if((pFeederIndex < 0) || (pFeederIndex >= this.getFeederCount())) return false;
+		DataRow CDs = this.getCodeDataRow(pFeederIndex, pCodeIndex);
+		if((CDs == null) || !CDs.contains(pDataSlot)) return false;
+		this.ensureNotFrozen();
+		return this.ensureCodeDataRow(pFeederIndex, pCodeIndex).remove(pDataSlot);
 	}
 	
 	/** Returns the number of the arbitrary data */
 	public int getArbitraryDataCount() {
-		Vector<String> ANames = this.getArbitraryDataNames();
-		return (ANames == null)?0:ANames.size();
+		ArbitraryDataStore ADatas = this.getArbitraryDatas();
+		return (ADatas == null)?0:ADatas.size();
 	}
 	
 	public String getArbitraryDataName(int pIndex) {
-		if((pIndex < 0) || (pIndex >= this.getArbitraryDataCount())) return null;
-		return this.getArbitraryDataNames().get(pIndex);
+		ArbitraryDataStore ADatas = this.getArbitraryDatas();
+		return (ADatas == null)?null:ADatas.getName(pIndex);
 	}
 	
 	/** Adds or changes the value of a arbitrary data */
 	public Object setArbitraryData(String pName, Object pValue) {
+		this.ensureNotFrozen();
 		this.ensureArbitraryDatas();
-		Vector<String> ANames = this.getArbitraryDataNames();
-		int Index = ANames.indexOf(pName);
-		if(Index != -1) {
-			this.getArbitraryDatas().set(Index, pValue);
-		} else {
-			this.getArbitraryDataNames().add(pName);
-			this.getArbitraryDatas()    .add(pValue);
-		}
-		return pValue;
+		return this.getArbitraryDatas().set(pName, pValue);
 	}
 	
 	/** Returns the arbitrary data */
 	public Object getArbitraryData(int pIndex) {
-		if((pIndex < 0) || (pIndex >= this.getArbitraryDataCount())) return null;
-		return this.getArbitraryDatas().get(pIndex);
+		ArbitraryDataStore ADatas = this.getArbitraryDatas();
+		return (ADatas == null)?null:ADatas.get(pIndex);
 	}
 	/** Returns the arbitrary data */
 	public Object getArbitraryData(String pName) {
-		if(pName                        == null) return null;
-		if(this.getArbitraryDataNames() == null) return null;
-		int Index = this.getArbitraryDataNames().indexOf(pName);
-		return this.getArbitraryData(Index);
+		ArbitraryDataStore ADatas = this.getArbitraryDatas();
+		return (ADatas == null)?null:ADatas.get(pName);
 	}
 }
@@ -0,0 +1,148 @@
+/*----------------------------------------------------------------------------------------------------------------------
+ * Copyright (C) 2008-2021 Nawapunth Manusitthipol. Implements with and for Java 11 JDK.
+ *----------------------------------------------------------------------------------------------------------------------
+ * LICENSE:
+ * 
+ * This file is part of Nawa's SimpleCompiler.
+ * 
+ * The project is a free software; you can redistribute it and/or modify it under the SIMILAR terms of the GNU General
+ * Public License as published by the Free Software Foundation; either version 2 of the License, or any later version.
+ * You are only required to inform me about your modification and redistribution as or as part of commercial software
+ * package. You can inform me via nawa<at>nawaman<dot>net.
+ * 
+ * The project is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the 
+ * implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ * ---------------------------------------------------------------------------------------------------------------------
+ */
+
+
+package net.nawaman.compiler;
+
+/**
+ * The state of a single compilation.
+ * 
+ * A session holds everything that changes while a compiler runs (the compile product, the options and the task being
+ * run) so that the compiler itself is never modified by a compilation. This allows one compiler to perform many
+ * compilations at the same time.
+ *
+ * @author Nawapunth Manusitthipol (https://github.com/NawaMan)
+ */
+public class CompilationSession {
+	
+	/** Constructs a compilation session */
+	protected CompilationSession(Compiler pCompiler, CompileProduct pCProduct, CompilationOptions pOptions) {
+		if(pCompiler == null) throw new NullPointerException();
+		if(pCProduct == null) throw new NullPointerException();
+		this.Compiler = pCompiler;
+		this.CProduct = pCProduct;
+		this.Options  = pOptions;
+		
+		pCProduct.Session = this;
+	}
+	
+	final Compiler           Compiler;
+	final CompileProduct     CProduct;
+	final CompilationOptions Options;
+	
+	/** Returns the compiler that performs this session */
+	public Compiler getCompiler() {
+		return this.Compiler;
+	}
+	/** Returns the compile product of this session */
+	public CompileProduct getCompileProduct() {
+		return this.CProduct;
+	}
+	/** Returns the options of this session */
+	public CompilationOptions getOptions() {
+		return this.Options;
+	}
+	
+	/**
+	 * Returns the index of task being run by the current thread (-1 if no task is being run).
+	 * 
+	 * When task entries or codes are worked on at the same time, each worker thread sees the entry it performs. Any
+	 * other thread sees the entry performed in the declaration order (-1 while the entries follow their graph).
+	 **/
+	public int getTaskNumberInProgress() {
+		return this.CProduct.getTaskIndexInProgress();
+	}
+	/** Returns the TaskEntry of task being run by the current thread (null if no task is being run) */
+	public net.nawaman.task.TaskEntry getTaskEntryInProgress() {
+		return this.Compiler.getTaskEntry(this.getTaskNumberInProgress());
+	}
+	
+	volatile Long OptionsFingerprint = null;
+	
+	/** Returns the fingerprint of the options of this session (see <code>Compiler.getOptionsFingerprint(...)</code>) */
+	public long getOptionsFingerprint() {
+		Long FPrint = this.OptionsFingerprint;
+		if(FPrint == null) {
+			FPrint = this.Compiler.getOptionsFingerprint(this.Options);
+			this.OptionsFingerprint = FPrint;
+		}
+		return FPrint;
+	}
+	
+	// Reused codes ----------------------------------------------------------------------------------------------------
+	
+	boolean[][] ReusedCodes     = null;
+	int         ReusedCodeCount =    0;
+	
+	/** Checks if the code task outputs of the code are carried forward from a previous compilation */
+	public boolean isCodeReused(int pFeederIndex, int pCodeIndex) {
+		boolean[][] Reused = this.ReusedCodes;
+		if((Reused == null) || (pFeederIndex < 0) || (pFeederIndex >= Reused.length)) return false;
+		boolean[] FReused = Reused[pFeederIndex];
+		return (FReused != null) && (pCodeIndex >= 0) && (pCodeIndex < FReused.length) && FReused[pCodeIndex];
+	}
+	/** Marks that the code task outputs of the code are carried forward (so the code tasks will skip the code) */
+	void setCodeReused(int pFeederIndex, int pCodeIndex) {
+		if(this.isCodeReused(pFeederIndex, pCodeIndex)) return;
+		if(this.ReusedCodes == null) {
+			boolean[][] Reused = new boolean[this.CProduct.getFeederCount()][];
+			for(int f = Reused.length; --f >= 0; ) Reused[f] = new boolean[Math.max(0, this.CProduct.getCodeCount(f))];
+			this.ReusedCodes = Reused;
+		}
+		this.ReusedCodes[pFeederIndex][pCodeIndex] = true;
+		this.ReusedCodeCount++;
+	}
+	/** Returns the number of codes which code task outputs are carried forward from a previous compilation */
+	public int getReusedCodeCount() {
+		return this.ReusedCodeCount;
+	}
+	
+	// Cancellation ----------------------------------------------------------------------------------------------------
+	
+	volatile boolean IsAborted = false;
+	
+	/** Returns the cancellation token of the compilation */
+	public CancellationToken getCancellationToken() {
+		return this.CProduct.getCancellationToken();
+	}
+	/** Cancels the compilation - it will be stopped at the next task entry or the next code */
+	public void cancel() {
+		this.getCancellationToken().cancel(CancellationToken.Reason_Cancelled);
+	}
+	/** Sets the deadline (as a value of System.nanoTime()) after which the compilation will be stopped */
+	public void setDeadline(long pDeadline) {
+		this.getCancellationToken().setDeadline(pDeadline);
+	}
+	/** Checks if the deadline of the compilation is passed */
+	public boolean isDeadlinePassed() {
+		return this.getCancellationToken().isDeadlinePassed();
+	}
+	/** Checks if the compilation is cancelled, its deadline is passed or a fatal error is reported */
+	public boolean isCancelled() {
+		return this.getCancellationToken().isCancelled();
+	}
+	/** Checks if the compilation was stopped before all the task entries are done because it was cancelled */
+	public boolean isAborted() {
+		return this.IsAborted;
+	}
+	
+	/** Returns this session as a string */
+	@Override public String toString() {
+		return "CompilationSession: " + this.Compiler.getName() + " (Task #" + this.getTaskNumberInProgress() + ")";
+	}
+}
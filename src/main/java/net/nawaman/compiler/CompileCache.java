@@ -0,0 +1,273 @@
+/*----------------------------------------------------------------------------------------------------------------------
+ * Copyright (C) 2008-2021 Nawapunth Manusitthipol. Implements with and for Java 11 JDK.
+ *----------------------------------------------------------------------------------------------------------------------
+ * LICENSE:
+ * 
+ * This file is part of Nawa's SimpleCompiler.
+ * 
+ * The project is a free software; you can redistribute it and/or modify it under the SIMILAR terms of the GNU General
+ * Public License as published by the Free Software Foundation; either version 2 of the License, or any later version.
+ * You are only required to inform me about your modification and redistribution as or as part of commercial software
+ * package. You can inform me via nawa<at>nawaman<dot>net.
+ * 
+ * The project is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the 
+ * implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ * ---------------------------------------------------------------------------------------------------------------------
+ */
+
+
+package net.nawaman.compiler;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A persistent cache of the code task outputs.
+ * 
+ * The outputs of a code are stored in a file in the cache folder keyed by the fingerprint of the task pipeline (see
+ * <code>Compiler.getPipelineFingerprint()</code>), the fingerprint of the options (see
+ * <code>Compiler.getOptionsFingerprint(...)</code>), the code name and the fingerprint of its source. An output can be
+ * cached only if it is serializable or there is a codec registered for its class. A code is cached only when all its
+ * outputs can be cached.
+ * 
+ * The total size of the cache files is bounded. When it is over the bound, the least recently used files are removed.
+ *
+ * @author Nawapunth Manusitthipol (https://github.com/NawaMan)
+ */
+public class CompileCache {
+	
+	static private final int    Magic     = 0x4E434332;	// "NCC2"
+	static private final String Extension = ".ncc";
+	
+	static private final byte Kind_Serialized = DataCodecs.Kind_Serialized;
+	static private final byte Kind_Codec      = DataCodecs.Kind_Codec;
+	
+	/** Encoder and decoder of a data type that is not serializable (or has a better encoding) */
+	static public interface Codec {
+		/** Writes the value to the output */
+		public void   encode(Object pValue, DataOutputStream pOutput) throws IOException;
+		/** Reads the value from the input */
+		public Object decode(DataInputStream pInput) throws IOException;
+	}
+	
+	/** Constructs a compile cache using the folder and bounded by the total size in bytes */
+	public CompileCache(File pFolder, long pMaxBytes) {
+		if(pFolder == null) throw new NullPointerException();
+		if(!pFolder.isDirectory() && !pFolder.mkdirs())
+			throw new IllegalArgumentException("Unable to create the cache folder '"+pFolder+"'.");
+		this.Folder   = pFolder;
+		this.MaxBytes = (pMaxBytes < 0)?0:pMaxBytes;
+	}
+	
+	final File Folder;
+	final long MaxBytes;
+	
+	private final DataCodecs Codecs = new DataCodecs();
+	
+	/** Index of the cache files (key to size) in the order of their use */
+	private LinkedHashMap<String, Long> Index      = null;
+	private long                        TotalBytes = 0;
+	
+	/** Returns the cache folder */
+	public File getFolder() {
+		return this.Folder;
+	}
+	/** Returns the maximum total size of the cache in bytes */
+	public long getMaxBytes() {
+		return this.MaxBytes;
+	}
+	/** Returns the current total size of the cache in bytes */
+	public synchronized long getTotalBytes() {
+		this.ensureIndex();
+		return this.TotalBytes;
+	}
+	
+	/** Registers a codec for the exact class */
+	public void registerCodec(Class<?> pClass, Codec pCodec) {
+		this.Codecs.registerCodec(pClass, pCodec);
+	}
+	
+	/** Checks if the value can be stored in this cache */
+	public boolean canCache(Object pValue) {
+		return this.Codecs.canEncode(pValue);
+	}
+	
+	// Load and store --------------------------------------------------------------------------------------------------
+	
+	/** Returns the key of the cache entry */
+	static String getKey(long pPipelineFingerprint, long pOptionsFingerprint, String pCodeName, long pCodeFingerprint) {
+		return String.format("%016x-%016x-%016x-%016x",
+				pPipelineFingerprint, pOptionsFingerprint, Code.FingerprintOf(pCodeName), pCodeFingerprint);
+	}
+	
+	/** Loads the cached outputs of the code compiled with no option (null if there is none) */
+	public Map<String, Object> load(long pPipelineFingerprint, String pCodeName, long pCodeFingerprint) {
+		return this.load(pPipelineFingerprint, 0, pCodeName, pCodeFingerprint);
+	}
+	/** Loads the cached outputs of the code (null if there is none) */
+	public Map<String, Object> load(long pPipelineFingerprint, long pOptionsFingerprint, String pCodeName,
+			long pCodeFingerprint) {
+		String Key     = getKey(pPipelineFingerprint, pOptionsFingerprint, pCodeName, pCodeFingerprint);
+		File   TheFile = new File(this.Folder, Key + Extension);
+		if(!TheFile.isFile()) return null;
+		
+		try(DataInputStream DIS = new DataInputStream(new BufferedInputStream(new FileInputStream(TheFile)))) {
+			if(DIS.readInt()  != Magic)                return null;
+			if(DIS.readLong() != pPipelineFingerprint) return null;
+			if(DIS.readLong() != pOptionsFingerprint)  return null;
+			if(DIS.readLong() != pCodeFingerprint)     return null;
+			if(!DIS.readUTF().equals(pCodeName))       return null;
+			
+			int                     Count   = DIS.readInt();
+			HashMap<String, Object> Outputs = new HashMap<String, Object>();
+			for(int i = 0; i < Count; i++) {
+				String Name  = DIS.readUTF();
+				byte   Kind  = DIS.readByte();
+				String CName = (Kind == Kind_Codec)?DIS.readUTF():null;
+				byte[] Bytes = new byte[DIS.readInt()];
+				DIS.readFully(Bytes);
+				Outputs.put(Name, this.Codecs.decode(Kind, CName, Bytes));
+			}
+			this.touch(Key, TheFile);
+			return Outputs;
+		} catch(IOException | ClassNotFoundException | RuntimeException E) {
+			// A broken or outdated entry is treated as a miss and removed
+			this.remove(Key);
+			return null;
+		}
+	}
+	
+	/** Stores the outputs of the code compiled with no option - Returns false if any of the outputs cannot be cached */
+	public boolean store(long pPipelineFingerprint, String pCodeName, long pCodeFingerprint, Map<String, Object> pOutputs) {
+		return this.store(pPipelineFingerprint, 0, pCodeName, pCodeFingerprint, pOutputs);
+	}
+	/** Stores the outputs of the code - Returns false if any of the outputs cannot be cached */
+	public boolean store(long pPipelineFingerprint, long pOptionsFingerprint, String pCodeName, long pCodeFingerprint,
+			Map<String, Object> pOutputs) {
+		if((pCodeName == null) || (pOutputs == null)) return false;
+		String Key = getKey(pPipelineFingerprint, pOptionsFingerprint, pCodeName, pCodeFingerprint);
+		
+		try {
+			ByteArrayOutputStream BAOS = new ByteArrayOutputStream();
+			DataOutputStream      DOS  = new DataOutputStream(BAOS);
+			DOS.writeInt(Magic);
+			DOS.writeLong(pPipelineFingerprint);
+			DOS.writeLong(pOptionsFingerprint);
+			DOS.writeLong(pCodeFingerprint);
+			DOS.writeUTF(pCodeName);
+			DOS.writeInt(pOutputs.size());
+			for(Map.Entry<String, Object> Entry : pOutputs.entrySet()) {
+				Object Value = Entry.getValue();
+				if(!this.canCache(Value)) return false;
+				
+				Codec  TheCodec = this.Codecs.getCodec(Value.getClass());
+				byte[] Bytes    = this.Codecs.encode(TheCodec, Value);
+				DOS.writeUTF(Entry.getKey());
+				DOS.writeByte((TheCodec != null)?Kind_Codec:Kind_Serialized);
+				if(TheCodec != null) DOS.writeUTF(Value.getClass().getName());
+				DOS.writeInt(Bytes.length);
+				DOS.write(Bytes);
+			}
+			DOS.flush();
+			
+			// Write to a temporary file and move it in place so readers never see a partial entry
+			File Temp    = File.createTempFile(Key, ".tmp", this.Folder);
+			File TheFile = new File(this.Folder, Key + Extension);
+			try {
+				try(BufferedOutputStream BOS = new BufferedOutputStream(new FileOutputStream(Temp))) {
+					BAOS.writeTo(BOS);
+				}
+				try {
+					Files.move(Temp.toPath(), TheFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
+				} catch(AtomicMoveNotSupportedException E) {
+					Files.move(Temp.toPath(), TheFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+				}
+			} finally {
+				// The temporary file is left only if writing or moving it failed
+				if(Temp.exists()) Temp.delete();
+			}
+			this.added(Key, BAOS.size());
+			return true;
+		} catch(IOException | RuntimeException E) {
+			return false;
+		}
+	}
+	
+	// LRU index -------------------------------------------------------------------------------------------------------
+	
+	/** Builds the index from the files in the cache folder (the oldest modified first) */
+	private void ensureIndex() {
+		if(this.Index != null) return;
+		this.Index      = new LinkedHashMap<String, Long>(16, 0.75f, true);
+		this.TotalBytes = 0;
+		
+		File[] Files = this.Folder.listFiles((D, N) -> N.endsWith(Extension));
+		if(Files == null) return;
+		Arrays.sort(Files, Comparator.comparingLong(File::lastModified));
+		for(File F : Files) {
+			String Name = F.getName();
+			long   Size = F.length();
+			this.Index.put(Name.substring(0, Name.length() - Extension.length()), Size);
+			this.TotalBytes += Size;
+		}
+	}
+	
+	private synchronized void touch(String pKey, File pFile) {
+		this.ensureIndex();
+		this.Index.get(pKey);	// Mark as recently used
+		pFile.setLastModified(System.currentTimeMillis());
+	}
+	
+	private synchronized void added(String pKey, long pSize) {
+		this.ensureIndex();
+		Long Old = this.Index.put(pKey, pSize);
+		this.TotalBytes += pSize - ((Old == null)?0:Old);
+		
+		// Evicts the least recently used entries
+		Iterator<Map.Entry<String, Long>> Entries = this.Index.entrySet().iterator();
+		while((this.TotalBytes > this.MaxBytes) && Entries.hasNext()) {
+			Map.Entry<String, Long> Entry = Entries.next();
+			if(Entry.getKey().equals(pKey)) continue;
+			new File(this.Folder, Entry.getKey() + Extension).delete();
+			this.TotalBytes -= Entry.getValue();
+			Entries.remove();
+		}
+	}
+	
+	private synchronized void remove(String pKey) {
+		this.ensureIndex();
+		Long Size = this.Index.remove(pKey);
+		if(Size != null) this.TotalBytes -= Size;
+		new File(this.Folder, pKey + Extension).delete();
+	}
+	
+	/** Removes all the entries of the cache */
+	public synchronized void clear() {
+		this.ensureIndex();
+		for(String Key : this.Index.keySet()) new File(this.Folder, Key + Extension).delete();
+		this.Index.clear();
+		this.TotalBytes = 0;
+	}
+	
+	/** Returns this cache as a string */
+	@Override public String toString() {
+		return "CompileCache: " + this.Folder + " (" + this.getTotalBytes() + "/" + this.MaxBytes + " bytes)";
+	}
+}
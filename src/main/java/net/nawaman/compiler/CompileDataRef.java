@@ -1,5 +1,7 @@
 package net.nawaman.compiler;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 
 /** Reference to data in CompilerData */
@@ -12,11 +14,16 @@ final public class CompileDataRef implements net.nawaman.task.DataRef, Serializa
 		if(pTargetRef == null) throw new NullPointerException();
 		this.TargetRef = pTargetRef;
 		this.DataName  = pDataName;
+		this.Slot      = (pDataName == null)?-1:DataSlots.slotOf(pDataName);
 	}
 	
 	String DataName;
+	// Slots are given per process so it is not serialized
+	transient int Slot = -1;
 	/** Returns the data name */
 	public String getDataName() { return this.DataName; }
+	/** Returns the data slot (see DataSlots) or -1 if the data name has no slot */
+	public int getDataSlot() { return (this.Slot != -1)?this.Slot:DataSlots.findSlot(this.DataName); }
 	
 	FeederRef TargetRef = null;
 
@@ -33,4 +40,10 @@ final public class CompileDataRef implements net.nawaman.task.DataRef, Serializa
 	/** Returns the reference to the code feeder */
 	public FeederRef getFeederRef()  { return !(this.TargetRef instanceof CodeRef)?this.TargetRef:null; }
 
+	/** Resolve the data slot again after deserialization */
+	private void readObject(ObjectInputStream pIn) throws IOException, ClassNotFoundException {
+		pIn.defaultReadObject();
+		this.Slot = (this.DataName == null)?-1:DataSlots.slotOf(this.DataName);
+	}
+
 }
@@ -19,11 +19,13 @@
 package net.nawaman.compiler;
 
 import java.util.HashMap;
+import java.util.Vector;
 
 import net.nawaman.compiler.CompilerMessage.MessageKind;
 import net.nawaman.regparser.CompilationContext;
 import net.nawaman.regparser.result.Coordinate;
 import net.nawaman.task.ProcessContext;
+import net.nawaman.task.ProcessDatas;
 
 /**
  * The product of a compilation.
@@ -54,213 +56,427 @@ public class CompileProduct extends CompilationData.Simple implements Compilatio
 		this(new CodeFeeders(new CodeFeeder.CFCharSequence(pFeederName, pCodeName, pCode)));
 	}
 	
-	@SuppressWarnings("unchecked")
+	/** Create a CompileProduct of the codes (the data of the input are shared until they are changed) */
 	protected CompileProduct(CodeFeeders pTheInput) {
 		if(pTheInput == null) throw new NullPointerException();
-		this.FeederDatas = new HashMap[pTheInput.getFeederCount()];
-		this.CodeNames   = new String[ pTheInput.getFeederCount()][];
-		this.CodeDatas   = new HashMap[pTheInput.getFeederCount()][];
-
-		this.CFeederRef = new FeederRef.Simple(0);
-		this.CCodeRef   = new CodeRef.Share( this.CFeederRef, null);
-		this.CCode      = new CompileDataRef(this.CCodeRef,   null);
-		this.CFeeder    = new CompileDataRef(this.CFeederRef, null);
-		
-		// Duplicate the code name
-		for(int i = pTheInput.getFeederCount(); --i >= 0; ) {
-			this.FeederDatas[i]= new HashMap<String, Object>(pTheInput.FeederDatas[i]);
-			this.CodeNames[i] = pTheInput.CodeNames[i].clone();
-			this.CodeDatas[i] = new HashMap[this.CodeNames[i].length];
-			for(int j = this.CodeNames[i].length; --j >= 0; ) {
-				this.CodeDatas[i][j] = new HashMap<String, Object>();
-				this.CodeDatas[i][j].put(CodeFeeders.DataName_Code,       pTheInput.CodeDatas[i][j].get(CodeFeeders.DataName_Code));
-				this.CodeDatas[i][j].put(CodeFeeders.DataName_SourceCode, pTheInput.CodeDatas[i][j].get(CodeFeeders.DataName_SourceCode));
-			}
+		this.shareDataOf(pTheInput);
+	}
+	
+	/** Create a fork of the compile product (see <code>fork()</code>) */
+	protected CompileProduct(CompileProduct pSource) {
+		if(pSource == null) throw new NullPointerException();
+		this.shareDataOf(pSource);
+		synchronized(pSource) {
+			if(pSource.Messages != null) this.Messages = new Vector<CompilerMessage>(pSource.Messages);
+			this.ErrMessageCount  = pSource.ErrMessageCount;
+			this.FErrMessageCount = pSource.FErrMessageCount;
 		}
 	}
 	
+	/**
+	 * Returns a fork of this compile product.
+	 * 
+	 * The fork holds all the data and messages of this product but the two are independent from then on. The data
+	 * are shared until one side changes them so forking costs the same regardless of the number of codes and data.
+	 * This product should not be being compiled while it is forked.
+	 **/
+	public CompileProduct fork() {
+		return new CompileProduct(this);
+	}
+	
+	// Session -------------------------------------------------------------------------------------
+	
+	CompilationSession Session = null;
+	
+	/** Returns the session that produces this compile product (null if it is not produced by a compiler) */
+	public CompilationSession getSession() {
+		return this.Session;
+	}
+	// Cancellation --------------------------------------------------------------------------------
+	
+	private final CancellationToken Token = new CancellationToken();
+	
+	/**
+	 * Returns the cancellation token of the compilation producing this compile product.
+	 * 
+	 * While a dropped data is recomputed (see RecomputableData), the current thread gets the token of the recomputation
+	 * instead so a compilation that is cancelled or stopped by a fatal error does not stop the recomputation.
+	 **/
+	public CancellationToken getCancellationToken() {
+		CancellationToken CToken = this.getCursor().Token;
+		return (CToken != null)?CToken:this.Token;
+	}
+	/** Checks if the compilation producing this compile product should stop (tasks may use this to stop early) */
+	public boolean isCancelled() {
+		return this.getCancellationToken().isCancelled();
+	}
+	
+	/** Stops the compilation (or the recomputation) as soon as a fatal error is reported */
+	@Override protected void onFatalErrorReported() {
+		this.getCancellationToken().cancel(CancellationToken.Reason_FatalError);
+	}
+	
 	// Current Position ----------------------------------------------------------------------------
 	
-	private boolean isRunning = false;
-	private boolean isCode    =  true;
+	/**
+	 * The iteration position of a compile product.
+	 * 
+	 * The compiler iterates the product with the main cursor. When a code task is performed in parallel, each worker
+	 * thread iterates with its own cursor (see <code>startWorkerCursor()</code>) so the workers do not disturb one
+	 * another or the main cursor.
+	 **/
+	static final class Cursor {
+		
+		boolean isRunning = false;
+		boolean isCode    =  true;
+		
+		final FeederRef.Simple CFeederRef = new FeederRef.Simple(0);
+		final CodeRef.Share    CCodeRef   = new CodeRef.Share( this.CFeederRef, null);
+		final CompileDataRef   CCode      = new CompileDataRef(this.CCodeRef,   null);
+		final CompileDataRef   CFeeder    = new CompileDataRef(this.CFeederRef, null);
+		
+		final CompileDataRef ReUse_CodeRef     = new CompileDataRef();
+		final CompileDataRef ReUse_ArbitaryRef = new CompileDataRef();
+		
+		int            CCodeIndex = 0;
+		CompileDataRef CPos       = null;
+		
+		/** The index of the task entry being performed with this cursor */
+		volatile int TaskIndex = -1;
+		
+		/** The cancellation token of the work done with this cursor (null for the token of the product) */
+		CancellationToken Token = null;
+	}
+	
+	private final Cursor MainCursor = new Cursor();
+	
+	private volatile ThreadLocal<Cursor> WorkerCursors = null;
 	
-	private CodeRef.Share    CCodeRef   = null;
-	private FeederRef.Simple CFeederRef = null;
-	private CompileDataRef   CCode      = null;
-	private CompileDataRef   CFeeder    = null;
+	/** Returns the cursor of the current thread */
+	private Cursor getCursor() {
+		ThreadLocal<Cursor> WCursors = this.WorkerCursors;
+		if(WCursors != null) {
+			Cursor WCursor = WCursors.get();
+			if(WCursor != null) return WCursor;
+		}
+		return this.MainCursor;
+	}
 	
-	private CompileDataRef ReUse_CodeRef     = new CompileDataRef();
-	private CompileDataRef ReUse_ArbitaryRef = new CompileDataRef();
+	/** Returns the worker cursors (create it if it does not exist) */
+	private ThreadLocal<Cursor> ensureWorkerCursors() {
+		ThreadLocal<Cursor> WCursors = this.WorkerCursors;
+		if(WCursors == null) {
+			synchronized(this.MainCursor) {
+				if(this.WorkerCursors == null) this.WorkerCursors = new ThreadLocal<Cursor>();
+				WCursors = this.WorkerCursors;
+			}
+		}
+		return WCursors;
+	}
+	/** Starts a worker cursor for the current thread (the thread will no longer use the main cursor) */
+	void startWorkerCursor() {
+		this.ensureWorkerCursors().set(new Cursor());
+	}
+	/** Starts a worker cursor for the current thread that performs the task entry at the index */
+	void startWorkerCursor(int pTaskIndex) {
+		Cursor C = new Cursor();
+		C.TaskIndex = pTaskIndex;
+		this.ensureWorkerCursors().set(C);
+	}
+	/** Ends the worker cursor of the current thread (the thread will use the main cursor from now on) */
+	void endWorkerCursor() {
+		ThreadLocal<Cursor> WCursors = this.WorkerCursors;
+		if(WCursors != null) WCursors.remove();
+	}
 	
-	private int            CCodeIndex = 0;
-	private CompileDataRef CPos       = null;
+	/** Returns the index of the task entry the current thread is performing (-1 if none) */
+	int getTaskIndexInProgress() {
+		return this.getCursor().TaskIndex;
+	}
+	/** Sets the index of the task entry the current thread is performing */
+	void setTaskIndexInProgress(int pTaskIndex) {
+		this.getCursor().TaskIndex = pTaskIndex;
+	}
 	
 	void reset() {
-		this.CPos       = null;
-		this.CCodeIndex =    0;
+		Cursor C = this.getCursor();
+		C.CPos       = null;
+		C.CCodeIndex =    0;
 	}
 	boolean startCode() {
 		if(this.getFeederCount() == 0) return false;
 		
-		this.CPos                   = this.CCode;
-		this.CFeederRef.FeederIndex =          0;
-		this.CPos.DataName          =       null;
-		this.CCodeIndex             =          0;
+		Cursor C = this.getCursor();
+		C.CPos                   = C.CCode;
+		C.CFeederRef.FeederIndex =       0;
+		C.CPos.DataName          =    null;
+		C.CPos.Slot              =      -1;
+		C.CCodeIndex             =       0;
 		
 		// Ensure that the first feeder has code
-		while(this.getCodeCount(this.CFeederRef.FeederIndex) == 0) this.CFeederRef.FeederIndex++;
+		while(this.getCodeCount(C.CFeederRef.FeederIndex) == 0) C.CFeederRef.FeederIndex++;
 		
-		this.CCodeRef.CodeName = this.getCodeName(this.CFeederRef.FeederIndex, this.CCodeIndex);
+		C.CCodeRef.CodeName = this.getCodeName(C.CFeederRef.FeederIndex, C.CCodeIndex);
 
-		this.isRunning = true;
-		this.isCode    = true;
+		C.isRunning = true;
+		C.isCode    = true;
+		return true;
+	}
+	/** Move the current cursor directly to the code (used by the workers of a parallel code task) */
+	boolean moveToCode(int pFeederIndex, int pCodeIndex) {
+		String CodeName = this.getCodeName(pFeederIndex, pCodeIndex);
+		if(CodeName == null) return false;
+		
+		Cursor C = this.getCursor();
+		C.CPos                   = C.CCode;
+		C.CFeederRef.FeederIndex = pFeederIndex;
+		C.CPos.DataName          = null;
+		C.CPos.Slot              = -1;
+		C.CCodeIndex             = pCodeIndex;
+		C.CCodeRef.CodeName      = CodeName;
+		
+		C.isRunning = true;
+		C.isCode    = true;
 		return true;
 	}
 	boolean startFeeder() {
 		if(this.getFeederCount() == 0) return false;
-		this.CPos                   = this.CFeeder;
-		this.CFeederRef.FeederIndex =            0;
-		this.CPos.DataName          =         null;
 		
-		this.isRunning =  true;
-		this.isCode    = false;
+		Cursor C = this.getCursor();
+		C.CPos                   = C.CFeeder;
+		C.CFeederRef.FeederIndex =         0;
+		C.CPos.DataName          =      null;
+		C.CPos.Slot              =        -1;
+		
+		C.isRunning =  true;
+		C.isCode    = false;
 		return true;
 	}
 	
 	boolean nextCode() {
-		if(!this.isRunning) return false;
-		if(!this.isCode)    return false;	// TODOLATER - Should we throw an internal error
-		this.CCodeIndex++;
-		if(this.CCodeIndex >= this.getCodeCount(this.CFeederRef.FeederIndex)) {
-			this.CFeederRef.FeederIndex++;
+		Cursor C = this.getCursor();
+		if(!C.isRunning) return false;
+		if(!C.isCode)    return false;	// TODOLATER - Should we throw an internal error
+		C.CCodeIndex++;
+		if(C.CCodeIndex >= this.getCodeCount(C.CFeederRef.FeederIndex)) {
+			C.CFeederRef.FeederIndex++;
 			if(this.getCurrentFeederIndex() >= ((this.FeederDatas == null)?0:this.FeederDatas.length)) {
-				this.isRunning = false;
+				C.isRunning = false;
 				return false;
 			}
-			this.CCodeIndex = 0;
+			C.CCodeIndex = 0;
 		}
-		this.CCodeRef.CodeName = this.getCodeName(this.CFeederRef.FeederIndex, this.CCodeIndex);
+		C.CCodeRef.CodeName = this.getCodeName(C.CFeederRef.FeederIndex, C.CCodeIndex);
 		return true;
 	}
 	boolean nextFeeder() {
-		if(!this.isRunning) return false;
-		if(this.isCode)     return false;	// TODOLATER - Should we throw an internal error
-		this.CFeederRef.FeederIndex++;
+		Cursor C = this.getCursor();
+		if(!C.isRunning) return false;
+		if(C.isCode)     return false;	// TODOLATER - Should we throw an internal error
+		C.CFeederRef.FeederIndex++;
 		if(this.getCurrentFeederIndex() >= ((this.FeederDatas == null)?0:this.FeederDatas.length)) {
-			this.isRunning = false;
+			C.isRunning = false;
 			return false;
 		}
 		return true;
 	}
 	
 	public int getCurrentFeederIndex() {
-		if(!this.isRunning) return -1;
-		return this.CFeederRef.FeederIndex;
+		Cursor C = this.getCursor();
+		if(!C.isRunning) return -1;
+		return C.CFeederRef.FeederIndex;
 	}
 	public String getCurrentFeederName() {
 		CodeFeeder CF = this.getCurrentFeeder();
 		if(CF == null) return null;
 		return CF.getFeederName();
 	}
+	/** Returns the index of the current code in its feeder */
+	int getCurrentCodeIndex() {
+		Cursor C = this.getCursor();
+		if(!C.isRunning) return -1;
+		if(!C.isCode)    return -1;
+		return C.CCodeIndex;
+	}
 	public String getCurrentCodeName() {
-		if(!this.isRunning) return null;
-		if(!this.isCode)    return null;
-		return ((CodeRef)this.CPos.TargetRef).getCodeName();
+		Cursor C = this.getCursor();
+		if(!C.isRunning) return null;
+		if(!C.isCode)    return null;
+		return ((CodeRef)C.CPos.TargetRef).getCodeName();
 	}
 	
 	CompileDataRef getTheRef(net.nawaman.task.DataRef pRef) {
 		if(pRef instanceof DataRef) {	// Simulating
-			if(!this.isRunning) return null;
+			Cursor C = this.getCursor();
+			if(!C.isRunning) return null;
+			DataKey<?> Key = ((DataRef)pRef).Key;
+			if(Key != null) return this.getTheRef(C, Key);
+			
 			String DName = ((DataRef)pRef).DataName;
+			int    DSlot = ((DataRef)pRef).Slot;
 			// Specific Data
 			if((DName.length() >= 2) && (DName.charAt(1) == '.')) {
 				char FirstC = DName.charAt(0);
 				DName = DName.substring(2);
 				switch(FirstC) {
 					case 'C':{	// Force to Code
-						if(this.isCode) break;
+						if(C.isCode) break;
 						return null;	// No code but want to access code
 					}
 					case 'F':{	// Force to CodeFeeder
-						if(this.isCode) {
-							this.ReUse_CodeRef.TargetRef = this.CFeederRef;
-							this.ReUse_CodeRef.DataName  = DName;
-							return this.ReUse_CodeRef;	// Force to code
+						if(C.isCode) {
+							C.ReUse_CodeRef.TargetRef = C.CFeederRef;
+							C.ReUse_CodeRef.DataName  = DName;
+							C.ReUse_CodeRef.Slot      = DSlot;
+							return C.ReUse_CodeRef;	// Force to code
 						}
 						break;	// Else, just usual
 					}
 					case 'A':{	// Force to Arbitrary
-						this.ReUse_ArbitaryRef.DataName = DName;
-						return this.ReUse_ArbitaryRef;
+						C.ReUse_ArbitaryRef.DataName = DName;
+						C.ReUse_ArbitaryRef.Slot     = DSlot;
+						return C.ReUse_ArbitaryRef;
 					}
 				} 
 			}
-			this.CPos.DataName = DName;
-			return this.CPos;
+			C.CPos.DataName = DName;
+			C.CPos.Slot     = DSlot;
+			return C.CPos;
 		} else if(pRef instanceof CompileDataRef) {	// Direct 
 			return (CompileDataRef)pRef;
 		}
 		return null;
 	}
 	
+	/** Returns the reference to the data of the key from the cursor (no name is parsed) */
+	private CompileDataRef getTheRef(Cursor C, DataKey<?> pKey) {
+		switch(pKey.Scope) {
+			case CODE: {
+				if(!C.isCode) return null;	// No code but want to access code
+				C.CPos.DataName = pKey.DataName;
+				C.CPos.Slot     = pKey.Slot;
+				return C.CPos;
+			}
+			case FEEDER: {
+				if(!C.isCode) {
+					C.CPos.DataName = pKey.DataName;
+					C.CPos.Slot     = pKey.Slot;
+					return C.CPos;
+				}
+				C.ReUse_CodeRef.TargetRef = C.CFeederRef;
+				C.ReUse_CodeRef.DataName  = pKey.DataName;
+				C.ReUse_CodeRef.Slot      = pKey.Slot;
+				return C.ReUse_CodeRef;
+			}
+			default: {
+				C.ReUse_ArbitaryRef.DataName = pKey.DataName;
+				C.ReUse_ArbitaryRef.Slot     = pKey.Slot;
+				return C.ReUse_ArbitaryRef;
+			}
+		}
+	}
+	
 	/** Check if this compile product is being iterated (in the compilation) */
 	public boolean isRunning() {
-		return this.isRunning;
+		return this.getCursor().isRunning;
 	}
 	/** Check if this compile product is being iterated by code (in the compilation) */
 	public boolean isCode() {
-		return this.isRunning && this.isCode;
+		Cursor C = this.getCursor();
+		return C.isRunning && C.isCode;
 	}
 	/** Check if this compile product is being iterated by code feeder (in the compilation) */
 	public boolean isFeeder() {
-		return this.isRunning && !this.isCode;
+		Cursor C = this.getCursor();
+		return C.isRunning && !C.isCode;
 	}
 	
 	/** Returns the Current feeder */
 	public CodeFeeder getCurrentFeeder() {
-		if(!this.isRunning) return null;
-		int I = this.CFeederRef.FeederIndex;
+		Cursor C = this.getCursor();
+		if(!C.isRunning) return null;
+		int I = C.CFeederRef.FeederIndex;
 		return (CodeFeeder)this.getFeederData(I, CodeFeeders.DataName_Feeder);
 	}
 	/** Returns the current code */
 	public Code getCurrentCode() {
-		if(!this.isRunning) return null;
-		if(!this.isCode)    return null;
+		Cursor C = this.getCursor();
+		if(!C.isRunning) return null;
+		if(!C.isCode)    return null;
 		return (Code)this.getCodeData(
-					this.CCodeRef.getFeederIndex(),
-					this.CCodeRef.getCodeName(),
-					CodeFeeders.DataName_Code);
+					C.CCodeRef.getFeederIndex(),
+					C.CCodeRef.getCodeName(),
+					CodeFeeders.DataSlot_Code);
 	}
 	
 	public int[] getLocationAsColRow(int pPosition) {
-		if(!this.isRunning) return null;
-		if(this.isCode) {
-			Code C = this.getCurrentCode();
-			if(C == null) return null;
-			return new int[] { C.getColOf(pPosition), C.getLineNumberOf(pPosition) };
+		Cursor C = this.getCursor();
+		if(!C.isRunning) return null;
+		if(C.isCode) {
+			Code TheCode = this.getCurrentCode();
+			if(TheCode == null) return null;
+			return TheCode.getColRowOf(pPosition);
 		}
 		return null;
 	}
 	public String getLocationAsString(int pPosition) {
-		if(!this.isRunning) return null;
-		if(this.isCode) {
-			CodeFeeder CF = (CodeFeeder)this.getFeederData(this.CCodeRef.getFeederIndex(), CodeFeeders.DataName_Feeder);
-			Code       C  = this.getCurrentCode();
-			if(C == null) return null;			
-			return String.format("<%s%s> at %s%s",
-				(((CF == null)||(CF.getFeederName() == CodeFeeder.UnknownCodeFeederName))?"":CF.getFeederName() + " -> "),
-				C.getCodeName(),
-				((pPosition == -1)?"(x,x)":C.getCodePosition(pPosition)),
-				((pPosition == -1)?""     :C.getCodePositionByCursor(pPosition))
-			);
+		Cursor C = this.getCursor();
+		if(!C.isRunning) return null;
+		if(C.isCode) {
+			CodeFeeder CF      = (CodeFeeder)this.getFeederData(C.CCodeRef.getFeederIndex(), CodeFeeders.DataName_Feeder);
+			Code       TheCode = this.getCurrentCode();
+			if(TheCode == null) return null;
+			return getLocationAsString(CF, TheCode, pPosition);
 		} else {
-			CodeFeeder CF = (CodeFeeder)this.getFeederData(this.CCodeRef.getFeederIndex(), CodeFeeders.DataName_Feeder);
+			CodeFeeder CF = (CodeFeeder)this.getFeederData(C.CCodeRef.getFeederIndex(), CodeFeeders.DataName_Feeder);
 			return (CF == null)?null:CF.toString();
 		}
 	}
+	/** Returns the location of the position in the code (of the feeder) as a string */
+	static String getLocationAsString(CodeFeeder pFeeder, Code pCode, int pPosition) {
+		return String.format("<%s%s> at %s%s",
+			(((pFeeder == null)||(pFeeder.getFeederName() == CodeFeeder.UnknownCodeFeederName))?"":pFeeder.getFeederName() + " -> "),
+			pCode.getCodeName(),
+			((pPosition == -1)?"(x,x)":pCode.getCodePosition(pPosition)),
+			((pPosition == -1)?""     :pCode.getCodePositionByCursor(pPosition))
+		);
+	}
 	
 	// Error Report ----------------------------------------------------------------------------------------------------
 	
+	// The reports below keep the problem structured (see CompilerMessage.newProblem(...)) and the text in the same
+	//    format as getProblemMessage(...) is only rendered when the message is displayed. When a subclass overrides
+	//    getProblemMessage(...) or getLocationAsString(int), the text is made by them when the problem is reported (as
+	//    they may use the current location).
+	
+	/** Checks for each class of compile product if it overrides getProblemMessage(...) or getLocationAsString(int) */
+	static private final ClassValue<Boolean> ProblemTextOverriders = new ClassValue<Boolean>() {
+		@Override protected Boolean computeValue(Class<?> pClass) {
+			for(Class<?> C = pClass; (C != null) && (C != CompileProduct.class); C = C.getSuperclass()) {
+				if(isDeclared(C, "getProblemMessage", String.class, Throwable.class, int.class)) return true;
+				if(isDeclared(C, "getLocationAsString", int.class))                              return true;
+			}
+			return false;
+		}
+		private boolean isDeclared(Class<?> pClass, String pName, Class<?> ... pParamTypes) {
+			try {
+				pClass.getDeclaredMethod(pName, pParamTypes);
+				return true;
+			} catch(NoSuchMethodException E) {
+				return false;
+			}
+		}
+	};
+	
+	/** Returns the message of a problem (with the text made by the overridden methods if there are any) */
+	private CompilerMessage newProblem(MessageKind pKind, String pMessage, Throwable pCause, int pPosition) {
+		if(ProblemTextOverriders.get(this.getClass())) {
+			String Message = this.getProblemMessage(pMessage, pCause, pPosition);
+			return new CompilerMessage(pKind, Message, pCause, this, pPosition);
+		}
+		return CompilerMessage.newProblem(pKind, pMessage, pCause, this, pPosition);
+	}
+	
 	/** Returns the problem messages formated in a way that it can be retrieved back */
 	protected String getProblemMessage(String pMessage, Throwable pCause, int pPosition) {
 		return String.format("%s:\nNear %s", pMessage, this.getLocationAsString(pPosition));
@@ -273,48 +489,40 @@ public class CompileProduct extends CompilationData.Simple implements Compilatio
 	
 	/** Reports a message in a specific format that each information can be retrieved back */
 	public void reportMessage(String pMessage, Throwable pCause, int pPosition) {
-		String Message = this.getProblemMessage(pMessage, pCause, pPosition);
-		super.reportMessage(new CompilerMessage(MessageKind.MESSAGE, Message, pCause, this, pPosition));
+		super.reportMessage(this.newProblem(MessageKind.MESSAGE, pMessage, pCause, pPosition));
 	}
 	/** Reports a warning in a specific format that each information can be retrieved back */
 	public void reportWarning(String pMessage, Throwable pCause, int pPosition) {
-		String Message = this.getProblemMessage(pMessage, pCause, pPosition);
-		super.reportMessage(new CompilerMessage(MessageKind.WARNING, Message, pCause, this, pPosition));
+		super.reportMessage(this.newProblem(MessageKind.WARNING, pMessage, pCause, pPosition));
 	}
 	/** Reports a error in a specific format that each information can be retrieved back */
 	public void reportError(String pMessage, Throwable pCause, int pPosition) {
-		String Message = this.getProblemMessage(pMessage, pCause, pPosition);
-		super.reportMessage(new CompilerMessage(MessageKind.ERROR, Message, pCause, this, pPosition));
+		super.reportMessage(this.newProblem(MessageKind.ERROR, pMessage, pCause, pPosition));
 	}
 	/** Reports a fatal error in a specific format that each information can be retrieved back */
 	public void reportFatalError(String pMessage, Throwable pCause, int pPosition) {
-		String Message = this.getProblemMessage(pMessage, pCause, pPosition);
-		super.reportMessage(new CompilerMessage(MessageKind.FATALERROR, Message, pCause, this, pPosition));
+		super.reportMessage(this.newProblem(MessageKind.FATALERROR, pMessage, pCause, pPosition));
 	}
 
 	/** Reports a message in a specific format that each information can be retrieved back */
 	public void reportMessage(String pMessage, Throwable pCause, int pCol, int pRow) {
-		int    Position = this.getCurrentCode().getNearestValidPositionOf(pCol, pRow);
-		String Message  = this.getProblemMessage(pMessage, pCause, Position); 
-		super.reportMessage(new CompilerMessage(MessageKind.MESSAGE, Message, pCause, this, Position));
+		int Position = this.getCurrentCode().getNearestValidPositionOf(pCol, pRow);
+		super.reportMessage(this.newProblem(MessageKind.MESSAGE, pMessage, pCause, Position));
 	}
 	/** Reports a warning in a specific format that each information can be retrieved back */
 	public void reportWarning(String pMessage, Throwable pCause, int pCol, int pRow) {
-		int    Position = this.getCurrentCode().getNearestValidPositionOf(pCol, pRow);
-		String Message  = this.getProblemMessage(pMessage, pCause, Position); 
-		super.reportMessage(new CompilerMessage(MessageKind.WARNING, Message, pCause, this, Position));
+		int Position = this.getCurrentCode().getNearestValidPositionOf(pCol, pRow);
+		super.reportMessage(this.newProblem(MessageKind.WARNING, pMessage, pCause, Position));
 	}
 	/** Reports a error in a specific format that each information can be retrieved back */
 	public void reportError(String pMessage, Throwable pCause, int pCol, int pRow) {
-		int    Position = this.getCurrentCode().getNearestValidPositionOf(pCol, pRow);
-		String Message  = this.getProblemMessage(pMessage, pCause, Position); 
-		super.reportMessage(new CompilerMessage(MessageKind.ERROR, Message, pCause, this, Position));
+		int Position = this.getCurrentCode().getNearestValidPositionOf(pCol, pRow);
+		super.reportMessage(this.newProblem(MessageKind.ERROR, pMessage, pCause, Position));
 	}	
 	/** Reports a fatal error in a specific format that each information can be retrieved back */
 	public void reportFatalError(String pMessage, Throwable pCause, int pCol, int pRow) {
-		int    Position = this.getCurrentCode().getNearestValidPositionOf(pCol, pRow);
-		String Message  = this.getProblemMessage(pMessage, pCause, Position); 
-		super.reportMessage(new CompilerMessage(MessageKind.FATALERROR, Message, pCause, this, Position));
+		int Position = this.getCurrentCode().getNearestValidPositionOf(pCol, pRow);
+		super.reportMessage(this.newProblem(MessageKind.FATALERROR, pMessage, pCause, Position));
 	}
 
 	/** Reports a message in a specific format that each information can be retrieved back */
@@ -408,6 +616,11 @@ public class CompileProduct extends CompilationData.Simple implements Compilatio
 	/** Change the data at the reference - Returns if that success */
 	@Override public Object setData(net.nawaman.task.DataRef pRef, Object pValue) {
 		CompileDataRef Ref = this.getTheRef(pRef);
+		if((pValue != null) && (Ref != null) && Ref.isRefToCode() && (this.Session != null)
+		 && (pRef instanceof DataRef) && ((DataRef)pRef).IsRecomputable) {
+			DataRef DRef = (DataRef)pRef;
+			pValue = new RecomputableData(this, DRef.Entry, DRef.OutputIndex, pValue);
+		}
 		return super.setData(Ref, pValue);
 	}	// Only allowed when it is running.
 	/** Change the data at the reference - Returns if that success */
@@ -415,6 +628,115 @@ public class CompileProduct extends CompilationData.Simple implements Compilatio
 		return this.setData((net.nawaman.task.DataRef)pRef, pValue);
 	}
 
+	/** Returns the data of the key for the current code or feeder (or the arbitrary data) */
+	@SuppressWarnings("unchecked")
+	public <T> T getData(DataKey<T> pKey) {
+		if(pKey == null) return null;
+		Cursor C = this.getCursor();
+		switch(pKey.Scope) {
+			case CODE: {
+				if(!C.isRunning || !C.isCode) return null;
+				return (T)this.getCodeData(C.CFeederRef.FeederIndex, C.CCodeRef.CodeName, pKey.Slot);
+			}
+			case FEEDER: {
+				if(!C.isRunning) return null;
+				return (T)this.getFeederData(C.CFeederRef.FeederIndex, pKey.DataName);
+			}
+			default: return (T)this.getArbitraryData(pKey.DataName);
+		}
+	}
+	/** Change the data of the key for the current code or feeder (or the arbitrary data) */
+	public <T> T setData(DataKey<T> pKey, T pValue) {
+		if(pKey == null) throw new NullPointerException();
+		Cursor C = this.getCursor();
+		switch(pKey.Scope) {
+			case CODE: {
+				if(!C.isRunning || !C.isCode) throw new CompilationException("No code is being iterated.");
+				this.setCodeData(C.CFeederRef.FeederIndex, C.CCodeRef.CodeName, pKey.Slot, pValue);
+				return pValue;
+			}
+			case FEEDER: {
+				if(!C.isRunning) throw new CompilationException("No feeder is being iterated.");
+				this.setFeederData(C.CFeederRef.FeederIndex, pKey.DataName, pValue);
+				return pValue;
+			}
+			default: {
+				this.setArbitraryData(pKey.DataName, pValue);
+				return pValue;
+			}
+		}
+	}
+	
+	// Recompute -----------------------------------------------------------------------------------
+	
+	/**
+	 * Performs the task entry again for the code and returns its outputs (see RecomputableData) or null if it fails.
+	 * 
+	 * The entry is performed with a new cursor of the current thread (the cursor in use is restored after) and its
+	 * outputs are kept aside so this product is not changed (it may be frozen or shared). The cursor has its own
+	 * cancellation token as the token of the product stays cancelled once its compilation is stopped.
+	 **/
+	RecomputeDatas recompute(int pFeederIndex, int pCodeIndex, TaskEntry pTE) {
+		CompilationSession TheSession = this.Session;
+		if(TheSession == null) return null;
+		
+		RecomputeDatas      Datas    = new RecomputeDatas();
+		ThreadLocal<Cursor> WCursors = this.ensureWorkerCursors();
+		Cursor              Previous = WCursors.get();
+		Cursor              RCursor  = new Cursor();
+		RCursor.Token = new CancellationToken();
+		WCursors.set(RCursor);
+		try {
+			if(!this.moveToCode(pFeederIndex, pCodeIndex)) return null;
+			if(!TheSession.getCompiler().recomputeCodeTask(this, Datas, pTE, TheSession.getOptions())) return null;
+		} finally {
+			if(Previous == null) WCursors.remove();
+			else                 WCursors.set(Previous);
+		}
+		return Datas;
+	}
+	
+	/** The process data used for recomputing - reads from this product and keeps the outputs aside */
+	final class RecomputeDatas implements ProcessDatas {
+		
+		final HashMap<net.nawaman.task.DataRef, Object> Outputs = new HashMap<net.nawaman.task.DataRef, Object>();
+		
+		/**{@inheritDoc}*/ @Override
+		public boolean contains(net.nawaman.task.DataRef pRef) {
+			return this.Outputs.containsKey(pRef) || CompileProduct.this.contains(pRef);
+		}
+		/**{@inheritDoc}*/ @Override
+		public Object getData(net.nawaman.task.DataRef pRef) {
+			if(this.Outputs.containsKey(pRef)) return this.Outputs.get(pRef);
+			return CompileProduct.this.getData(pRef);
+		}
+		/**{@inheritDoc}*/ @Override
+		public Object setData(net.nawaman.task.DataRef pRef, Object pValue) {
+			this.Outputs.put(pRef, pValue);
+			return pValue;
+		}
+		/**{@inheritDoc}*/ @Override
+		public boolean freeze() {
+			return false;
+		}
+		/**{@inheritDoc}*/ @Override
+		public boolean freezeData(net.nawaman.task.DataRef pRef) {
+			return false;
+		}
+	}
+	
+	/** Freeze that data - Returns if success */
+	@Override public boolean freezeData(net.nawaman.task.DataRef pRef) {
+		if(pRef == null) return false;
+		CompileDataRef Ref = this.getTheRef(pRef);
+		if(Ref == null) return false;
+		return super.freezeData(Ref);
+	}
+	/** Freeze that data - Returns if success */
+	@Override public boolean freezeData(CompileDataRef pRef) {
+		return this.freezeData((net.nawaman.task.DataRef)pRef);
+	}
+
 	/** Get the code data with the name */
 	public Object getCurrentFeederData(String pDataName) {
 		return this.getFeederData(this.getCurrentFeederIndex(), pDataName);
@@ -459,13 +781,14 @@ public class CompileProduct extends CompilationData.Simple implements Compilatio
 				SB.append("\tCode: ");
 				SB.append(CSB);
 				SB.append(" => ");
-				SB.append(this.CodeDatas[i][j].keySet().toString());
+				DataRow Row = this.getCodeDataRow(i, j);
+				SB.append((Row == null)?"[]":Row.toString());
 				SB.append("\n");
 			}
 			SB.append("}");
 		}
 		SB.append("\nArbitrary Datas => ");
-		SB.append((this.AbitaryDataNames == null)?"[]":this.AbitaryDataNames.toString());
+		SB.append((this.AbitaryDatas == null)?"[]":this.AbitaryDatas.toString());
 		SB.append("\n");
 		SB.append("--------------------------------------------------------------------------------------------------");
 		SB.append("\n");
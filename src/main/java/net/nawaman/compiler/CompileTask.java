@@ -36,6 +36,7 @@ public class CompileTask extends TaskForCodeUsingRegParser {
 	
 	/** Performs the task */
 	@Override final public Object[] doTask(CompileProduct pContext, TaskEntry pTE, TaskOptions pOptions, Object[] pIns) {
+		if(pContext.isCancelled()) return null;
 		if(pIns[0] == null) return null;
 		
 		ParseResult PResult = null;
@@ -60,6 +61,7 @@ public class CompileTask extends TaskForCodeUsingRegParser {
 			PResult = (ParseResult)pIns[0];
 		}
 		
+		if(pContext.isCancelled()) return null;
 		Object CResult = this.getParserType().compile(PResult, 0, null, pContext, this.getTypeProvider());
 		
 		// Compile
@@ -18,14 +18,40 @@
 
 package net.nawaman.compiler;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.Vector;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.BooleanSupplier;
 
 import net.nawaman.task.Process;
+import net.nawaman.task.ProcessDatas;
 import net.nawaman.task.TaskEntry;
 
 /**
  * A compiler
+ * 
+ * The state of each compilation is held by its CompilationSession so a compiler can perform many compilations at the
+ * same time.
  *
  * @author Nawapunth Manusitthipol (https://github.com/NawaMan)
  */
@@ -50,11 +76,9 @@ public class Compiler extends Process implements Serializable {
 	
 	/** Returns the array of the task entries */
 	final protected TaskEntry[] getTaskEntries() {
-		if(this.Tasks == null) this.Tasks = this.newTaskEntries();
-		return this.Tasks;
+		return this.newTaskEntries();
 	}
 	
-	TaskEntry[] Tasks;
 	final public int getTaskCount() {
 		return (this.getTaskEntries() == null)?0:this.getTaskEntries().length;
 	}
@@ -68,6 +92,120 @@ public class Compiler extends Process implements Serializable {
 		return (TE == null)?null:(TaskForCompiler)TE.getTask();
 	}
 	
+	// Parallel code task ----------------------------------------------------------------------------------------------
+	
+	transient volatile Executor CodeTaskExecutor    = null;
+	          volatile int      CodeTaskParallelism =    1;
+	
+	/**
+	 * Sets the executor used to perform a parallelizable code task on many codes at the same time.
+	 * 
+	 * pParallelism is the maximum number of codes to be worked on at the same time. Setting the executor to null or the
+	 * parallelism lower than 2 makes all code tasks performed one code at a time.
+	 **/
+	final public void setCodeTaskExecutor(Executor pExecutor, int pParallelism) {
+		this.CodeTaskExecutor    = pExecutor;
+		this.CodeTaskParallelism = (pParallelism < 1)?1:pParallelism;
+	}
+	/** Returns the executor used to perform a parallelizable code task (null if code tasks are performed serially) */
+	final public Executor getCodeTaskExecutor() {
+		return this.CodeTaskExecutor;
+	}
+	/** Returns the maximum number of codes to be worked on at the same time */
+	final public int getCodeTaskParallelism() {
+		return this.CodeTaskParallelism;
+	}
+	
+	// Code-major execution ---------------------------------------------------------------------------------------------
+	
+	volatile boolean IsCodeMajor = false;
+	
+	/**
+	 * Sets if consecutive code task entries are performed code by code.
+	 * 
+	 * By default, a task entry is performed on all the codes before the next entry starts (task-major). In code-major
+	 * mode, each code goes through all the consecutive code task entries before the next code starts so only the data
+	 * of the codes being worked on is in flight. The number of codes worked on at the same time is bounded by the code
+	 * task parallelism (see <code>setCodeTaskExecutor(Executor, int)</code>). When a task entry executor is also set (see
+	 * <code>setTaskEntryExecutor(Executor)</code>), each run of consecutive code task entries is performed code by code
+	 * as one node of the task graph.
+	 **/
+	final public void setCodeMajor(boolean pIsCodeMajor) {
+		this.IsCodeMajor = pIsCodeMajor;
+	}
+	/** Checks if consecutive code task entries are performed code by code */
+	final public boolean isCodeMajor() {
+		return this.IsCodeMajor;
+	}
+	
+	// Task entry scheduling --------------------------------------------------------------------------------------------
+	
+	transient volatile Executor TaskEntryExecutor = null;
+	
+	/**
+	 * Sets the executor used to perform independent task entries at the same time (see TaskGraph).
+	 * 
+	 * Setting the executor to null makes the task entries performed one by one in their declaration order. When code
+	 * tasks are also performed in parallel, the two executors should not be the same bounded pool.
+	 **/
+	final public void setTaskEntryExecutor(Executor pExecutor) {
+		this.TaskEntryExecutor = pExecutor;
+	}
+	/** Returns the executor used to perform independent task entries (null if they are performed one by one) */
+	final public Executor getTaskEntryExecutor() {
+		return this.TaskEntryExecutor;
+	}
+	
+	// Data liveness ---------------------------------------------------------------------------------------------------
+	
+	          volatile boolean      IsDroppingDeadData = false;
+	          volatile Set<String>  ResultDataNames    = new HashSet<String>();
+	transient volatile DataLiveness Liveness           = null;
+	
+	/**
+	 * Sets if the intermediate data are dropped from the compile product once no later task entry uses them.
+	 * 
+	 * An intermediate data is a code or feeder data written by a task entry and read by a later one (see DataLiveness).
+	 * The data with the names marked as results are kept. As the dropped data are not in the product, the data needed
+	 * after the compilation (including by the incremental compilation and the compile cache) should be marked as
+	 * results.
+	 **/
+	final public void setDropDeadData(boolean pIsDroppingDeadData) {
+		this.IsDroppingDeadData = pIsDroppingDeadData;
+	}
+	/** Checks if the intermediate data are dropped once no later task entry uses them */
+	final public boolean isDropDeadData() {
+		return this.IsDroppingDeadData;
+	}
+	/** Marks the data names as results so they are not dropped (a name with a scope prefix marks only that scope) */
+	final public void markResultData(String ... pDataNames) {
+		if(pDataNames == null) return;
+		synchronized(this) {
+			HashSet<String> Names = new HashSet<String>(this.ResultDataNames);
+			for(String DName : pDataNames) {
+				if(DName != null) Names.add(DName);
+			}
+			this.ResultDataNames = Names;
+			this.Liveness        = null;
+		}
+	}
+	/** Returns the data names marked as results */
+	final public Set<String> getResultDataNames() {
+		return Collections.unmodifiableSet(this.ResultDataNames);
+	}
+	/** Returns the liveness of the intermediate data to be dropped (null if no data is to be dropped) */
+	final DataLiveness getDataLiveness() {
+		if(!this.IsDroppingDeadData) return null;
+		DataLiveness TheLiveness = this.Liveness;
+		if(TheLiveness == null) {
+			synchronized(this) {
+				if(this.Liveness == null) this.Liveness = DataLiveness.of(this.getTaskEntries(), this.ResultDataNames);
+				TheLiveness = this.Liveness;
+			}
+		}
+		return TheLiveness.isEmpty()?null:TheLiveness;
+	}
+	
 	// Compilation -----------------------------------------------------------------------------------------------------
 	
 	protected CompileProduct newCompileProduct(CodeFeeders pCodeFeeders, CompilationOptions pOptions) {
@@ -89,21 +227,37 @@ public class Compiler extends Process implements Serializable {
 		return;
 	}
 	
-	private TaskEntry TaskEntryInProgress  = null;
+	/** The session being run by the current thread */
+	static private final ThreadLocal<CompilationSession> ActiveSession = new ThreadLocal<CompilationSession>();
+	
+	/** Makes the session the one run by the current thread - Returns the session it replaces */
+	static private CompilationSession enterSession(CompilationSession pSession) {
+		CompilationSession PrevSession = ActiveSession.get();
+		ActiveSession.set(pSession);
+		return PrevSession;
+	}
+	/** Restores the session run by the current thread (see <code>enterSession(...)</code>) */
+	static private void exitSession(CompilationSession pPrevSession) {
+		if(pPrevSession == null) ActiveSession.remove();
+		else                     ActiveSession.set(pPrevSession);
+	}
+	
+	/** Returns the session of this compiler being run by the current thread */
+	final protected CompilationSession getSessionInProgress() {
+		CompilationSession Session = ActiveSession.get();
+		return ((Session == null) || (Session.getCompiler() != this))?null:Session;
+	}
 	
 	/** Returns the index of task being run */
 	final protected int getTaskNumberInProgress() {
-		TaskEntry[] TEs = this.getTaskEntries();
-		TaskEntry   TE  = this.getTaskEntryInProgress();
-		for(int i = 0; i < TEs.length; i++) {
-			if(TEs[i] == TE) return i;
-		}
-		return -1;
+		CompilationSession Session = this.getSessionInProgress();
+		return (Session == null)?-1:Session.getTaskNumberInProgress();
 	}
 	
 	/** Returns the TaskEntry of task being run */
 	final protected TaskEntry getTaskEntryInProgress() {
-		return this.TaskEntryInProgress;
+		CompilationSession Session = this.getSessionInProgress();
+		return (Session == null)?null:Session.getTaskEntryInProgress();
 	}
 
 	/** Compile from code feeders */
@@ -112,48 +266,749 @@ public class Compiler extends Process implements Serializable {
 	}
 	/** Compile from code feeders */
 	final public CompileProduct compile(CodeFeeders pCodeFeeders, CompilationOptions pOptions) {
+		CompilationSession Session = this.newSession(pCodeFeeders, pOptions);
+		if(Session == null) return null;
+		return this.compile(Session);
+	}
+	
+	/** Creates a new session for compiling the code feeders (null if this compiler has no task) */
+	final public CompilationSession newSession(CodeFeeders pCodeFeeders, CompilationOptions pOptions) {
+		return this.newSession(pCodeFeeders, pOptions, null);
+	}
+	/**
+	 * Creates a new session for compiling the code feeders (null if this compiler has no task).
+	 * 
+	 * If pOptionData is not null, it holds the data already set from the options (see <code>newOptionData(...)</code>)
+	 * and its arbitrary data are shared (copy-on-write) instead of being set again.
+	 **/
+	private CompilationSession newSession(CodeFeeders pCodeFeeders, CompilationOptions pOptions,
+			CompileProduct pOptionData) {
 		if(this.getTaskEntries() == null) return null;
 		CompileProduct Context = this.newCompileProduct(pCodeFeeders, pOptions);
-		this.setCompileProductDataFromOption(Context, pOptions);
+		if(this.Spill != null) Context.setDataSpill(this.Spill);
+		if(pOptionData == null) this.setCompileProductDataFromOption(Context, pOptions);
+		else                    Context.shareArbitraryDataOf(pOptionData);
+		return new CompilationSession(this, Context, pOptions);
+	}
+	/** Checks for each class of compiler if it overrides setCompileProductDataFromOption(...) */
+	static private final ClassValue<Boolean> OptionDataOverriders = new ClassValue<Boolean>() {
+		@Override protected Boolean computeValue(Class<?> pClass) {
+			for(Class<?> C = pClass; (C != null) && (C != Compiler.class); C = C.getSuperclass()) {
+				try {
+					C.getDeclaredMethod("setCompileProductDataFromOption", CompileProduct.class, CompilationOptions.class);
+					return true;
+				} catch(NoSuchMethodException E) {}
+			}
+			return false;
+		}
+	};
+	
+	/**
+	 * Creates a compile product with no code holding the data set from the options (shared by the units of a batch).
+	 * 
+	 * Returns null if setCompileProductDataFromOption(...) is overridden as the override may set other data than the
+	 * arbitrary data or read the codes of the product; it is then called for the product of each unit.
+	 **/
+	private CompileProduct newOptionData(CompilationOptions pOptions) {
+		if(OptionDataOverriders.get(this.getClass())) return null;
+		CompileProduct OptionData = this.newCompileProduct(new CodeFeeders(), pOptions);
+		this.setCompileProductDataFromOption(OptionData, pOptions);
+		return OptionData;
+	}
+	
+	/** Compile from code feeders asynchronously using the executor */
+	final public CompletableFuture<CompileProduct> compileAsync(CodeFeeders pCodeFeeders, CompilationOptions pOptions,
+			Executor pExecutor) {
+		return this.compileAsync(pCodeFeeders, pOptions, pExecutor, null);
+	}
+	/**
+	 * Compile from code feeders asynchronously using the executor.
+	 * 
+	 * Cancelling the returned future stops the compilation at the next task entry or the next code. If pTimeout is not
+	 * null, the compilation is stopped the same way once the timeout (counted from this call) is passed and the future
+	 * is completed with a TimeoutException.
+	 **/
+	final public CompletableFuture<CompileProduct> compileAsync(CodeFeeders pCodeFeeders, CompilationOptions pOptions,
+			Executor pExecutor, Duration pTimeout) {
+		if(pExecutor == null) throw new NullPointerException();
 		
-		TaskEntry[] TEs = this.getTaskEntries();
-
+		long                              Deadline = (pTimeout == null)?0:(System.nanoTime() + pTimeout.toNanos());
+		CompletableFuture<CompileProduct> Future   = new CompletableFuture<CompileProduct>();
 		try {
-			for(int i = 0; i < TEs.length; i++) {
-				this.TaskEntryInProgress = TEs[i];
-				if(this.TaskEntryInProgress == null) continue;	// TODOLATER - This should have throw an internal error
-				TaskForCompiler CT = (TaskForCompiler)this.TaskEntryInProgress.getTask();
-				if(CT == null) continue;						// TODOLATER - This should have throw an internal error
-				
-				try { // Perform task base on its kind
-					if(CT.isCompilerTask()) {
-						boolean IsTaskSuccess = this.doCompilerTask(Context, this.TaskEntryInProgress, pOptions);
-						if(IsTaskSuccess && !Context.hasFatalErrMessage()) continue;
-					} else if(CT.isCodeTask()) {
-						boolean IsTaskSuccess = this.doCodeTask(Context, this.TaskEntryInProgress, pOptions);
-						if(IsTaskSuccess && !Context.hasFatalErrMessage()) continue;
-					} else if(CT.isFeederTask()) {
-						boolean IsTaskSuccess = this.doFeederTask(Context, this.TaskEntryInProgress, pOptions);
-						if(IsTaskSuccess && !Context.hasFatalErrMessage()) continue;
+			pExecutor.execute(() -> {
+				if(Future.isDone()) return;
+				try {
+					CompilationSession Session = this.newSession(pCodeFeeders, pOptions);
+					if(Session == null) {
+						Future.complete(null);
+						return;
 					}
-				} catch(Exception E) {
-					Context.reportError(String.format("There is an exception thrown while executing Task #%d.", i), E);
+					if(pTimeout != null) Session.setDeadline(Deadline);
+					
+					// Cancelling the future cancels the compilation
+					Future.whenComplete((P, E) -> { if(Future.isCancelled()) Session.cancel(); });
+					
+					CompileProduct Product = this.compile(Session);
+					if(Session.isAborted() && Session.isDeadlinePassed())
+						 Future.completeExceptionally(new TimeoutException("The compilation has passed its deadline."));
+					else Future.complete(Product);
+				} catch(Throwable T) {
+					Future.completeExceptionally(T);
+				}
+			});
+		} catch(RejectedExecutionException E) {
+			Future.completeExceptionally(E);
+		}
+		return Future;
+	}
+	
+	// Incremental compilation -----------------------------------------------------------------------------------------
+	
+	/**
+	 * Recompile the code feeders reusing the result of the previous compilation.
+	 * 
+	 * The source of each code is fingerprinted. The outputs of the code tasks of a code that has the same fingerprint
+	 * as in the previous product (and its messages) are carried forward and the code tasks are not performed on it.
+	 * Feeder tasks and compiler tasks are always performed. The previous product is used only if it was produced by
+	 * this compiler with the options of the same fingerprint (see <code>getOptionsFingerprint(...)</code>) and its
+	 * compilation finished without a fatal error; otherwise, all the codes are compiled. A code that depends on other
+	 * codes (see <code>TaskForCode.getDependedCodeNames(...)</code>) is reused only if those codes are reused too.
+	 **/
+	final public CompileProduct recompile(CompileProduct pPrevious, CodeFeeders pCodeFeeders,
+			CompilationOptions pOptions) {
+		CompilationSession Session = this.newSession(pCodeFeeders, pOptions);
+		if(Session == null) return null;
+		this.reuseUnchangedCodes(Session, pPrevious);
+		return this.compile(Session);
+	}
+	
+	/** Returns the names of the code data written by the code task entries */
+	final protected Set<String> getCodeTaskOutputNames() {
+		HashSet<String> Names = new HashSet<String>();
+		TaskEntry[]     TEs   = this.getTaskEntries();
+		for(int i = 0; i < ((TEs == null)?0:TEs.length); i++) {
+			TaskEntry TE = TEs[i];
+			if((TE == null) || !(TE.getTask() instanceof TaskForCompiler)) continue;
+			if(!((TaskForCompiler)TE.getTask()).isCodeTask())                continue;
+			for(int o = 0; o < TE.getOutputCount(); o++) {
+				if(!(TE.getOutputRef(o) instanceof DataRef)) continue;
+				String DName = ((DataRef)TE.getOutputRef(o)).getDataName();
+				if((DName != null) && (DName.length() >= 2) && (DName.charAt(1) == '.')) {
+					if(DName.charAt(0) != 'C') continue;	// Feeder or arbitrary data
+					DName = DName.substring(2);
+				}
+				if(DName != null) Names.add(DName);
+			}
+		}
+		Names.remove(CodeFeeders.DataName_Code);
+		Names.remove(CodeFeeders.DataName_SourceCode);
+		Names.remove(CodeFeeders.DataName_Fingerprint);
+		return Names;
+	}
+	
+	/** Carries forward the code task outputs of the unchanged codes - Returns the number of codes reused */
+	final protected int reuseUnchangedCodes(CompilationSession pSession, CompileProduct pPrevious) {
+		CompileProduct Context = pSession.getCompileProduct();
+		
+		// Ensure the previous product is usable
+		if((pPrevious == null) || (pPrevious == Context))                                      return 0;
+		if((pPrevious.getSession() == null) || (pPrevious.getSession().getCompiler() != this)) return 0;
+		if(pPrevious.getSession().isAborted() || pPrevious.hasFatalErrMessage())               return 0;
+		if(pPrevious.getSession().getOptionsFingerprint() != pSession.getOptionsFingerprint()) return 0;
+		
+		// Find the unchanged codes
+		int         FCount    = Context.getFeederCount();
+		boolean[][] Reusables = new boolean[FCount][];
+		boolean     IsAllSame = (FCount == pPrevious.getFeederCount());
+		for(int f = 0; f < FCount; f++) {
+			Reusables[f] = new boolean[Math.max(0, Context.getCodeCount(f))];
+			
+			// The feeder must be the same one
+			CodeFeeder CF     = (CodeFeeder)Context.getFeederData(f, CodeFeeders.DataName_Feeder);
+			CodeFeeder PrevCF = (f >= pPrevious.getFeederCount())
+			                  ? null
+			                  : (CodeFeeder)pPrevious.getFeederData(f, CodeFeeders.DataName_Feeder);
+			if((CF == null) || (PrevCF == null) || !CF.getFeederName().equals(PrevCF.getFeederName())) {
+				IsAllSame = false;
+				continue;
+			}
+			if(Context.getCodeCount(f) != pPrevious.getCodeCount(f)) IsAllSame = false;
+			
+			for(int c = 0; c < Reusables[f].length; c++) {
+				String CName    = Context.getCodeName(f, c);
+				Code   PrevCode = (Code)pPrevious.getCodeData(f, CName, CodeFeeders.DataSlot_Code);
+				if(PrevCode == null) {
+					IsAllSame = false;
+					continue;
+				}
+				
+				Object PrevFPrint = pPrevious.getCodeData(f, CName, CodeFeeders.DataSlot_Fingerprint);
+				long   FPrint     = this.getCodeFingerprint(Context, f, CName);
+				if(PrevFPrint == null) PrevFPrint = PrevCode.getFingerprint();
+				Reusables[f][c] = PrevFPrint.equals(FPrint);
+				if(!Reusables[f][c]) IsAllSame = false;
+			}
+		}
+		
+		// Codes that depend on a code that is not reused cannot be reused
+		if(!IsAllSame) this.dropDependentReusables(Context, pPrevious, Reusables);
+		
+		// Carry forward the outputs
+		Set<String> ONames = this.getCodeTaskOutputNames();
+		int         Count  = 0;
+		for(int f = 0; f < FCount; f++) {
+			for(int c = 0; c < Reusables[f].length; c++) {
+				if(!Reusables[f][c]) continue;
+				String CName = Context.getCodeName(f, c);
+				for(String OName : ONames) {
+					Object Value = pPrevious.getCodeData(f, CName, OName);
+					if(Value != null) Context.setCodeData(f, CName, OName, Value);
+				}
+				pSession.setCodeReused(f, c);
+				Count++;
+			}
+		}
+		
+		// Carry forward the messages of the reused codes
+		for(int i = 0; i < pPrevious.getMessageCount(); i++) {
+			CompilerMessage Message = pPrevious.getMessage(i);
+			int             FIndex  = Message.getCodeFeederIndex();
+			String          CName   = Message.getCodeName();
+			if(CName == null) continue;
+			for(int c = Context.getCodeCount(FIndex); --c >= 0; ) {
+				if(pSession.isCodeReused(FIndex, c) && CName.equals(Context.getCodeName(FIndex, c))) {
+					Context.reportMessage(Message);
 					break;
 				}
-				break;
 			}
+		}
+		
+		return Count;
+	}
+	
+	/**
+	 * Unmarks the reusable codes that depend (directly or not) on a code that is not reusable. The depended codes are
+	 * asked from the tasks with the product holding the outputs to be reused (pPrevious).
+	 **/
+	private void dropDependentReusables(CompileProduct pContext, CompileProduct pPrevious, boolean[][] pReusables) {
+		// The code task entries
+		Vector<TaskForCode> CTasks = new Vector<TaskForCode>();
+		TaskEntry[]         TEs    = this.getTaskEntries();
+		for(int i = 0; i < ((TEs == null)?0:TEs.length); i++) {
+			if((TEs[i] != null) && (TEs[i].getTask() instanceof TaskForCode)) CTasks.add((TaskForCode)TEs[i].getTask());
+		}
+		if(CTasks.size() == 0) return;
+		
+		// The indexes of the codes each reusable code depends on (null if it may depend on any code)
+		int[][][] Dependencies = new int[pReusables.length][][];
+		for(int f = 0; f < pReusables.length; f++) {
+			Dependencies[f] = new int[pReusables[f].length][];
+			for(int c = 0; c < pReusables[f].length; c++) {
+				if(!pReusables[f][c]) continue;
+				
+				String           CName   = pContext.getCodeName(f, c);
+				HashSet<Integer> Indexes = new HashSet<Integer>();
+				for(TaskForCode CTask : CTasks) {
+					String[] DNames = CTask.getDependedCodeNames(pPrevious, f, CName);
+					if(DNames == null) {
+						Indexes = null;
+						break;
+					}
+					for(String DName : DNames) Indexes.add(pContext.getCodeIndex(f, DName));
+				}
+				
+				if(Indexes == null) {
+					// Depending on any code while some code is not reusable
+					pReusables[f][c] = false;
+					continue;
+				}
+				int[] DIndexes = new int[Indexes.size()];
+				int   d        = 0;
+				for(Integer Index : Indexes) DIndexes[d++] = Index;
+				Dependencies[f][c] = DIndexes;
+			}
+		}
+		
+		// Propagate until nothing changes
+		boolean IsChanged = true;
+		while(IsChanged) {
+			IsChanged = false;
+			for(int f = 0; f < pReusables.length; f++) {
+				for(int c = 0; c < pReusables[f].length; c++) {
+					if(!pReusables[f][c]) continue;
+					for(int DIndex : Dependencies[f][c]) {
+						if((DIndex != -1) && pReusables[f][DIndex]) continue;
+						// The code depends on a code that is not reused (or no longer exists)
+						pReusables[f][c] = false;
+						IsChanged        = true;
+						break;
+					}
+				}
+			}
+		}
+	}
+	
+	/** Returns the fingerprint of the code source (the fingerprint is kept as a code data once calculated) */
+	final protected long getCodeFingerprint(CompileProduct pContext, int pFeederIndex, String pCodeName) {
+		Object FPrint = pContext.getCodeData(pFeederIndex, pCodeName, CodeFeeders.DataSlot_Fingerprint);
+		if(FPrint instanceof Long) return (Long)FPrint;
+		
+		Code TheCode = (Code)pContext.getCodeData(pFeederIndex, pCodeName, CodeFeeders.DataSlot_Code);
+		long Value   = (TheCode == null)?0:TheCode.getFingerprint();
+		pContext.setCodeData(pFeederIndex, pCodeName, CodeFeeders.DataSlot_Fingerprint, Value);
+		return Value;
+	}
+	
+	/**
+	 * Returns the fingerprint of the options (and the data they set to the compile product).
+	 * 
+	 * The outputs of a previous compilation are reused only when they were produced with options of the same
+	 * fingerprint. For CompilationOptions.Simple, the names and the values of its data are fingerprinted (a value that
+	 * is not serializable is fingerprinted by its class and string). A compiler that overrides
+	 * <code>setCompileProductDataFromOption(...)</code> to take other things from the options should mix them in.
+	 **/
+	protected long getOptionsFingerprint(CompilationOptions pOptions) {
+		if(pOptions == null) return 0;
+		
+		StringBuilder SB = new StringBuilder(pOptions.getClass().getName());
+		if(pOptions instanceof CompilationOptions.Simple) {
+			CompilationOptions.Simple SOptions = (CompilationOptions.Simple)pOptions;
+			Set<String>               DNames   = SOptions.getDataNames();
+			if(DNames != null) {
+				for(String DName : new TreeSet<String>(DNames)) {
+					SB.append('\n').append(DName).append('=');
+					SB.append(Long.toHexString(FingerprintOfValue(SOptions.getData(DName))));
+				}
+			}
+		} else SB.append(':').append(Long.toHexString(FingerprintOfValue(pOptions)));
+		return Code.FingerprintOf(SB);
+	}
+	
+	/** Returns the fingerprint of the value (of its serialized form or of its class and string if it is not serializable) */
+	static long FingerprintOfValue(Object pValue) {
+		if(pValue == null) return 0;
+		if(pValue instanceof Serializable) {
+			try {
+				ByteArrayOutputStream BAOS = new ByteArrayOutputStream();
+				try(ObjectOutputStream OOS = new ObjectOutputStream(BAOS)) {
+					OOS.writeObject(pValue);
+				}
+				long Hash = 0xcbf29ce484222325L;
+				for(byte B : BAOS.toByteArray()) {
+					Hash ^= (B & 0xFF);
+					Hash *= 0x100000001b3L;
+				}
+				return Hash;
+			} catch(IOException E) {
+				// Fall back to the string
+			}
+		}
+		return Code.FingerprintOf(pValue.getClass().getName() + ":" + pValue);
+	}
+	
+	// Data spill ------------------------------------------------------------------------------------------------------
+	
+	transient volatile DataSpill Spill = null;
+	
+	/** Sets the spill tier that moves cold code data of the compile products out of the heap (null for none) */
+	final public void setDataSpill(DataSpill pSpill) {
+		this.Spill = pSpill;
+	}
+	/** Returns the spill tier of the compile products */
+	final public DataSpill getDataSpill() {
+		return this.Spill;
+	}
+	
+	// Compile cache ---------------------------------------------------------------------------------------------------
+	
+	transient volatile CompileCache Cache               = null;
+	transient volatile Long         PipelineFingerprint = null;
+	          volatile String       PipelineVersion     = null;
+	
+	/** Sets the persistent cache of the code task outputs (null for no cache) */
+	final public void setCompileCache(CompileCache pCache) {
+		this.Cache = pCache;
+	}
+	/** Returns the persistent cache of the code task outputs */
+	final public CompileCache getCompileCache() {
+		return this.Cache;
+	}
+	
+	/**
+	 * Sets the version of the task pipeline mixed into the pipeline fingerprint.
+	 * 
+	 * The fingerprint of a task only covers what can be seen from the outside (see
+	 * <code>TaskForCompiler.getFingerprint()</code>), so the version should be changed whenever the implementation of
+	 * the tasks changes what they produce (e.g., a bug fix). This drops the outputs cached by the older version.
+	 **/
+	final public void setPipelineVersion(String pVersion) {
+		this.PipelineVersion     = pVersion;
+		this.PipelineFingerprint = null;
+	}
+	/** Returns the version of the task pipeline (null if none is set) */
+	final public String getPipelineVersion() {
+		return this.PipelineVersion;
+	}
+	
+	/** Returns the fingerprint of the task pipeline (the version, the tasks and the names of their data) */
+	final public long getPipelineFingerprint() {
+		Long FPrint = this.PipelineFingerprint;
+		if(FPrint != null) return FPrint;
+		
+		StringBuilder SB  = new StringBuilder(this.getClass().getName());
+		String        Ver = this.PipelineVersion;
+		if(Ver != null) SB.append('@').append(Ver);
+		TaskEntry[]   TEs = this.getTaskEntries();
+		for(int i = 0; i < ((TEs == null)?0:TEs.length); i++) {
+			TaskEntry TE = TEs[i];
+			SB.append("\n#").append(i);
+			if(TE == null) continue;
+			if(TE.getTask() instanceof TaskForCompiler)
+				 SB.append(':').append(Long.toHexString(((TaskForCompiler)TE.getTask()).getFingerprint()));
+			else SB.append(':').append(TE.getTask());
+			for(int d = 0; d < TE.getInputCount();  d++) SB.append(" <").append(TE.getInputRef(d));
+			for(int d = 0; d < TE.getOutputCount(); d++) SB.append(" >").append(TE.getOutputRef(d));
+		}
+		FPrint = Code.FingerprintOf(SB);
+		this.PipelineFingerprint = FPrint;
+		return FPrint;
+	}
+	
+	/**
+	 * Loads the code task outputs of the codes found in the cache - Returns the number of codes loaded.
+	 * 
+	 * The outputs are cached by the source of their code only so, once all the hits are loaded, a hit that depends on
+	 * a code that is not loaded nor reused (see <code>TaskForCode.getDependedCodeNames(...)</code>) is unloaded and the
+	 * code is compiled again.
+	 **/
+	final protected int loadCachedCodes(CompilationSession pSession, CompileCache pCache) {
+		CompileProduct Context = pSession.getCompileProduct();
+		long           PFPrint = this.getPipelineFingerprint();
+		long           OFPrint = pSession.getOptionsFingerprint();
+		
+		// Load all the hits
+		int         FCount      = Context.getFeederCount();
+		boolean[][] Hits        = new boolean[FCount][];
+		boolean[][] Usables     = new boolean[FCount][];
+		boolean     IsAllUsable = true;
+		for(int f = 0; f < FCount; f++) {
+			Hits[f]    = new boolean[Math.max(0, Context.getCodeCount(f))];
+			Usables[f] = new boolean[Hits[f].length];
+			for(int c = 0; c < Hits[f].length; c++) {
+				if(pSession.isCodeReused(f, c)) {
+					Usables[f][c] = true;
+					continue;
+				}
+				
+				String              CName   = Context.getCodeName(f, c);
+				Map<String, Object> Outputs = pCache.load(PFPrint, OFPrint, CName, this.getCodeFingerprint(Context, f, CName));
+				if(Outputs == null) {
+					IsAllUsable = false;
+					continue;
+				}
+				
+				for(Map.Entry<String, Object> Output : Outputs.entrySet())
+					Context.setCodeData(f, CName, Output.getKey(), Output.getValue());
+				Hits[f][c] = Usables[f][c] = true;
+			}
+		}
+		
+		// Hits that depend on a code compiled now are stale
+		if(!IsAllUsable) this.dropDependentReusables(Context, Context, Usables);
+		
+		Set<String> ONames = null;
+		int         Count  = 0;
+		for(int f = 0; f < FCount; f++) {
+			for(int c = 0; c < Hits[f].length; c++) {
+				if(!Hits[f][c]) continue;
+				if(Usables[f][c]) {
+					pSession.setCodeReused(f, c);
+					Count++;
+					continue;
+				}
+				
+				// Unload the stale hit
+				if(ONames == null) ONames = this.getCodeTaskOutputNames();
+				for(String OName : ONames) {
+					int Slot = DataSlots.findSlot(OName);
+					if(Slot != -1) Context.removeCodeData(f, c, Slot);
+				}
+			}
+		}
+		return Count;
+	}
+	
+	/**
+	 * Stores the code task outputs of the compiled codes to the cache - Returns the number of codes stored.
+	 * 
+	 * Only the codes that have no message are stored as the messages are not cached.
+	 **/
+	final protected int storeCachedCodes(CompilationSession pSession, CompileCache pCache) {
+		CompileProduct Context = pSession.getCompileProduct();
+		long           PFPrint = this.getPipelineFingerprint();
+		long           OFPrint = pSession.getOptionsFingerprint();
+		Set<String>    ONames  = this.getCodeTaskOutputNames();
+		
+		// Codes with messages
+		HashSet<String> WithMessages = new HashSet<String>();
+		for(int i = 0; i < Context.getMessageCount(); i++) {
+			CompilerMessage Message = Context.getMessage(i);
+			if(Message.getCodeName() != null) WithMessages.add(Message.getCodeFeederIndex() + ":" + Message.getCodeName());
+		}
+		
+		int Count = 0;
+		for(int f = 0; f < Context.getFeederCount(); f++) {
+			for(int c = 0; c < Context.getCodeCount(f); c++) {
+				if(pSession.isCodeReused(f, c)) continue;
+				
+				String CName = Context.getCodeName(f, c);
+				if(WithMessages.contains(f + ":" + CName)) continue;
+				
+				HashMap<String, Object> Outputs = new HashMap<String, Object>();
+				for(String OName : ONames) {
+					Object Value = Context.getCodeData(f, CName, OName);
+					if(Value != null) Outputs.put(OName, Value);
+				}
+				if(pCache.store(PFPrint, OFPrint, CName, this.getCodeFingerprint(Context, f, CName), Outputs)) Count++;
+			}
+		}
+		return Count;
+	}
+	
+	/** Checks if the current code of the compile product is carried forward from a previous compilation */
+	private boolean isCurrentCodeReused(CompileProduct pContext) {
+		CompilationSession Session = pContext.getSession();
+		return (Session != null) && (Session.ReusedCodes != null)
+		    && Session.isCodeReused(pContext.getCurrentFeederIndex(), pContext.getCurrentCodeIndex());
+	}
+	
+	/** Compile many independent code feeders using the common fork-join pool */
+	final public CompilationBatch compileAll(List<CodeFeeders> pCodeFeeders) {
+		return this.compileAll(pCodeFeeders, null, ForkJoinPool.commonPool());
+	}
+	/**
+	 * Compile many independent code feeders using the executor.
+	 * 
+	 * Each CodeFeeders is compiled as its own session so the units share only the task entries (and their warmed
+	 * parsers) of this compiler. The data from the options are set once for the batch and shared by the units
+	 * (copy-on-write) unless <code>setCompileProductDataFromOption(...)</code> is overridden (it is then called for
+	 * each unit). The products are returned in the order of the code feeders. A unit that throws an exception has
+	 * no product and its exception is kept in the batch (see <code>CompilationBatch.getFailure(int)</code>) without
+	 * affecting the other units.
+	 **/
+	final public CompilationBatch compileAll(List<CodeFeeders> pCodeFeeders, CompilationOptions pOptions,
+			Executor pExecutor) {
+		if(pCodeFeeders == null) throw new NullPointerException();
+		if(pExecutor    == null) throw new NullPointerException();
+		
+		long StartTime = System.nanoTime();
+		
+		int                    Count      = pCodeFeeders.size();
+		CompileProduct[]       Products   = new CompileProduct[Count];
+		Throwable[]            Failures   = new Throwable[Count];
+		CompletableFuture<?>[] Units      = new CompletableFuture<?>[Count];
+		CompileProduct         OptionData = (this.getTaskEntries() == null)?null:this.newOptionData(pOptions);
+		for(int i = 0; i < Count; i++) {
+			int         Index = i;
+			CodeFeeders CFs   = pCodeFeeders.get(i);
+			Units[i] = CompletableFuture.runAsync(() -> {
+				try {
+					CompilationSession Session = this.newSession(CFs, pOptions, OptionData);
+					if(Session != null) Products[Index] = this.compile(Session);
+				} catch(RuntimeException E) {
+					Failures[Index] = E;
+				}
+			}, pExecutor);
+		}
+		
+		try {
+			CompletableFuture.allOf(Units).join();
+		} catch(CompletionException E) {
+			Throwable Cause = E.getCause();
+			if(Cause instanceof RuntimeException) throw (RuntimeException)Cause;
+			if(Cause instanceof Error)            throw (Error)Cause;
+			throw new CompilationException("There is a problem compiling the batch.", Cause);
+		}
+		return new CompilationBatch(Products, Failures, System.nanoTime() - StartTime);
+	}
+	
+	/** Performs the compilation of the session */
+	final public CompileProduct compile(CompilationSession pSession) {
+		if(pSession == null) throw new NullPointerException();
+		if(pSession.getCompiler() != this)
+			throw new IllegalArgumentException("The session does not belong to this compiler.");
+		
+		CompileProduct     Context  = pSession.getCompileProduct();
+		CompilationOptions pOptions = pSession.getOptions();
+		
+		TaskEntry[] TEs         = this.getTaskEntries();
+		Executor    TheExecutor = this.TaskEntryExecutor;
+		
+		CompileCache TheCache = this.Cache;
+		
+		DataLiveness TheLiveness = this.getDataLiveness();
+		
+		CompilationSession PrevSession = enterSession(pSession);
+		try {
+			if(TheCache != null) this.loadCachedCodes(pSession, TheCache);
+			
+			boolean IsAllDone = false;
+			if((TheExecutor != null) && (TEs.length > 1)) {
+				IsAllDone = this.doTaskEntriesByGraph(pSession, TEs, TheExecutor, TheLiveness);
+			} else {
+				boolean IsCodeMajor = this.IsCodeMajor;
+				int     i           = 0;
+				for(; i < TEs.length; i++) {
+					if(pSession.isCancelled()) break;
+					Context.setTaskIndexInProgress(i);
+					
+					int End = IsCodeMajor ? this.getCodeTaskRunEnd(TEs, i) : i;
+					if((End - i) > 1) {
+						if(!this.doCodeTasksByCode(pSession, TEs, i, End, TheLiveness)) break;
+						for(int t = i; (TheLiveness != null) && (t < End); t++) TheLiveness.dropDeadData(Context, t);
+						i = End - 1;
+						continue;
+					}
+					
+					if(!this.doTaskEntry(Context, TEs[i], i, pOptions)) break;
+					if(TheLiveness != null) TheLiveness.dropDeadData(Context, i);
+				}
+				IsAllDone = (i >= TEs.length);
+			}
+			
+			// Report the cancellation
+			CancellationToken Token = pSession.getCancellationToken();
+			if(!IsAllDone && Token.isCancelled() && !Token.isCancelledByFatalError()) {
+				pSession.IsAborted = true;
+				Context.reportFatalError(Token.getReason(), null);
+			}
+			
+			if((TheCache != null) && IsAllDone && !Context.hasFatalErrMessage()) this.storeCachedCodes(pSession, TheCache);
 		} finally {
-			this.TaskEntryInProgress = null;
+			Context.setTaskIndexInProgress(-1);
+			exitSession(PrevSession);
 		}
 		return Context;
 	}
 	
+	/** Performs the task entry - Returns if the compilation should continue to the next task entry */
+	final protected boolean doTaskEntry(CompileProduct pContext, TaskEntry pTE, int pIndex, CompilationOptions pOptions) {
+		if(pTE == null) return true;	// TODOLATER - This should have throw an internal error
+		TaskForCompiler CT = (TaskForCompiler)pTE.getTask();
+		if(CT == null)  return true;	// TODOLATER - This should have throw an internal error
+		
+		try { // Perform task base on its kind
+			if(CT.isCompilerTask()) {
+				boolean IsTaskSuccess = this.doCompilerTask(pContext, pTE, pOptions);
+				if(IsTaskSuccess && !pContext.hasFatalErrMessage()) return true;
+			} else if(CT.isCodeTask()) {
+				boolean IsTaskSuccess = this.doCodeTask(pContext, pTE, pOptions);
+				if(IsTaskSuccess && !pContext.hasFatalErrMessage()) return true;
+			} else if(CT.isFeederTask()) {
+				boolean IsTaskSuccess = this.doFeederTask(pContext, pTE, pOptions);
+				if(IsTaskSuccess && !pContext.hasFatalErrMessage()) return true;
+			}
+		} catch(CancellationException E) {
+			// The task stops because the compilation is cancelled
+		} catch(Exception E) {
+			pContext.reportError(String.format("There is an exception thrown while executing Task #%d.", pIndex), E);
+		}
+		return false;
+	}
+	
+	/**
+	 * Performs the task entries following their dependency graph (see TaskGraph).
+	 * 
+	 * A task entry is started as soon as all the entries it depends on are done so independent entries are performed at
+	 * the same time. Each entry iterates the compile product with its own cursor. Once an entry fails, no more entry
+	 * will be started but the entries already started are allowed to finish. In code-major mode, each run of
+	 * consecutive code task entries is one node that depends on what any of its entries depends on.
+	 * 
+	 * Returns if all the entries are done successfully.
+	 **/
+	final protected boolean doTaskEntriesByGraph(CompilationSession pSession, TaskEntry[] pTEs, Executor pExecutor) {
+		return this.doTaskEntriesByGraph(pSession, pTEs, pExecutor, null);
+	}
+	/** Performs the task entries following their dependency graph dropping the data once they are dead */
+	final boolean doTaskEntriesByGraph(CompilationSession pSession, TaskEntry[] pTEs, Executor pExecutor,
+			DataLiveness pLiveness) {
+		CompileProduct     Context  = pSession.getCompileProduct();
+		CompilationOptions pOptions = pSession.getOptions();
+		TaskGraph          Graph    = TaskGraph.of(pTEs);
+		AtomicBoolean      IsFailed = new AtomicBoolean(false);
+		AtomicIntegerArray Users    = (pLiveness == null)?null:pLiveness.newUserCounters();
+		
+		boolean            IsCodeMajor = this.IsCodeMajor;
+		
+		@SuppressWarnings("unchecked")
+		CompletableFuture<Void>[] Dones = new CompletableFuture[pTEs.length];
+		for(int i = 0; i < pTEs.length; i++) {
+			// The node performs the entries from Start to before End
+			int Start = i;
+			int End   = IsCodeMajor ? Math.max(i + 1, this.getCodeTaskRunEnd(pTEs, i)) : (i + 1);
+			
+			// The node depends on the nodes before it that any of its entries depends on
+			boolean[] IsDepended = new boolean[Start];
+			int       DCount     = 0;
+			for(int t = Start; t < End; t++) {
+				for(int d : Graph.getDependencies(t)) {
+					if((d >= Start) || IsDepended[d]) continue;
+					IsDepended[d] = true;
+					DCount++;
+				}
+			}
+			CompletableFuture<?>[] Depends = new CompletableFuture<?>[DCount];
+			for(int d = 0, n = 0; d < Start; d++) {
+				if(IsDepended[d]) Depends[n++] = Dones[d];
+			}
+			
+			CompletableFuture<Void> Done = CompletableFuture.allOf(Depends).thenRunAsync(() -> {
+				if(IsFailed.get()) return;
+				if(pSession.isCancelled()) {
+					IsFailed.set(true);
+					return;
+				}
+				CompilationSession PrevSession = enterSession(pSession);
+				Context.startWorkerCursor(Start);
+				try {
+					boolean IsDone = ((End - Start) > 1)
+					               ? this.doCodeTasksByCode(pSession, pTEs, Start, End, null)
+					               : this.doTaskEntry(Context, pTEs[Start], Start, pOptions);
+					if(!IsDone) IsFailed.set(true);
+					else {
+						for(int t = Start; (pLiveness != null) && (t < End); t++) pLiveness.dropDeadData(Context, t, Users);
+					}
+				} finally {
+					Context.endWorkerCursor();
+					exitSession(PrevSession);
+				}
+			}, pExecutor);
+			for(int t = Start; t < End; t++) Dones[t] = Done;
+			i = End - 1;
+		}
+		
+		try {
+			CompletableFuture.allOf(Dones).join();
+		} catch(CompletionException E) {
+			Throwable Cause = E.getCause();
+			if(Cause instanceof RuntimeException) throw (RuntimeException)Cause;
+			if(Cause instanceof Error)            throw (Error)Cause;
+			throw new CompilationException("There is a problem performing the task entries.", Cause);
+		}
+		return !IsFailed.get();
+	}
+	
 	/** Do task for the compile task */
 	final protected boolean doCompilerTask(CompileProduct pContext, TaskEntry pTE, CompilationOptions pOptions) {
 		return this.doTask(pContext, pContext, pTE, pOptions);
 	}
 	/** Do task for the compile task */
 	final protected boolean doCodeTask(CompileProduct pContext, TaskEntry pTE, CompilationOptions pOptions) {
+		Executor TheExecutor = this.CodeTaskExecutor;
+		if((TheExecutor != null) && (this.CodeTaskParallelism > 1)
+		&& (pTE.getTask() instanceof TaskForCode) && ((TaskForCode)pTE.getTask()).isParallelizable())
+			return this.doCodeTaskInParallel(pContext, pTE, pOptions, TheExecutor, this.CodeTaskParallelism);
+		
 		if(!pContext.startCode()) {
 			// TODELETE No report any more since there is nothing wrong with having no code to compile  
 			// Report error
@@ -161,11 +1016,156 @@ public class Compiler extends Process implements Serializable {
 			return false;
 		}
 		do {
+			if(pContext.isCancelled())             return false;
+			if(this.isCurrentCodeReused(pContext)) continue;
 			// Perform the task
 			if(!this.doTask(pContext, pContext, pTE, pOptions)) return false;
 		} while(pContext.nextCode());
 		return true;
 	}
+	/** Performs the task entry again for the current code of the context with the datas (see RecomputableData) */
+	final boolean recomputeCodeTask(CompileProduct pContext, ProcessDatas pDatas, TaskEntry pTE,
+			CompilationOptions pOptions) {
+		return this.doTask(pContext, pDatas, pTE, pOptions);
+	}
+	/**
+	 * Do task for the compile task on many codes at the same time.
+	 * 
+	 * Each worker takes the next code that has not been worked on and performs the task using its own cursor of the
+	 * compile product. Once the task fails on a code, no more code will be taken.
+	 **/
+	final protected boolean doCodeTaskInParallel(CompileProduct pContext, TaskEntry pTE, CompilationOptions pOptions,
+			Executor pExecutor, int pParallelism) {
+		return this.doOnCodesInParallel(pContext, pExecutor, pParallelism,
+				() -> this.doTask(pContext, pContext, pTE, pOptions));
+	}
+	
+	/**
+	 * Do the work on each code using many workers.
+	 * 
+	 * Each worker takes the next code that has not been worked on, moves its own cursor of the compile product to the
+	 * code and does the work. Once the work fails on a code, no more code will be taken.
+	 **/
+	private boolean doOnCodesInParallel(CompileProduct pContext, Executor pExecutor, int pParallelism,
+			BooleanSupplier pWork) {
+		if(pContext.getFeederCount() == 0) return false;
+		
+		// Collect all the codes
+		int CodeCount = 0;
+		for(int f = pContext.getFeederCount(); --f >= 0; ) CodeCount += Math.max(0, pContext.getCodeCount(f));
+		if(CodeCount == 0) return true;
+		
+		int[] FIndexes = new int[CodeCount];
+		int[] CIndexes = new int[CodeCount];
+		int   Index    = 0;
+		for(int f = 0; f < pContext.getFeederCount(); f++) {
+			for(int c = 0; c < pContext.getCodeCount(f); c++) {
+				FIndexes[Index] = f;
+				CIndexes[Index] = c;
+				Index++;
+			}
+		}
+		
+		AtomicInteger      Next      = new AtomicInteger(0);
+		AtomicBoolean      IsFailed  = new AtomicBoolean(false);
+		CompilationSession Session   = pContext.getSession();
+		int                TaskIndex = pContext.getTaskIndexInProgress();
+		
+		int                    WorkerCount = Math.min(pParallelism, CodeCount);
+		CompletableFuture<?>[] Workers     = new CompletableFuture<?>[WorkerCount];
+		for(int w = 0; w < WorkerCount; w++) {
+			Workers[w] = CompletableFuture.runAsync(() -> {
+				CompilationSession PrevSession = enterSession(Session);
+				pContext.startWorkerCursor(TaskIndex);
+				try {
+					int I;
+					while(!IsFailed.get() && !pContext.isCancelled() && ((I = Next.getAndIncrement()) < FIndexes.length)) {
+						if(!pContext.moveToCode(FIndexes[I], CIndexes[I])) continue;
+						if(this.isCurrentCodeReused(pContext))              continue;
+						if(!pWork.getAsBoolean()) IsFailed.set(true);
+					}
+				} catch(RuntimeException E) {
+					IsFailed.set(true);
+					throw E;
+				} finally {
+					pContext.endWorkerCursor();
+					exitSession(PrevSession);
+				}
+			}, pExecutor);
+		}
+		
+		try {
+			CompletableFuture.allOf(Workers).join();
+		} catch(CompletionException E) {
+			Throwable Cause = E.getCause();
+			if(Cause instanceof RuntimeException) throw (RuntimeException)Cause;
+			if(Cause instanceof Error)            throw (Error)Cause;
+			throw new CompilationException("There is a problem performing a code task in parallel.", Cause);
+		}
+		return !IsFailed.get() && !pContext.isCancelled();
+	}
+	
+	/** Returns the index after the last of the consecutive code task entries starting from the index */
+	final protected int getCodeTaskRunEnd(TaskEntry[] pTEs, int pStart) {
+		int End = pStart;
+		while((End < pTEs.length) && (pTEs[End] != null) && (pTEs[End].getTask() instanceof TaskForCompiler)
+		   && ((TaskForCompiler)pTEs[End].getTask()).isCodeTask())
+			End++;
+		return End;
+	}
+	
+	/**
+	 * Do the consecutive code task entries (from pStart to before pEnd) code by code.
+	 * 
+	 * Each code goes through all the entries before the next code starts. When a code task executor is set and all the
+	 * tasks are parallelizable, up to the code task parallelism codes are worked on at the same time.
+	 **/
+	final protected boolean doCodeTasksByCode(CompilationSession pSession, TaskEntry[] pTEs, int pStart, int pEnd) {
+		return this.doCodeTasksByCode(pSession, pTEs, pStart, pEnd, null);
+	}
+	/** Do the consecutive code task entries code by code dropping the code data once they are dead */
+	final boolean doCodeTasksByCode(CompilationSession pSession, TaskEntry[] pTEs, int pStart, int pEnd,
+			DataLiveness pLiveness) {
+		CompileProduct     Context  = pSession.getCompileProduct();
+		CompilationOptions pOptions = pSession.getOptions();
+		
+		BooleanSupplier Work = () -> {
+			for(int t = pStart; t < pEnd; t++) {
+				if(pSession.isCancelled()) return false;
+				Context.setTaskIndexInProgress(t);
+				try {
+					if(!this.doTask(Context, Context, pTEs[t], pOptions)) return false;
+				} catch(CancellationException E) {
+					return false;
+				} catch(Exception E) {
+					Context.reportError(String.format("There is an exception thrown while executing Task #%d.", t), E);
+					return false;
+				}
+				if(Context.hasFatalErrMessage()) return false;
+			}
+			if(pLiveness != null) {
+				int FIndex = Context.getCurrentFeederIndex();
+				int CIndex = Context.getCurrentCodeIndex();
+				pLiveness.dropDeadCodeData(Context, FIndex, CIndex, pStart, pEnd);
+			}
+			return true;
+		};
+		
+		Executor TheExecutor = this.CodeTaskExecutor;
+		boolean  IsParallel  = (TheExecutor != null) && (this.CodeTaskParallelism > 1);
+		for(int t = pStart; IsParallel && (t < pEnd); t++) {
+			IsParallel = (pTEs[t].getTask() instanceof TaskForCode) && ((TaskForCode)pTEs[t].getTask()).isParallelizable();
+		}
+		if(IsParallel) return this.doOnCodesInParallel(Context, TheExecutor, this.CodeTaskParallelism, Work);
+		
+		if(!Context.startCode()) return false;
+		do {
+			if(this.isCurrentCodeReused(Context)) continue;
+			if(!Work.getAsBoolean())              return false;
+		} while(Context.nextCode());
+		return true;
+	}
+	
 	/** Do task for the compile task */
 	final protected boolean doFeederTask(CompileProduct pContext, TaskEntry pTE, CompilationOptions pOptions) {
 		if(!pContext.startFeeder()) {
@@ -175,6 +1175,7 @@ public class Compiler extends Process implements Serializable {
 			return false;
 		}
 		do {
+			if(pContext.isCancelled()) return false;
 			// Perform the task
 			if(!this.doTask(pContext, pContext, pTE, pOptions)) return false;
 		} while(pContext.nextFeeder());
@@ -51,24 +51,96 @@ public class CompilerMessage {
 			if(pPosition >= 0) {
 				this.Position = pPosition;
 				
-				// Get the code and used it to find the column and line number
-				Code Code = (Code)pCProduct.getCodeData(this.FeederIndex, this.CodeName, CodeFeeders.DataName_Code);
-				if(Code != null) this.ColRow = new int[] { Code.getColOf(this.Position), Code.getLineNumberOf(this.Position) };
+				// Keep the code so the column and line number can be found when they are asked for
+				this.Code = (Code)pCProduct.getCodeData(this.FeederIndex, this.CodeName, CodeFeeders.DataSlot_Code);
+				// An editable code may be changed later so they are found now
+				if(this.Code instanceof Code.Editable) this.findColRow();
 			}
 		}
 	}
-	String      Message;
-	Throwable   Cause;
-	MessageKind Kind;
+	
+	/**
+	 * Constructs a problem message that keeps its location and renders its text (in the format understood by
+	 *    CompileProduct.RetrieveXXX(...)) only when the text is asked for.
+	 * 
+	 * The text of a problem in an editable code is rendered right away as the code may be changed before the text is
+	 *    asked for.
+	 **/
+	static CompilerMessage newProblem(MessageKind pKind, String pRawMessage, Throwable pCause, CompileProduct pCProduct,
+			int pPosition) {
+		CompilerMessage CM = new CompilerMessage(pKind, null, pCause, pCProduct, pPosition);
+		CM.RawMessage = pRawMessage;
+		CM.IsProblem  = true;
+		if(pCProduct.isRunning()) {
+			CM.IsLocated = true;
+			CM.Feeder    = pCProduct.getCurrentFeeder();
+			if(pCProduct.isCode() && (CM.Code == null)) CM.Code = pCProduct.getCurrentCode();
+			CM.IsAtCode  = pCProduct.isCode();
+		}
+		if(CM.Code instanceof Code.Editable) {
+			CM.findColRow();
+			CM.Message = CM.renderProblemMessage();
+		}
+		return CM;
+	}
+	
+	volatile String Message;
+	Throwable       Cause;
+	MessageKind     Kind;
 	
 	int    FeederIndex =   -1;
 	String CodeName    = null;
 	int    Position    =   -1;
-	int[]  ColRow      = null;
+	
+	/** The code that originate the problem (used to find the column, the line number and the location text) */
+	Code Code = null;
+	
+	/** The column and the line number (valid once IsColRowFound is set) */
+	int              Col           = -1;
+	int              Row           = -1;
+	volatile boolean IsColRowFound = false;
+	
+	// Deferred problem text -------------------------------------------------------------------------------------------
+	
+	/** The message as reported (without the location) */ String     RawMessage = null;
+	/** Checks if the text is rendered when asked for */   boolean    IsProblem  = false;
+	/** Checks if the problem has a location */            boolean    IsLocated  = false;
+	/** Checks if the problem is located in a code */      boolean    IsAtCode   = false;
+	/** The feeder that originate the problem */           CodeFeeder Feeder     = null;
+	
+	/** Renders the problem message the same way CompileProduct.getProblemMessage(...) does */
+	private String renderProblemMessage() {
+		String Location = null;
+		if(this.IsLocated) {
+			if(this.IsAtCode) {
+				if(this.Code != null)
+					Location = CompileProduct.getLocationAsString(this.Feeder, this.Code, this.Position);
+			} else if(this.Feeder != null)
+				Location = this.Feeder.toString();
+		}
+		return this.RawMessage + ":\nNear " + Location;
+	}
+	
+	/** Returns the kind of the message */
+	public MessageKind getKind() {
+		return this.Kind;
+	}
+	/** Returns the message as reported (without the location of the problem) */
+	public String getRawMessage() {
+		if(this.IsProblem) return this.RawMessage;
+		String Raw = CompileProduct.RetrieveMessage(this.Message);
+		return (Raw != null) ? Raw : this.Message;
+	}
+	/** Returns the code that originate the problem */
+	public Code getCode() {
+		return this.Code;
+	}
 	
 	/** Returns the string message */
 	public String getMessage() {
-		return Message;
+		String Text = this.Message;
+		if((Text == null) && this.IsProblem) this.Message = Text = this.renderProblemMessage();
+		return Text;
 	}
 	/** Returns the cause that generate the message */
 	public Throwable getCause() {
@@ -106,13 +178,37 @@ public class CompilerMessage {
 	public int getPosition() {
 		return this.Position;
 	}
+	/** Sets the column and the line number of the prblem */
+	void setColRow(int pCol, int pRow) {
+		this.Col           = pCol;
+		this.Row           = pRow;
+		this.IsColRowFound = true;	// Publish
+	}
+	/** Finds the column and the line number of the prblem if they are still to be found */
+	private void findColRow() {
+		if(!this.needColRow()) return;
+		Code TheCode = this.Code;
+		int  Pos     = this.Position;
+		if(Pos >= TheCode.getSource().length()) {
+			this.setColRow(-1, -1);
+			return;
+		}
+		int TheRow = TheCode.getLineIndexOf(Pos);
+		this.setColRow(TheCode.getColOf(Pos, TheRow), TheRow);
+	}
+	/** Checks if the column and the line number of the problem are still to be found */
+	boolean needColRow() {
+		return !this.IsColRowFound && (this.Code != null) && (this.Position >= 0);
+	}
 	/** Returns the column number of the prblem */
 	public int getColumnNumber() {
-		return (this.ColRow == null) ? -1 : this.ColRow[0];
+		this.findColRow();
+		return this.IsColRowFound ? this.Col : -1;
 	}
 	/** Returns the line number of the prblem */
 	public int getLineNumber() {
-		return (this.ColRow == null) ? -1 : this.ColRow[1];
+		this.findColRow();
+		return this.IsColRowFound ? this.Row : -1;
 	}
 	
 	/**{@inheritDoc}*/ @Override
@@ -122,9 +218,10 @@ public class CompilerMessage {
 		else if(this.isWarning())    SB.append("Warning: ");
 		else if(this.isError())      SB.append("Error: ");
 		else if(this.isFatalError()) SB.append("Fatal Error: ");
-		SB.append(this.Message);
+		String Message = this.getMessage();
+		SB.append(Message);
 		if(this.Cause != null) {
-			if(!this.Message.endsWith("\n")) SB.append("\n");
+			if((Message == null) || !Message.endsWith("\n")) SB.append("\n");
 			SB.append("Cause By:\n").append(Util.getThrowableToString(this.Cause));
 		}
 		return SB.toString();
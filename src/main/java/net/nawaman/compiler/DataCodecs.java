@@ -0,0 +1,92 @@
+/*----------------------------------------------------------------------------------------------------------------------
+ * Copyright (C) 2008-2021 Nawapunth Manusitthipol. Implements with and for Java 11 JDK.
+ *----------------------------------------------------------------------------------------------------------------------
+ * LICENSE:
+ * 
+ * This file is part of Nawa's SimpleCompiler.
+ * 
+ * The project is a free software; you can redistribute it and/or modify it under the SIMILAR terms of the GNU General
+ * Public License as published by the Free Software Foundation; either version 2 of the License, or any later version.
+ * You are only required to inform me about your modification and redistribution as or as part of commercial software
+ * package. You can inform me via nawa<at>nawaman<dot>net.
+ * 
+ * The project is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the 
+ * implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ * ---------------------------------------------------------------------------------------------------------------------
+ */
+
+package net.nawaman.compiler;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.HashMap;
+
+import net.nawaman.compiler.CompileCache.Codec;
+
+/**
+ * The codecs used to write data out of the heap (see CompileCache and DataSpill).
+ * 
+ * A value is encoded by the codec registered for its exact class or, if there is none, by Java serialization.
+ *
+ * @author Nawapunth Manusitthipol (https://github.com/NawaMan)
+ */
+final class DataCodecs {
+	
+	static final byte Kind_Serialized = 0;
+	static final byte Kind_Codec      = 1;
+	
+	private final HashMap<Class<?>, Codec> Codecs     = new HashMap<Class<?>, Codec>();
+	private final HashMap<String,   Codec> CodecNames = new HashMap<String,   Codec>();
+	
+	/** Registers a codec for the exact class */
+	synchronized void registerCodec(Class<?> pClass, Codec pCodec) {
+		if((pClass == null) || (pCodec == null)) throw new NullPointerException();
+		this.Codecs    .put(pClass,           pCodec);
+		this.CodecNames.put(pClass.getName(), pCodec);
+	}
+	synchronized Codec getCodec(Class<?> pClass) {
+		return this.Codecs.get(pClass);
+	}
+	synchronized Codec getCodec(String pClassName) {
+		return this.CodecNames.get(pClassName);
+	}
+	
+	/** Checks if the value can be encoded */
+	boolean canEncode(Object pValue) {
+		return (pValue != null) && ((this.getCodec(pValue.getClass()) != null) || (pValue instanceof Serializable));
+	}
+	
+	/** Encodes the value using the codec (or Java serialization if the codec is null) */
+	byte[] encode(Codec pCodec, Object pValue) throws IOException {
+		ByteArrayOutputStream BAOS = new ByteArrayOutputStream();
+		if(pCodec != null) {
+			DataOutputStream DOS = new DataOutputStream(BAOS);
+			pCodec.encode(pValue, DOS);
+			DOS.flush();
+		} else {
+			try(ObjectOutputStream OOS = new ObjectOutputStream(BAOS)) {
+				OOS.writeObject(pValue);
+			}
+		}
+		return BAOS.toByteArray();
+	}
+	
+	/** Decodes the value of the kind (the class name is used to find the codec) */
+	Object decode(byte pKind, String pClassName, byte[] pBytes) throws IOException, ClassNotFoundException {
+		if(pKind == Kind_Codec) {
+			Codec TheCodec = this.getCodec(pClassName);
+			if(TheCodec == null) throw new IOException("No codec for '" + pClassName + "'.");
+			return TheCodec.decode(new DataInputStream(new ByteArrayInputStream(pBytes)));
+		}
+		try(ObjectInputStream OIS = new ObjectInputStream(new ByteArrayInputStream(pBytes))) {
+			return OIS.readObject();
+		}
+	}
+}
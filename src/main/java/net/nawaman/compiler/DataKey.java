@@ -0,0 +1,154 @@
+/*----------------------------------------------------------------------------------------------------------------------
+ * Copyright (C) 2008-2021 Nawapunth Manusitthipol. Implements with and for Java 11 JDK.
+ *----------------------------------------------------------------------------------------------------------------------
+ * LICENSE:
+ * 
+ * This file is part of Nawa's SimpleCompiler.
+ * 
+ * The project is a free software; you can redistribute it and/or modify it under the SIMILAR terms of the GNU General
+ * Public License as published by the Free Software Foundation; either version 2 of the License, or any later version.
+ * You are only required to inform me about your modification and redistribution as or as part of commercial software
+ * package. You can inform me via nawa<at>nawaman<dot>net.
+ * 
+ * The project is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the 
+ * implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ * ---------------------------------------------------------------------------------------------------------------------
+ */
+
+package net.nawaman.compiler;
+
+import java.io.Serializable;
+
+/**
+ * Typed handle of a data used by task entries.
+ * 
+ * The scope (code, feeder or arbitrary) and the slot of the data are resolved once when the key is created so
+ * accessing the data through the key (see <code>CompileProduct.getData(DataKey)</code>) parses no name and allocates
+ * nothing. The type of the key is checked against the input and output types of the task when a task entry is created
+ * with keys (see TaskEntry) so a mismatch is found when the pipeline is built.
+ * 
+ * A key can also be created from a data name as used with the task entries: 'C.', 'F.' or 'A.' prefix forces the
+ * scope and a name without the prefix is in the scope of the kind of the task (see <code>resolve(...)</code>).
+ *
+ * @author Nawapunth Manusitthipol (https://github.com/NawaMan)
+ */
+final public class DataKey<T> implements Serializable {
+	
+	private static final long serialVersionUID = -2841697375906136352L;
+	
+	/** Scope of a data */
+	static public enum DataScope {
+		
+		CODE, FEEDER, ARBITRARY;
+		
+		/** Returns the prefix of the data name in this scope */
+		public String getPrefix() {
+			switch(this) {
+				case CODE:   return "C.";
+				case FEEDER: return "F.";
+				default:     return "A.";
+			}
+		}
+	}
+	
+	private DataKey(DataScope pScope, String pDataName, Class<T> pType) {
+		if(pScope    == null) throw new NullPointerException();
+		if(pDataName == null) throw new NullPointerException();
+		if(pType     == null) throw new NullPointerException();
+		this.Scope    = pScope;
+		this.DataName = pDataName;
+		this.Type     = pType;
+		this.Slot     = (pScope == DataScope.CODE)?DataSlots.slotOf(pDataName):-1;
+	}
+	
+	final DataScope Scope;
+	final String    DataName;
+	final Class<T>  Type;
+	final int       Slot;
+	
+	/** Creates a key of a code data */
+	static public <T> DataKey<T> ofCode(String pDataName, Class<T> pType) {
+		return new DataKey<T>(DataScope.CODE, pDataName, pType);
+	}
+	/** Creates a key of a feeder data */
+	static public <T> DataKey<T> ofFeeder(String pDataName, Class<T> pType) {
+		return new DataKey<T>(DataScope.FEEDER, pDataName, pType);
+	}
+	/** Creates a key of an arbitrary data */
+	static public <T> DataKey<T> ofArbitrary(String pDataName, Class<T> pType) {
+		return new DataKey<T>(DataScope.ARBITRARY, pDataName, pType);
+	}
+	
+	/**
+	 * Creates a key from a data name used by the task (null if the scope depends on where the task is performed).
+	 * 
+	 * A name with 'C.', 'F.' or 'A.' prefix is in that scope. A name without the prefix is a code data for a code task
+	 * and a feeder data for a feeder task. A compiler task does not iterate codes or feeders so the scope of such name
+	 * cannot be resolved.
+	 **/
+	static DataKey<Object> resolve(String pDataName, TaskForCompiler pTask) {
+		if(pDataName == null) return null;
+		if((pDataName.length() >= 2) && (pDataName.charAt(1) == '.')) {
+			switch(pDataName.charAt(0)) {
+				case 'C': return (pTask.isFeederTask())?null:ofCode(pDataName.substring(2), Object.class);
+				case 'F': return ofFeeder(   pDataName.substring(2), Object.class);
+				case 'A': return ofArbitrary(pDataName.substring(2), Object.class);
+			}
+		}
+		if(pTask.isCodeTask())   return ofCode(  pDataName, Object.class);
+		if(pTask.isFeederTask()) return ofFeeder(pDataName, Object.class);
+		return null;
+	}
+	
+	/** Returns the scope of the data */
+	public DataScope getScope() {
+		return this.Scope;
+	}
+	/** Returns the name of the data (without the scope prefix) */
+	public String getDataName() {
+		return this.DataName;
+	}
+	/** Returns the name of the data with the scope prefix (as used with the task entries) */
+	public String getScopedName() {
+		return this.Scope.getPrefix() + this.DataName;
+	}
+	/** Returns the type of the data */
+	public Class<T> getType() {
+		return this.Type;
+	}
+	/** Returns the slot of the data (see DataSlots) or -1 if the data is not a code data */
+	public int getDataSlot() {
+		return this.Slot;
+	}
+	
+	/** Checks if a value of the type can be stored with this key (used to check the outputs of a task) */
+	public boolean canAccept(Class<?> pType) {
+		return (pType == null) || this.Type.isAssignableFrom(pType);
+	}
+	/** Checks if the value of this key can be used as the type (used to check the inputs of a task) */
+	public boolean canProvide(Class<?> pType) {
+		return (pType == null) || pType.isAssignableFrom(this.Type);
+	}
+	
+	/** Checks if the object is a key of the same data */
+	@Override public boolean equals(Object pObj) {
+		if(pObj == this)               return true;
+		if(!(pObj instanceof DataKey)) return false;
+		DataKey<?> Key = (DataKey<?>)pObj;
+		return (this.Scope == Key.Scope) && this.DataName.equals(Key.DataName) && (this.Type == Key.Type);
+	}
+	/** Returns the hash code of the key */
+	@Override public int hashCode() {
+		return (this.Scope.hashCode()*31 + this.DataName.hashCode())*31 + this.Type.hashCode();
+	}
+	/** Returns the key as a string */
+	@Override public String toString() {
+		return "KEY:" + this.getScopedName() + ":" + this.Type.getSimpleName();
+	}
+	
+	/** Re-resolves the slot after deserialization (slots are only valid within a JVM, see DataSlots) */
+	private Object readResolve() {
+		return new DataKey<T>(this.Scope, this.DataName, this.Type);
+	}
+}
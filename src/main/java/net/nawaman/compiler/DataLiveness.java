@@ -0,0 +1,212 @@
+/*----------------------------------------------------------------------------------------------------------------------
+ * Copyright (C) 2008-2021 Nawapunth Manusitthipol. Implements with and for Java 11 JDK.
+ *----------------------------------------------------------------------------------------------------------------------
+ * LICENSE:
+ * 
+ * This file is part of Nawa's SimpleCompiler.
+ * 
+ * The project is a free software; you can redistribute it and/or modify it under the SIMILAR terms of the GNU General
+ * Public License as published by the Free Software Foundation; either version 2 of the License, or any later version.
+ * You are only required to inform me about your modification and redistribution as or as part of commercial software
+ * package. You can inform me via nawa<at>nawaman<dot>net.
+ * 
+ * The project is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the 
+ * implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ * ---------------------------------------------------------------------------------------------------------------------
+ */
+
+package net.nawaman.compiler;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.Vector;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import net.nawaman.task.TaskEntry;
+
+/**
+ * Liveness of the intermediate data of task entries (see <code>Compiler.setDropDeadData(boolean)</code>).
+ * 
+ * An intermediate data is a code or a feeder data written by an entry and read by a later one. The users of the data
+ * are the entries that read or write it plus the entries whose data cannot be told (see TaskGraph) after it is first
+ * written. Once its last user is done, the data is dead and can be removed from the compile product. The data names
+ * marked as results, the inputs of the entries with recomputable outputs (see TaskEntry) and the data the code feeders
+ * provide are never dropped.
+ *
+ * @author Nawapunth Manusitthipol (https://github.com/NawaMan)
+ */
+final class DataLiveness {
+	
+	static private final int[] NoName = new int[0];
+	
+	private DataLiveness(String[] pNames, int[] pLastUses, int[][] pEntryNames) {
+		this.Names      = pNames;
+		this.LastUses   = pLastUses;
+		this.EntryNames = pEntryNames;
+		
+		this.UserCounts = new int[pNames.length];
+		for(int[] ENames : pEntryNames) {
+			for(int n : ENames) this.UserCounts[n]++;
+		}
+		
+		int[][] DeadAfters = new int[pEntryNames.length][];
+		int[]   Buffer     = new int[pNames.length];
+		for(int i = 0; i < pEntryNames.length; i++) {
+			int DCount = 0;
+			for(int n = 0; n < pNames.length; n++) {
+				if(pLastUses[n] == i) Buffer[DCount++] = n;
+			}
+			DeadAfters[i] = (DCount == 0)?NoName:Arrays.copyOf(Buffer, DCount);
+		}
+		this.DeadAfters = DeadAfters;
+	}
+	
+	/** The scoped names of the intermediate data */ final String[] Names;
+	/** The index of the last user of each data  */ final int[]    LastUses;
+	/** The number of the users of each data      */ final int[]    UserCounts;
+	/** The data each entry uses                  */ final int[][]  EntryNames;
+	/** The data dead after each entry            */ final int[][]  DeadAfters;
+	
+	/** Returns the number of the intermediate data */
+	int getNameCount() {
+		return this.Names.length;
+	}
+	/** Checks if there is any data to be dropped */
+	boolean isEmpty() {
+		return this.Names.length == 0;
+	}
+	
+	/** Creates the liveness of the data of the task entries keeping the data with the result names */
+	static DataLiveness of(TaskEntry[] pTEs, Set<String> pResultNames) {
+		int               Count    = (pTEs == null)?0:pTEs.length;
+		HashSet<String>[] Ins      = TaskGraph.newSets(Count);
+		HashSet<String>[] Outs     = TaskGraph.newSets(Count);
+		boolean[]         Barriers = new boolean[Count];
+		HashSet<String>   Pinneds  = new HashSet<String>();
+		
+		for(int i = 0; i < Count; i++) {
+			Barriers[i] = !TaskGraph.collectDataNames(pTEs[i], Ins[i], Outs[i]);
+			if(hasRecomputableOutput(pTEs[i])) Pinneds.addAll(Ins[i]);
+		}
+		
+		HashSet<String> Names    = new HashSet<String>();
+		Vector<String>  NameList = new Vector<String>();
+		Vector<Integer> LastUses = new Vector<Integer>();
+		for(int i = 0; i < Count; i++) {
+			for(String Name : Outs[i]) {
+				if(Names.contains(Name) || !isDroppable(Name, pResultNames) || Pinneds.contains(Name)) continue;
+				Names.add(Name);
+				
+				// The data must be read by a later entry
+				int LastUse = -1;
+				for(int j = i + 1; j < Count; j++) {
+					if(Ins[j].contains(Name)) { LastUse = j; break; }
+				}
+				if(LastUse == -1) continue;
+				
+				for(int j = Count; --j > i; ) {
+					if(Barriers[j] || Ins[j].contains(Name) || Outs[j].contains(Name)) {
+						LastUse = j;
+						break;
+					}
+				}
+				NameList.add(Name);
+				LastUses.add(LastUse);
+			}
+		}
+		
+		int[][] EntryNames = new int[Count][];
+		int[]   Buffer     = new int[NameList.size()];
+		for(int i = 0; i < Count; i++) {
+			int NCount = 0;
+			for(int n = 0; n < NameList.size(); n++) {
+				String  Name  = NameList.get(n);
+				boolean IsUse = Ins[i].contains(Name) || Outs[i].contains(Name);
+				if(!IsUse && Barriers[i]) {
+					// A barrier uses the data if it is after the data is first written
+					for(int j = 0; (j < i) && !IsUse; j++) IsUse = Outs[j].contains(Name);
+				}
+				if(IsUse) Buffer[NCount++] = n;
+			}
+			EntryNames[i] = (NCount == 0)?NoName:Arrays.copyOf(Buffer, NCount);
+		}
+		int[] Lasts = new int[LastUses.size()];
+		for(int n = 0; n < Lasts.length; n++) Lasts[n] = LastUses.get(n);
+		return new DataLiveness(NameList.toArray(new String[NameList.size()]), Lasts, EntryNames);
+	}
+	
+	/** Checks if the entry has a recomputable output (its inputs must then be kept to recompute it) */
+	static private boolean hasRecomputableOutput(TaskEntry pTE) {
+		for(int i = 0; i < pTE.getOutputCount(); i++) {
+			net.nawaman.task.DataRef Ref = pTE.getOutputRef(i);
+			if((Ref instanceof DataRef) && ((DataRef)Ref).isRecomputable()) return true;
+		}
+		return false;
+	}
+	
+	/** Checks if the data with the scoped name may be dropped */
+	static private boolean isDroppable(String pScopedName, Set<String> pResultNames) {
+		char   Scope = pScopedName.charAt(0);
+		String DName = pScopedName.substring(2);
+		if((Scope != 'C') && (Scope != 'F')) return false;	// Arbitrary data are kept
+		if((pResultNames != null) && (pResultNames.contains(DName) || pResultNames.contains(pScopedName)))
+			return false;
+		if(Scope == 'F') return !CodeFeeders.DataName_Feeder.equals(DName);
+		return !CodeFeeders.DataName_Code       .equals(DName)
+		    && !CodeFeeders.DataName_SourceCode .equals(DName)
+		    && !CodeFeeders.DataName_Fingerprint.equals(DName);
+	}
+	
+	// Dropping --------------------------------------------------------------------------------------------------------
+	
+	/** Drops the data that are dead after the entry at the index (when the entries are done in order) */
+	void dropDeadData(CompilationData pData, int pEntryIndex) {
+		if((pEntryIndex < 0) || (pEntryIndex >= this.DeadAfters.length)) return;
+		for(int n : this.DeadAfters[pEntryIndex]) this.dropData(pData, n);
+	}
+	/** Drops the code data of the code that are dead after the entries from pStart to before pEnd */
+	void dropDeadCodeData(CompilationData pData, int pFeederIndex, int pCodeIndex, int pStart, int pEnd) {
+		for(int i = Math.max(0, pStart); i < Math.min(pEnd, this.DeadAfters.length); i++) {
+			for(int n : this.DeadAfters[i]) {
+				String Name = this.Names[n];
+				if(Name.charAt(0) != 'C') continue;
+				int Slot = DataSlots.findSlot(Name.substring(2));
+				if(Slot != -1) pData.removeCodeData(pFeederIndex, pCodeIndex, Slot);
+			}
+		}
+	}
+	
+	/** Returns the counters of the users not yet done (used when the entries are done out of order) */
+	AtomicIntegerArray newUserCounters() {
+		return new AtomicIntegerArray(this.UserCounts);
+	}
+	/** Counts the entry at the index as done and drops the data that no longer have any user */
+	void dropDeadData(CompilationData pData, int pEntryIndex, AtomicIntegerArray pUserCounters) {
+		if((pEntryIndex < 0) || (pEntryIndex >= this.EntryNames.length)) return;
+		for(int n : this.EntryNames[pEntryIndex]) {
+			if(pUserCounters.decrementAndGet(n) == 0) this.dropData(pData, n);
+		}
+	}
+	
+	/** Drops the data at the name index from all the feeders or all the codes */
+	private void dropData(CompilationData pData, int pNameIndex) {
+		String Name  = this.Names[pNameIndex];
+		String DName = Name.substring(2);
+		if(Name.charAt(0) == 'F') {
+			for(int f = pData.getFeederCount(); --f >= 0; ) pData.removeFeederData(f, DName);
+			return;
+		}
+		int Slot = DataSlots.findSlot(DName);
+		if(Slot == -1) return;
+		for(int f = pData.getFeederCount(); --f >= 0; ) {
+			for(int c = pData.getCodeCount(f); --c >= 0; ) pData.removeCodeData(f, c, Slot);
+		}
+	}
+	
+	/** Returns the names of the intermediate data as a string */
+	@Override public String toString() {
+		return "DataLiveness" + Arrays.toString(this.Names);
+	}
+}
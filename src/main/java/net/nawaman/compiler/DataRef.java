@@ -1,13 +1,46 @@
 package net.nawaman.compiler;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+
 /** DataRef for Task */
-final public class DataRef implements net.nawaman.task.DataRef {
+final public class DataRef implements net.nawaman.task.DataRef, Serializable {
+	
+	private static final long serialVersionUID = -2409125378741355174L;
 	
 	/** Constructs a Task DataRef */
-	public DataRef(String pDataName) { this.DataName = pDataName; }
+	public DataRef(String pDataName) {
+		this.DataName = pDataName;
+		this.Slot     = (pDataName == null)?-1:DataSlots.slotOf(DataSlots.getUnscopedName(pDataName));
+	}
 	
 	String DataName;
+	
+	// Slots are given per process so it is not serialized
+	transient int Slot = -1;
+	
+	// The entry and the key are serialized with the ref: the entry holds the ref (the cycle is kept by the serialization)
+	//    and the key may be given explicitly (see TaskEntry.of(...)) and resolves itself (see DataKey.readResolve()).
+	
+	/** The task entry this ref is an output of (null for an input) */ TaskEntry Entry          = null;
+	/** The index of the output in the entry */                         int       OutputIndex    = -1;
+	/** Checks if the output can be dropped and recomputed */           boolean   IsRecomputable = false;
+	
+	/** The key of the data resolved when the entry is created (null if the scope is resolved when accessed) */
+	DataKey<?> Key = null;
+	
+	/** Returns the key of the data (null if the scope of the data depends on where the task is performed) */
+	public DataKey<?> getDataKey() { return this.Key; }
+	/** Checks if the data written through this ref can be dropped and recomputed (see TaskEntry) */
+	public boolean isRecomputable() { return this.IsRecomputable; }
 	/** Returns the data name */ public String getDataName() { return this.DataName;           }
+	/** Returns the data slot */ public int    getDataSlot() { return this.Slot;               }
 	/**{@inheritDoc}*/ @Override public String toString()    { return "DATA:" + this.DataName; }
-
+	
+	/** Gives the slot of this process after deserialization */
+	private void readObject(ObjectInputStream pIn) throws IOException, ClassNotFoundException {
+		pIn.defaultReadObject();
+		this.Slot = (this.DataName == null)?-1:DataSlots.slotOf(DataSlots.getUnscopedName(this.DataName));
+	}
 }
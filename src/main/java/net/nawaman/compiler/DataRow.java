@@ -0,0 +1,155 @@
+/*----------------------------------------------------------------------------------------------------------------------
+ * Copyright (C) 2008-2021 Nawapunth Manusitthipol. Implements with and for Java 11 JDK.
+ *----------------------------------------------------------------------------------------------------------------------
+ * LICENSE:
+ * 
+ * This file is part of Nawa's SimpleCompiler.
+ * 
+ * The project is a free software; you can redistribute it and/or modify it under the SIMILAR terms of the GNU General
+ * Public License as published by the Free Software Foundation; either version 2 of the License, or any later version.
+ * You are only required to inform me about your modification and redistribution as or as part of commercial software
+ * package. You can inform me via nawa<at>nawaman<dot>net.
+ * 
+ * The project is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the 
+ * implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ * ---------------------------------------------------------------------------------------------------------------------
+ */
+
+package net.nawaman.compiler;
+
+import java.util.Arrays;
+import java.util.Vector;
+
+/**
+ * The data of a code stored by data slots (see <code>DataSlots</code>).
+ * 
+ * A row is read without locking: a write replaces or updates the value array then republishes it through a volatile
+ * field so a reader always sees a complete array. Writes are serialized by the row itself as tasks of different codes
+ * (or of the same code, see TaskGraph) may be performed at the same time. A frozen row, or a frozen data in the row,
+ * can no longer be changed.
+ *
+ * @author Nawapunth Manusitthipol (https://github.com/NawaMan)
+ */
+final public class DataRow {
+	
+	static private final Object[] EmptyValues = new Object[0];
+	
+	/** The value stored in place of null so that a data set to null is still contained */
+	static private final Object NullValue = new Object();
+	
+	/** Constructs an empty data row owned by the owner token (see CompilationData.Simple) */
+	DataRow(Object pOwner) {
+		this.Owner = pOwner;
+	}
+	
+	/** The owner token of the compilation data that may change this row in place */
+	final Object Owner;
+	
+	private volatile Object[] Values   = EmptyValues;
+	private volatile boolean  IsFrozen = false;
+	
+	/** Checks if this row contains the data at the slot */
+	public boolean contains(int pSlot) {
+		Object[] Vs = this.Values;
+		return (pSlot >= 0) && (pSlot < Vs.length) && (Vs[pSlot] != null);
+	}
+	
+	/** Returns the data at the slot */
+	public Object get(int pSlot) {
+		Object[] Vs = this.Values;
+		if((pSlot < 0) || (pSlot >= Vs.length)) return null;
+		Object Value = Vs[pSlot];
+		if(Value instanceof CompilationData.FrozenData) Value = ((CompilationData.FrozenData)Value).Value;
+		if(Value instanceof DataSpill.Cell)             Value = ((DataSpill.Cell)Value).get();
+		return (Value == NullValue)?null:Value;
+	}
+	
+	/** Adds or changes the data at the slot */
+	public synchronized Object set(int pSlot, Object pValue) {
+		if(pSlot < 0) throw new IllegalArgumentException("Invalid data slot: " + pSlot);
+		if(this.isFrozen(pSlot))
+			throw new CompilationException("The data `" + DataSlots.getDataName(pSlot) + "` is frozen.");
+		Object[] Vs = this.Values;
+		if(pSlot >= Vs.length) {
+			// Grow by doubling (but not beyond the slots given) so a row is about as wide as the largest slot set in it
+			int Width = Math.max(pSlot + 1, Math.min(Vs.length*2, DataSlots.getSlotCount()));
+			Vs = Arrays.copyOf(Vs, Width);
+		}
+		Object Old  = Vs[pSlot];
+		Vs[pSlot]   = (pValue == null)?NullValue:pValue;
+		this.Values = Vs;	// Republish
+		if((Old != pValue) && (Old instanceof DataSpill.Cell)) ((DataSpill.Cell)Old).removeHolder();
+		return pValue;
+	}
+	
+	/** Removes the data at the slot - Returns false if the row does not contain the data */
+	public synchronized boolean remove(int pSlot) {
+		if(!this.contains(pSlot)) return false;
+		if(this.isFrozen(pSlot))
+			throw new CompilationException("The data `" + DataSlots.getDataName(pSlot) + "` is frozen.");
+		Object[] Vs  = this.Values;
+		Object   Old = Vs[pSlot];
+		Vs[pSlot]    = null;
+		this.Values  = Vs;	// Republish
+		if(Old instanceof DataSpill.Cell) ((DataSpill.Cell)Old).removeHolder();
+		return true;
+	}
+	
+	/** Checks if this row is frozen */
+	public boolean isFrozen() {
+		return this.IsFrozen;
+	}
+	/** Checks if the data at the slot is frozen */
+	public boolean isFrozen(int pSlot) {
+		if(this.IsFrozen) return true;
+		Object[] Vs = this.Values;
+		return (pSlot >= 0) && (pSlot < Vs.length) && (Vs[pSlot] instanceof CompilationData.FrozenData);
+	}
+	
+	/** Freezes the whole row */
+	public synchronized void freeze() {
+		this.IsFrozen = true;
+		for(Object Value : this.Values) {
+			if(Value instanceof CompilationData.FrozenData) Value = ((CompilationData.FrozenData)Value).Value;
+			if(Value instanceof DataSpill.Cell)             ((DataSpill.Cell)Value).IsFrozen = true;
+		}
+	}
+	/** Freezes the data at the slot - Returns false if the row does not contain the data */
+	public synchronized boolean freeze(int pSlot) {
+		if(!this.contains(pSlot)) return false;
+		Object[] Vs = this.Values;
+		if(!(Vs[pSlot] instanceof CompilationData.FrozenData)) {
+			if(Vs[pSlot] instanceof DataSpill.Cell) ((DataSpill.Cell)Vs[pSlot]).IsFrozen = true;
+			Vs[pSlot]   = new CompilationData.FrozenData(Vs[pSlot]);
+			this.Values = Vs;	// Republish
+		}
+		return true;
+	}
+	
+	/** Returns a copy of this row for the owner (the frozen data stay frozen but the row itself is not frozen) */
+	DataRow duplicate(Object pOwner) {
+		DataRow Row = new DataRow(pOwner);
+		Row.Values = this.Values.clone();
+		for(Object Value : Row.Values) {
+			if(Value instanceof CompilationData.FrozenData) Value = ((CompilationData.FrozenData)Value).Value;
+			if(Value instanceof DataSpill.Cell)             ((DataSpill.Cell)Value).addHolder();
+		}
+		return Row;
+	}
+	
+	/** Returns the names of the data this row contains */
+	public String[] getDataNames() {
+		Object[]       Vs    = this.Values;
+		Vector<String> Names = new Vector<String>();
+		for(int i = 0; i < Vs.length; i++) {
+			if(Vs[i] != null) Names.add(DataSlots.getDataName(i));
+		}
+		return Names.toArray(new String[Names.size()]);
+	}
+	
+	/** Returns the names of the data this row contains as a string */
+	@Override public String toString() {
+		return Arrays.toString(this.getDataNames());
+	}
+}
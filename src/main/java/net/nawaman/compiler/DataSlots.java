@@ -0,0 +1,90 @@
+/*----------------------------------------------------------------------------------------------------------------------
+ * Copyright (C) 2008-2021 Nawapunth Manusitthipol. Implements with and for Java 11 JDK.
+ *----------------------------------------------------------------------------------------------------------------------
+ * LICENSE:
+ * 
+ * This file is part of Nawa's SimpleCompiler.
+ * 
+ * The project is a free software; you can redistribute it and/or modify it under the SIMILAR terms of the GNU General
+ * Public License as published by the Free Software Foundation; either version 2 of the License, or any later version.
+ * You are only required to inform me about your modification and redistribution as or as part of commercial software
+ * package. You can inform me via nawa<at>nawaman<dot>net.
+ * 
+ * The project is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the 
+ * implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ * ---------------------------------------------------------------------------------------------------------------------
+ */
+
+package net.nawaman.compiler;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The symbol table of data names.
+ * 
+ * Every data name used by the compilation is given a dense int slot the first time it is seen (that is, when a task
+ * entry using it is created). Per-code data are kept in rows indexed by these slots (see <code>DataRow</code>) so
+ * accessing a data of a code is an array index rather than a hash lookup. A slot, once given, never changes.
+ * 
+ * The slots are given per process (not per compiler) so a row only grows to the largest slot set in it, not to all the
+ * slots given. The slots are not serialized; the refs holding them get them again when they are read back.
+ *
+ * @author Nawapunth Manusitthipol (https://github.com/NawaMan)
+ */
+final public class DataSlots {
+	
+	private DataSlots() {}
+	
+	static private final ConcurrentHashMap<String, Integer> Slots = new ConcurrentHashMap<String, Integer>();
+	
+	static private volatile String[] Names = new String[16];
+	
+	/** Returns the slot of the data name (a new slot is given if the name has never been seen) */
+	static public int slotOf(String pDataName) {
+		if(pDataName == null) throw new NullPointerException();
+		Integer Slot = Slots.get(pDataName);
+		if(Slot != null) return Slot;
+		
+		synchronized(DataSlots.class) {
+			Slot = Slots.get(pDataName);
+			if(Slot != null) return Slot;
+			
+			int      NewSlot = Slots.size();
+			String[] Ns      = Names;
+			if(NewSlot >= Ns.length) Ns = Arrays.copyOf(Ns, Ns.length*2);
+			Ns[NewSlot] = pDataName;
+			Names       = Ns;
+			Slots.put(pDataName, NewSlot);
+			return NewSlot;
+		}
+	}
+	
+	/** Returns the slot of the data name or -1 if the name has never been given a slot */
+	static public int findSlot(String pDataName) {
+		if(pDataName == null) return -1;
+		Integer Slot = Slots.get(pDataName);
+		return (Slot == null)?-1:Slot;
+	}
+	
+	/** Returns the data name of the slot or null if the slot has not been given */
+	static public String getDataName(int pSlot) {
+		if((pSlot < 0) || (pSlot >= getSlotCount())) return null;
+		return Names[pSlot];
+	}
+	
+	/** Returns the number of slots given so far */
+	static public int getSlotCount() {
+		return Slots.size();
+	}
+	
+	/** Returns the data name without its scope prefix ("C.", "F." or "A.") */
+	static String getUnscopedName(String pDataName) {
+		if((pDataName == null) || (pDataName.length() < 2) || (pDataName.charAt(1) != '.')) return pDataName;
+		switch(pDataName.charAt(0)) {
+			case 'C': case 'F': case 'A': return pDataName.substring(2);
+		}
+		return pDataName;
+	}
+}
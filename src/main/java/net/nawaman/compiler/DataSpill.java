@@ -0,0 +1,441 @@
+/*----------------------------------------------------------------------------------------------------------------------
+ * Copyright (C) 2008-2021 Nawapunth Manusitthipol. Implements with and for Java 11 JDK.
+ *----------------------------------------------------------------------------------------------------------------------
+ * LICENSE:
+ * 
+ * This file is part of Nawa's SimpleCompiler.
+ * 
+ * The project is a free software; you can redistribute it and/or modify it under the SIMILAR terms of the GNU General
+ * Public License as published by the Free Software Foundation; either version 2 of the License, or any later version.
+ * You are only required to inform me about your modification and redistribution as or as part of commercial software
+ * package. You can inform me via nawa<at>nawaman<dot>net.
+ * 
+ * The project is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the 
+ * implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ * ---------------------------------------------------------------------------------------------------------------------
+ */
+
+package net.nawaman.compiler;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.Vector;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import net.nawaman.compiler.CompileCache.Codec;
+
+/**
+ * A spill tier that moves cold code data out of the heap.
+ * 
+ * When a compilation data has a spill (see <code>CompilationData.Simple.setDataSpill(...)</code>), each code data
+ * value that can be encoded (there is a codec registered for its class or it is serializable) and that is estimated to
+ * be large enough is held in a cell. When the estimated size of the values on the heap is over the heap budget, the
+ * values that have not been accessed lately are written to a memory-mapped file and dropped from the heap. A dropped
+ * value is read back the next time it is accessed. The values that cannot be encoded, the code and the source code
+ * always stay on the heap.
+ * 
+ * A value read back may be changed so it is written again the next time it is spilled unless it is frozen. When a data
+ * row no longer holds a cell (its data is replaced or removed) or the cell is collected with its compile product, the
+ * cell is released: its value is no longer counted and its space in the file is reused. A spill may be shared by many
+ * compile products so that they are bounded by one budget.
+ *
+ * @author Nawapunth Manusitthipol (https://github.com/NawaMan)
+ */
+public class DataSpill implements AutoCloseable {
+	
+	/** Estimates the heap size of a value */
+	static public interface Sizer {
+		/** Returns the estimated heap size of the value in bytes */
+		public long sizeOf(Object pValue);
+	}
+	
+	/** The default sizer (it estimates character sequences and arrays by their length) */
+	static public final Sizer DefaultSizer = new Sizer() {
+		@Override public long sizeOf(Object pValue) {
+			if(pValue instanceof CharSequence) return 40 + 2L*((CharSequence)pValue).length();
+			if(pValue instanceof byte[])       return 16 +    ((byte[])      pValue).length;
+			if(pValue instanceof char[])       return 16 + 2L*((char[])      pValue).length;
+			if(pValue instanceof int[])        return 16 + 4L*((int[])       pValue).length;
+			if(pValue instanceof long[])       return 16 + 8L*((long[])      pValue).length;
+			if(pValue instanceof Object[])     return 16 + 8L*((Object[])    pValue).length;
+			if((pValue instanceof Number) || (pValue instanceof Boolean) || (pValue instanceof Character)) return 16;
+			return DefaultSize;
+		}
+	};
+	
+	/** The estimated size of a value the default sizer knows nothing about */
+	static public final long DefaultSize    = 1024;
+	/** The estimated size under which a value is not worth spilling */
+	static public final long MinSpillSize   = 256;
+	
+	static private final int SegmentSize   = 1 << 26;	// 64MB
+	static private final int MinFreeRegion = 64;
+	
+	/** Constructs a spill using a temporary file in the folder and bounded by the heap budget in bytes */
+	public DataSpill(File pFolder, long pHeapBudget) throws IOException {
+		this(pFolder, pHeapBudget, null);
+	}
+	/** Constructs a spill using a temporary file in the folder and bounded by the heap budget in bytes */
+	public DataSpill(File pFolder, long pHeapBudget, Sizer pSizer) throws IOException {
+		if(pFolder == null) throw new NullPointerException();
+		if(!pFolder.isDirectory() && !pFolder.mkdirs())
+			throw new IllegalArgumentException("Unable to create the spill folder '"+pFolder+"'.");
+		this.HeapBudget = (pHeapBudget < 0)?0:pHeapBudget;
+		this.Sizer      = (pSizer == null)?DefaultSizer:pSizer;
+		this.TheFile    = File.createTempFile("spill", ".nds", pFolder);
+		this.TheFile.deleteOnExit();
+		this.RAFile     = new RandomAccessFile(this.TheFile, "rw");
+		this.Channel    = this.RAFile.getChannel();
+	}
+	
+	final long  HeapBudget;
+	final Sizer Sizer;
+	
+	private final DataCodecs Codecs = new DataCodecs();
+	
+	private final File             TheFile;
+	private final RandomAccessFile RAFile;
+	private final FileChannel      Channel;
+	
+	/** The mapped segments (replaced when extended so reading needs no lock) */
+	private volatile MappedByteBuffer[] Segments = new MappedByteBuffer[0];
+	private          long               FileEnd  = 0;
+	private volatile boolean            IsClosed = false;
+	
+	private final ConcurrentLinkedQueue<Handle> Residents     = new ConcurrentLinkedQueue<Handle>();
+	private final AtomicLong                    ResidentBytes = new AtomicLong();
+	private final AtomicLong                    SpillCount    = new AtomicLong();
+	private final AtomicLong                    ReloadCount   = new AtomicLong();
+	
+	/** The handles of the cells not yet released (keeping them reachable so they are queued once collected) */
+	private final HashSet<Handle>       Handles    = new HashSet<Handle>();
+	private final ReferenceQueue<Cell>  Collecteds = new ReferenceQueue<Cell>();
+	
+	/** The offsets of the free regions of the file by their lengths */
+	private final TreeMap<Integer, Vector<Long>> FreeRegions = new TreeMap<Integer, Vector<Long>>();
+	private       long                           FreeBytes   = 0;
+	
+	/** Returns the heap budget in bytes */
+	public long getHeapBudget() {
+		return this.HeapBudget;
+	}
+	/** Returns the estimated size of the spillable values on the heap in bytes */
+	public long getResidentBytes() {
+		return this.ResidentBytes.get();
+	}
+	/** Returns the size of the spill file in bytes */
+	public synchronized long getFileBytes() {
+		return this.FileEnd;
+	}
+	/** Returns the size of the regions of the spill file that are free to be reused in bytes */
+	public synchronized long getFreeFileBytes() {
+		return this.FreeBytes;
+	}
+	/** Returns the number of times a value is spilled */
+	public long getSpillCount() {
+		return this.SpillCount.get();
+	}
+	/** Returns the number of times a value is read back */
+	public long getReloadCount() {
+		return this.ReloadCount.get();
+	}
+	
+	/** Registers a codec for the exact class */
+	public void registerCodec(Class<?> pClass, Codec pCodec) {
+		this.Codecs.registerCodec(pClass, pCodec);
+	}
+	
+	// Cell ------------------------------------------------------------------------------------------------------------
+	
+	/** The holder of a spillable value */
+	static final class Cell {
+		
+		Cell(DataSpill pSpill, Object pValue, long pSize) {
+			this.Spill  = pSpill;
+			this.Value  = pValue;
+			this.Handle = new Handle(this, pSpill.Collecteds, pSize);
+		}
+		
+		final DataSpill Spill;
+		final Handle    Handle;
+		
+		volatile Object  Value;
+		volatile boolean IsReferenced = false;
+		/** Checks if the value can no longer be changed (so it needs not be written again once written) */
+		volatile boolean IsFrozen     = false;
+		
+		/** The number of the data rows holding this cell */
+		private final AtomicInteger HolderCount = new AtomicInteger(1);
+		
+		/** Takes note of one more row holding this cell (see <code>DataRow.duplicate(...)</code>) */
+		void addHolder() {
+			this.HolderCount.incrementAndGet();
+		}
+		/** Takes note of a row no longer holding this cell (the cell is released when no row holds it) */
+		void removeHolder() {
+			if(this.HolderCount.decrementAndGet() == 0) this.Spill.release(this.Handle);
+		}
+		
+		/** Returns the value (reading it back from the file if it is spilled) */
+		Object get() {
+			Object V = this.Value;
+			if(V != null) {
+				this.IsReferenced = true;
+				return V;
+			}
+			synchronized(this) {
+				V = this.Value;
+				if(V != null) return V;
+				V = this.Spill.reload(this.Handle);
+				this.Value = V;
+			}
+			this.Spill.admit(this);
+			return V;
+		}
+	}
+	
+	/**
+	 * The part of a cell the spill keeps track of.
+	 * 
+	 * The handle refers to its cell weakly so the cell of a discarded compile product can be collected. The space and
+	 * the budget the collected cell used are then reclaimed.
+	 **/
+	static final class Handle extends WeakReference<Cell> {
+		
+		Handle(Cell pCell, ReferenceQueue<Cell> pQueue, long pSize) {
+			super(pCell, pQueue);
+			this.Size = pSize;
+		}
+		
+		final long Size;
+		
+		/** Checks if the value is on the heap and counted as resident */ boolean IsResident = false;
+		/** Checks if the cell is no longer used */                        boolean IsReleased = false;
+		
+		/** The location of the encoded value in the file (-1 if not written yet) */
+		long   Offset = -1;
+		int    Length =  0;
+		byte   Kind   =  0;
+		String CName  = null;
+	}
+	
+	/** Returns the value to be stored for the code data at the slot (a cell if the value should be spillable) */
+	Object hold(int pDataSlot, Object pValue) {
+		if(pValue == null) return null;
+		if((pDataSlot == CodeFeeders.DataSlot_Code) || (pDataSlot == CodeFeeders.DataSlot_SourceCode)) return pValue;
+		if(!this.Codecs.canEncode(pValue)) return pValue;
+		
+		long Size = this.Sizer.sizeOf(pValue);
+		if(Size < MinSpillSize) return pValue;
+		
+		Cell TheCell = new Cell(this, pValue, Size);
+		synchronized(this) {
+			this.Handles.add(TheCell.Handle);
+		}
+		this.admit(TheCell);
+		return TheCell;
+	}
+	
+	/** Takes note of the value of the cell being on the heap and spills the cold values if over the budget */
+	synchronized void admit(Cell pCell) {
+		this.expungeCollectedCells();
+		Handle H = pCell.Handle;
+		if(H.IsReleased || H.IsResident) return;
+		H.IsResident = true;
+		this.Residents.add(H);
+		if(this.ResidentBytes.addAndGet(H.Size) > this.HeapBudget) this.spillColdValues();
+	}
+	
+	/** Releases the cell of the handle - its value is no longer counted and its space in the file can be reused */
+	synchronized void release(Handle pHandle) {
+		if(pHandle.IsReleased) return;
+		pHandle.IsReleased = true;
+		if(pHandle.IsResident) {
+			pHandle.IsResident = false;
+			this.ResidentBytes.addAndGet(-pHandle.Size);
+		}
+		if(pHandle.Offset != -1) this.freeRegion(pHandle.Offset, pHandle.Length);
+		pHandle.Offset = -1;
+		this.Handles.remove(pHandle);
+		
+		Cell TheCell = pHandle.get();
+		if(TheCell != null) TheCell.Value = null;
+	}
+	
+	/** Releases the cells that are collected (their compile products are discarded) */
+	private synchronized void expungeCollectedCells() {
+		Reference<? extends Cell> Ref;
+		while((Ref = this.Collecteds.poll()) != null) this.release((Handle)Ref);
+	}
+	
+	/** Spills the values not accessed lately until the resident values are under the budget (second-chance order) */
+	private synchronized void spillColdValues() {
+		int Limit = 2*this.Residents.size();
+		while((this.ResidentBytes.get() > this.HeapBudget) && (--Limit >= 0)) {
+			Handle H = this.Residents.poll();
+			if(H == null) break;
+			if(H.IsReleased || !H.IsResident) continue;
+			
+			Cell TheCell = H.get();
+			if(TheCell == null) {
+				// Collected but not yet expunged
+				this.release(H);
+				continue;
+			}
+			if(TheCell.IsReferenced) {
+				TheCell.IsReferenced = false;
+				this.Residents.add(H);
+				continue;
+			}
+			synchronized(TheCell) {
+				Object V = TheCell.Value;
+				if(V == null) continue;	// Already spilled
+				try {
+					// A value read back may have been changed so it is written again unless it is frozen
+					if((H.Offset == -1) || !TheCell.IsFrozen) this.write(H, V);
+				} catch(IOException | RuntimeException E) {
+					// The value cannot be written so it stays on the heap (and is no longer counted)
+					H.IsResident = false;
+					this.ResidentBytes.addAndGet(-H.Size);
+					continue;
+				}
+				TheCell.Value = null;
+			}
+			H.IsResident = false;
+			this.ResidentBytes.addAndGet(-H.Size);
+			this.SpillCount.incrementAndGet();
+		}
+	}
+	
+	// File ------------------------------------------------------------------------------------------------------------
+	
+	/** Writes the value of the cell to the file (replacing what was written for it before) */
+	private synchronized void write(Handle pHandle, Object pValue) throws IOException {
+		if(this.IsClosed) throw new IOException("The spill is closed.");
+		Codec  TheCodec = this.Codecs.getCodec(pValue.getClass());
+		byte[] Bytes    = this.Codecs.encode(TheCodec, pValue);
+		
+		// Write over the old record if the new one fits
+		long Offset = pHandle.Offset;
+		if((Offset != -1) && ((Bytes.length > pHandle.Length) || (Bytes.length > SegmentSize))) {
+			this.freeRegion(Offset, pHandle.Length);
+			Offset = -1;
+		} else if((Offset != -1) && (pHandle.Length > Bytes.length))
+			this.freeRegion(Offset + Bytes.length, pHandle.Length - Bytes.length);
+		
+		if(Bytes.length <= SegmentSize) {
+			// Records not larger than a segment never cross a segment boundary
+			if(Offset == -1) Offset = this.allocateRegion(Bytes.length);
+			ByteBuffer Segment = this.getSegment((int)(Offset / SegmentSize)).duplicate();
+			Segment.position((int)(Offset % SegmentSize));
+			Segment.put(Bytes);
+		} else {
+			// Larger records are written directly at the end of the file
+			Offset = this.FileEnd;
+			if((Offset % SegmentSize) != 0) Offset += SegmentSize - (Offset % SegmentSize);
+			ByteBuffer Buffer = ByteBuffer.wrap(Bytes);
+			for(long Pos = Offset; Buffer.hasRemaining(); ) Pos += this.Channel.write(Buffer, Pos);
+			this.FileEnd = Offset + Bytes.length;
+		}
+		
+		pHandle.Offset = Offset;
+		pHandle.Length = Bytes.length;
+		pHandle.Kind   = (TheCodec != null)?DataCodecs.Kind_Codec:DataCodecs.Kind_Serialized;
+		pHandle.CName  = (TheCodec != null)?pValue.getClass().getName():null;
+	}
+	
+	/** Returns the offset of a free region of the length within a segment (reusing a freed region if there is one) */
+	private long allocateRegion(int pLength) {
+		Map.Entry<Integer, Vector<Long>> Free = this.FreeRegions.ceilingEntry(pLength);
+		if(Free != null) {
+			Vector<Long> Offsets = Free.getValue();
+			long         Offset  = Offsets.remove(Offsets.size() - 1);
+			if(Offsets.isEmpty()) this.FreeRegions.remove(Free.getKey());
+			this.FreeBytes -= Free.getKey();
+			if(Free.getKey() > pLength) this.freeRegion(Offset + pLength, Free.getKey() - pLength);
+			return Offset;
+		}
+		
+		long Offset    = this.FileEnd;
+		long InSegment = Offset % SegmentSize;
+		if(InSegment + pLength > SegmentSize) Offset += SegmentSize - InSegment;
+		this.FileEnd = Offset + pLength;
+		return Offset;
+	}
+	/** Takes note that the region of the file can be reused (only regions within a segment are reused) */
+	private void freeRegion(long pOffset, int pLength) {
+		if((pLength < MinFreeRegion) || (pLength > SegmentSize)) return;
+		this.FreeRegions.computeIfAbsent(pLength, L -> new Vector<Long>()).add(pOffset);
+		this.FreeBytes += pLength;
+	}
+	
+	/** Returns the mapped segment at the index (mapping the segments up to it if needed) */
+	private synchronized MappedByteBuffer getSegment(int pIndex) throws IOException {
+		MappedByteBuffer[] Ss = this.Segments;
+		if(pIndex < Ss.length) return Ss[pIndex];
+		
+		Ss = Arrays.copyOf(Ss, pIndex + 1);
+		for(int i = this.Segments.length; i <= pIndex; i++)
+			Ss[i] = this.Channel.map(FileChannel.MapMode.READ_WRITE, (long)i*SegmentSize, SegmentSize);
+		this.Segments = Ss;
+		return Ss[pIndex];
+	}
+	
+	/**
+	 * Reads the value of the cell back from the file.
+	 * 
+	 * This is called with the cell locked so it must not lock the spill (the spill locks cells while spilling).
+	 **/
+	private Object reload(Handle pHandle) {
+		try {
+			if(this.IsClosed) throw new IOException("The spill is closed.");
+			byte[] Bytes = new byte[pHandle.Length];
+			if(Bytes.length <= SegmentSize) {
+				ByteBuffer Segment = this.Segments[(int)(pHandle.Offset / SegmentSize)].duplicate();
+				Segment.position((int)(pHandle.Offset % SegmentSize));
+				Segment.get(Bytes);
+			} else {
+				ByteBuffer Buffer = ByteBuffer.wrap(Bytes);
+				for(long Pos = pHandle.Offset; Buffer.hasRemaining(); ) {
+					int Read = this.Channel.read(Buffer, Pos);
+					if(Read < 0) throw new IOException("Unexpected end of the spill file.");
+					Pos += Read;
+				}
+			}
+			this.ReloadCount.incrementAndGet();
+			return this.Codecs.decode(pHandle.Kind, pHandle.CName, Bytes);
+		} catch(IOException | ClassNotFoundException E) {
+			throw new CompilationException("Unable to read a spilled data back.", E);
+		}
+	}
+	
+	/** Closes the spill and deletes its file (spilled values can no longer be read) */
+	@Override public synchronized void close() throws IOException {
+		if(this.IsClosed) return;
+		this.IsClosed = true;
+		this.Segments = new MappedByteBuffer[0];
+		this.Channel.close();
+		this.RAFile.close();
+		this.TheFile.delete();
+	}
+	
+	/** Returns this spill as a string */
+	@Override public String toString() {
+		return "DataSpill: " + this.TheFile + " (" + this.getResidentBytes() + "/" + this.HeapBudget + " bytes on heap, "
+		     + this.getFileBytes() + " bytes in file)";
+	}
+}
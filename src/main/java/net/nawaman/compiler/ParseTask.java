@@ -21,10 +21,16 @@ public class ParseTask extends TaskForCodeUsingRegParser {
 		super(pName, pInputTypes, pInputDefaults, pOutputTypes);
 	}
 
+	/** Parsing only reads the source of the current code so codes can be parsed at the same time */ @Override
+	public boolean isParallelizable() { return true; }
+	/** Parsing accesses only its input and output */ @Override
+	public boolean isDataDeclared() { return true; }
+	
 	// Do Task -------------------------------------------------------------------------------------
 	
 	/** Performs the task */ @Override
 	public Object[] doTask(CompileProduct pContext, TaskEntry pTE, TaskOptions pOptions, Object[] pIns) {
+		if(pContext.isCancelled()) return null;
 		if(pIns[0] == null) return null;
 		CharSequence Source = (pIns[0] instanceof CharSequence)?(CharSequence)pIns[0]:(pIns[0] == null)?"":pIns[0].toString();
 		
@@ -27,6 +27,7 @@ public class PartialParseTask extends ParseTask {
 	
 	/** Performs the task */
 	@Override public Object[] doTask(CompileProduct pContext, TaskEntry pTE, TaskOptions pOptions, Object[] pIns) {
+		if(pContext.isCancelled()) return null;
 		if(pIns[0] == null) return null;
 		CharSequence Source = (pIns[0] instanceof CharSequence)?(CharSequence)pIns[0]:(pIns[0] == null)?"":pIns[0].toString();
 		int          Offset = (pIns[1] instanceof Integer     )?(Integer)pIns[1]     :0;
@@ -0,0 +1,79 @@
+/*----------------------------------------------------------------------------------------------------------------------
+ * Copyright (C) 2008-2021 Nawapunth Manusitthipol. Implements with and for Java 11 JDK.
+ *----------------------------------------------------------------------------------------------------------------------
+ * LICENSE:
+ * 
+ * This file is part of Nawa's SimpleCompiler.
+ * 
+ * The project is a free software; you can redistribute it and/or modify it under the SIMILAR terms of the GNU General
+ * Public License as published by the Free Software Foundation; either version 2 of the License, or any later version.
+ * You are only required to inform me about your modification and redistribution as or as part of commercial software
+ * package. You can inform me via nawa<at>nawaman<dot>net.
+ * 
+ * The project is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the 
+ * implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ * ---------------------------------------------------------------------------------------------------------------------
+ */
+
+package net.nawaman.compiler;
+
+import java.lang.ref.SoftReference;
+
+/**
+ * The holder of a recomputable code data (see TaskEntry).
+ * 
+ * The value is held by a soft reference so it may be dropped under memory pressure. When it is accessed after being
+ * dropped, the task entry producing it is performed again for the code and the new value is held.
+ *
+ * @author Nawapunth Manusitthipol (https://github.com/NawaMan)
+ */
+final class RecomputableData {
+	
+	RecomputableData(CompileProduct pProduct, TaskEntry pEntry, int pOutputIndex, Object pValue) {
+		this.Product     = pProduct;
+		this.Entry       = pEntry;
+		this.OutputIndex = pOutputIndex;
+		this.Ref         = newRef(pValue);
+	}
+	
+	/** The product the data was produced in (used to recompute when the reader cannot) */
+	final CompileProduct Product;
+	final TaskEntry      Entry;
+	final int            OutputIndex;
+	
+	private volatile SoftReference<Object> Ref;
+	
+	/** The value held in place of a null value (so a null output is not taken as a dropped one) */
+	static private final Object NullValue = new Object();
+	
+	/** Returns the reference holding the value */
+	static private SoftReference<Object> newRef(Object pValue) {
+		return new SoftReference<Object>((pValue == null)?NullValue:pValue);
+	}
+	
+	/** Returns the value (recomputing it if it was dropped) */
+	Object get(CompilationData pReader, int pFeederIndex, int pCodeIndex) {
+		Object Value = this.Ref.get();
+		if(Value != null) return (Value == NullValue)?null:Value;
+		
+		synchronized(this) {
+			Value = this.Ref.get();
+			if(Value != null) return (Value == NullValue)?null:Value;
+			
+			CompileProduct Recomputer = this.Product;
+			if((pReader instanceof CompileProduct) && (((CompileProduct)pReader).getSession() != null))
+				Recomputer = (CompileProduct)pReader;
+			
+			DataRef                       ORef  = this.Entry.getOutputRef(this.OutputIndex);
+			CompileProduct.RecomputeDatas Datas = Recomputer.recompute(pFeederIndex, pCodeIndex, this.Entry);
+			if((Datas == null) || !Datas.Outputs.containsKey(ORef)) {
+				throw new CompilationException(String.format("Unable to recompute the data `%s` of the code `%s`.",
+						ORef.getDataName(), pReader.getCodeName(pFeederIndex, pCodeIndex)));
+			}
+			Value = Datas.Outputs.get(ORef);
+			this.Ref = newRef(Value);
+			return Value;
+		}
+	}
+}
@@ -0,0 +1,228 @@
+/*----------------------------------------------------------------------------------------------------------------------
+ * Copyright (C) 2008-2021 Nawapunth Manusitthipol. Implements with and for Java 11 JDK.
+ *----------------------------------------------------------------------------------------------------------------------
+ * LICENSE:
+ * 
+ * This file is part of Nawa's SimpleCompiler.
+ * 
+ * The project is a free software; you can redistribute it and/or modify it under the SIMILAR terms of the GNU General
+ * Public License as published by the Free Software Foundation; either version 2 of the License, or any later version.
+ * You are only required to inform me about your modification and redistribution as or as part of commercial software
+ * package. You can inform me via nawa<at>nawaman<dot>net.
+ * 
+ * The project is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the 
+ * implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ * ---------------------------------------------------------------------------------------------------------------------
+ */
+
+package net.nawaman.compiler;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Mapping of the positions of an adjusted text back to the original positions (see Code.Adjusted).
+ * 
+ * The adjusted text is divided into segments. A linear segment is a copy of the original text so a position in it maps
+ * to the original start of the segment plus the offset into it. A generated segment (e.g., a macro expansion) maps all
+ * its positions to a single original position. Each segment also refers to the code the original is in (null means
+ * the original source of the adjusted code itself). A position is looked up by a binary search over the segment starts
+ * so the memory used and the lookup time depend on the number of segments, not the length of the text.
+ * 
+ * A map can be composed with the map of the previous adjustment (see <code>compose(SourceMap)</code>) so a chain of
+ * adjustments (e.g., macro expansion followed by include inlining) maps to the original source directly.
+ *
+ * @author Nawapunth Manusitthipol (https://github.com/NawaMan)
+ */
+final public class SourceMap implements Serializable {
+	
+	private static final long serialVersionUID = 5871020339046251447L;
+	
+	private SourceMap(int pLength, int pCount, int[] pStarts, int[] pOriginalPoss, CodeRef[] pRefs,
+			boolean[] pIsGenerateds) {
+		this.Length        = pLength;
+		this.Starts        = Arrays.copyOf(pStarts,       pCount);
+		this.OriginalPoss  = Arrays.copyOf(pOriginalPoss, pCount);
+		this.Refs          = Arrays.copyOf(pRefs,         pCount);
+		this.IsGenerateds  = Arrays.copyOf(pIsGenerateds, pCount);
+	}
+	
+	/** The length of the adjusted text        */ final int       Length;
+	/** The start of each segment               */ final int[]     Starts;
+	/** The original position of each segment  */ final int[]     OriginalPoss;
+	/** The original code of each segment       */ final CodeRef[] Refs;
+	/** Checks if each segment is generated     */ final boolean[] IsGenerateds;
+	
+	/** Returns a map of a text that is not adjusted */
+	static public SourceMap identity(int pLength) {
+		return new Builder().copy(pLength, 0).build();
+	}
+	/** Returns a map from the original position of each character of the adjusted text (compressed into segments) */
+	static public SourceMap of(int[] pOriginalPoss) {
+		Builder TheBuilder = new Builder();
+		for(int i = 0; i < ((pOriginalPoss == null)?0:pOriginalPoss.length); i++) TheBuilder.copy(1, pOriginalPoss[i]);
+		return TheBuilder.build();
+	}
+	
+	/** Returns the length of the adjusted text */
+	public int getLength() {
+		return this.Length;
+	}
+	/** Returns the number of the segments */
+	public int getSegmentCount() {
+		return this.Starts.length;
+	}
+	
+	/**
+	 * Returns the index of the segment of the position in the adjusted text (-1 if the position is out of the text).
+	 * The end of the text (the position of the length) is in the last segment so it maps to the end of its original.
+	 **/
+	public int indexOfSegment(int pPos) {
+		if((pPos < 0) || (pPos > this.Length) || (this.Starts.length == 0)) return -1;
+		int Low  = 0;
+		int High = this.Starts.length - 1;
+		while(Low < High) {
+			int Mid = (Low + High + 1) >>> 1;
+			if(this.Starts[Mid] <= pPos) Low  = Mid;
+			else                         High = Mid - 1;
+		}
+		return Low;
+	}
+	
+	/** Returns the code of the original of the position (null means the original source of the adjusted code) */
+	public CodeRef getOriginalRef(int pPos) {
+		int Index = this.indexOfSegment(pPos);
+		return (Index == -1)?null:this.Refs[Index];
+	}
+	/** Returns the original position of the position in the adjusted text (-1 if the position is out of the text) */
+	public int getOriginalPos(int pPos) {
+		int Index = this.indexOfSegment(pPos);
+		if(Index == -1) return -1;
+		if(this.IsGenerateds[Index]) return this.OriginalPoss[Index];
+		return this.OriginalPoss[Index] + (pPos - this.Starts[Index]);
+	}
+	
+	/**
+	 * Returns the map of this adjustment applied after the previous adjustment.
+	 * 
+	 * The positions this map refers to without a code are the positions in the text adjusted by the previous map so
+	 * they are mapped again through the previous map. The positions in other codes are kept.
+	 **/
+	public SourceMap compose(SourceMap pPrevious) {
+		if(pPrevious == null) throw new NullPointerException();
+		
+		Builder TheBuilder = new Builder();
+		for(int s = 0; s < this.Starts.length; s++) {
+			int     Length   = ((s + 1 < this.Starts.length)?this.Starts[s + 1]:this.Length) - this.Starts[s];
+			int     Original = this.OriginalPoss[s];
+			CodeRef Ref      = this.Refs[s];
+			if(Ref != null) {
+				TheBuilder.add(Length, Ref, Original, this.IsGenerateds[s]);
+				continue;
+			}
+			if(this.IsGenerateds[s]) {
+				int Pos = Math.max(0, Math.min(Original, pPrevious.Length));
+				TheBuilder.add(Length, pPrevious.getOriginalRef(Pos), pPrevious.getOriginalPos(Pos), true);
+				continue;
+			}
+			
+			// Split the linear segment by the segments of the previous map
+			for(int Pos = Original; Pos < (Original + Length); ) {
+				int P = (Pos < pPrevious.Length)?pPrevious.indexOfSegment(Pos):-1;
+				if(P == -1) {	// Beyond the previous text
+					TheBuilder.add(Original + Length - Pos, null, -1, true);
+					break;
+				}
+				int PEnd  = (P + 1 < pPrevious.Starts.length)?pPrevious.Starts[P + 1]:pPrevious.Length;
+				int Chunk = Math.min(PEnd, Original + Length) - Pos;
+				if(pPrevious.IsGenerateds[P])
+					 TheBuilder.add(Chunk, pPrevious.Refs[P], pPrevious.OriginalPoss[P], true);
+				else TheBuilder.add(Chunk, pPrevious.Refs[P], pPrevious.OriginalPoss[P] + (Pos - pPrevious.Starts[P]), false);
+				Pos += Chunk;
+			}
+		}
+		return TheBuilder.build();
+	}
+	
+	/** Returns the map as a string */
+	@Override public String toString() {
+		StringBuilder SB = new StringBuilder("SourceMap[");
+		for(int s = 0; s < this.Starts.length; s++) {
+			if(s != 0) SB.append(", ");
+			SB.append(this.Starts[s]).append(this.IsGenerateds[s]?"=>":"->");
+			if(this.Refs[s] != null) SB.append(this.Refs[s]).append('@');
+			SB.append(this.OriginalPoss[s]);
+		}
+		return SB.append("](").append(this.Length).append(')').toString();
+	}
+	
+	// Builder ---------------------------------------------------------------------------------------------------------
+	
+	/** Builds a source map by appending the segments in the order of the adjusted text */
+	static public final class Builder {
+		
+		int       Length        = 0;
+		int       Count         = 0;
+		int[]     Starts        = new int[16];
+		int[]     OriginalPoss  = new int[16];
+		CodeRef[] Refs          = new CodeRef[16];
+		boolean[] IsGenerateds  = new boolean[16];
+		
+		/** Appends a text copied from the original source of the adjusted code */
+		public Builder copy(int pLength, int pOriginalStart) {
+			return this.add(pLength, null, pOriginalStart, false);
+		}
+		/** Appends a text copied from the code */
+		public Builder copy(int pLength, CodeRef pRef, int pOriginalStart) {
+			return this.add(pLength, pRef, pOriginalStart, false);
+		}
+		/** Appends a generated text for the position in the original source of the adjusted code */
+		public Builder generate(int pLength, int pOriginalPos) {
+			return this.add(pLength, null, pOriginalPos, true);
+		}
+		/** Appends a generated text for the position in the code */
+		public Builder generate(int pLength, CodeRef pRef, int pOriginalPos) {
+			return this.add(pLength, pRef, pOriginalPos, true);
+		}
+		
+		/** Appends a segment (merged with the last one if it continues it) */
+		Builder add(int pLength, CodeRef pRef, int pOriginalPos, boolean pIsGenerated) {
+			if(pLength <  0) throw new IllegalArgumentException("Negative segment length: " + pLength);
+			if(pLength == 0) return this;
+			
+			int Last = this.Count - 1;
+			if((Last >= 0) && (this.Refs[Last] == pRef) && (this.IsGenerateds[Last] == pIsGenerated)) {
+				int Expected = this.OriginalPoss[Last] + (pIsGenerated ? 0 : (this.Length - this.Starts[Last]));
+				if(Expected == pOriginalPos) {
+					this.Length += pLength;
+					return this;
+				}
+			}
+			
+			if(this.Count == this.Starts.length) {
+				int Capacity = this.Count*2;
+				this.Starts       = Arrays.copyOf(this.Starts,       Capacity);
+				this.OriginalPoss = Arrays.copyOf(this.OriginalPoss, Capacity);
+				this.Refs         = Arrays.copyOf(this.Refs,         Capacity);
+				this.IsGenerateds = Arrays.copyOf(this.IsGenerateds, Capacity);
+			}
+			this.Starts      [this.Count] = this.Length;
+			this.OriginalPoss[this.Count] = pOriginalPos;
+			this.Refs        [this.Count] = pRef;
+			this.IsGenerateds[this.Count] = pIsGenerated;
+			this.Count++;
+			this.Length += pLength;
+			return this;
+		}
+		
+		/** Returns the length of the adjusted text so far */
+		public int getLength() {
+			return this.Length;
+		}
+		/** Builds the source map */
+		public SourceMap build() {
+			return new SourceMap(this.Length, this.Count, this.Starts, this.OriginalPoss, this.Refs, this.IsGenerateds);
+		}
+	}
+}
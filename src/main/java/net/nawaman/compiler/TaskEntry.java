@@ -14,6 +14,17 @@ final public class TaskEntry extends net.nawaman.task.TaskEntry implements Seria
 	}
 	
 	public TaskEntry(TaskForCompiler pTask, String[] pInNames, String[] pOutNames) {
+		this(pTask, pInNames, pOutNames, null);
+	}
+	
+	/**
+	 * Constructs a task entry marking which outputs are recomputable.
+	 * 
+	 * A recomputable output of a code task is held by a soft reference so it may be dropped under memory pressure. The
+	 * next time it is accessed, the entry is performed again for that code to recompute it. The task must, therefore,
+	 * be deterministic and should not report messages.
+	 **/
+	public TaskEntry(TaskForCompiler pTask, String[] pInNames, String[] pOutNames, boolean[] pIsRecomputables) {
 		if(pTask == null) throw new NullPointerException();
 		this.Task = pTask;
 		
@@ -27,13 +38,63 @@ final public class TaskEntry extends net.nawaman.task.TaskEntry implements Seria
 		for(int i = InCount; --i >= 0; ) {
 			String IName = (pInNames == null)?null:pInNames[i];
 			if(IName == null) throw new NullPointerException();
-			this.DRIns[i] = new DataRef(IName);
+			this.DRIns[i]     = new DataRef(IName);
+			this.DRIns[i].Key = DataKey.resolve(IName, pTask);
 		}
 		for(int i = OutCount; --i >= 0; ) {
 			String OName = (pOutNames == null)?null:pOutNames[i];
 			if(OName == null) throw new NullPointerException();
 			this.DROuts[i] = new DataRef(OName);
+			this.DROuts[i].Key         = DataKey.resolve(OName, pTask);
+			this.DROuts[i].Entry       = this;
+			this.DROuts[i].OutputIndex = i;
+			
+			boolean IsRecomputable = (pIsRecomputables != null) && (i < pIsRecomputables.length) && pIsRecomputables[i];
+			if(IsRecomputable && !pTask.isCodeTask())
+				throw new IllegalArgumentException("Only the outputs of a code task can be recomputable '"+pTask.getName()+"'.");
+			this.DROuts[i].IsRecomputable = IsRecomputable;
+		}
+	}
+	
+	/** Creates a task entry using the keys as the inputs and the outputs */
+	static public TaskEntry of(TaskForCompiler pTask, DataKey<?>[] pIns, DataKey<?>[] pOuts) {
+		return of(pTask, pIns, pOuts, null);
+	}
+	/**
+	 * Creates a task entry using the keys as the inputs and the outputs marking which outputs are recomputable.
+	 * 
+	 * The type of each key is checked against the type of the task input or output so a mismatch is found when the
+	 * pipeline is built. The scope and the slot of the keys are used when the data are accessed.
+	 **/
+	static public TaskEntry of(TaskForCompiler pTask, DataKey<?>[] pIns, DataKey<?>[] pOuts, boolean[] pIsRecomputables) {
+		if(pTask == null) throw new NullPointerException();
+		TaskEntry TE = new TaskEntry(pTask, getScopedNames(pIns), getScopedNames(pOuts), pIsRecomputables);
+		for(int i = TE.DRIns.length; --i >= 0; ) {
+			if(!pIns[i].canProvide(pTask.getInputType(i)))
+				throw new IllegalArgumentException("Incompatible input type #"+i+" "+pIns[i]+" '"+pTask.getName()+"'.");
+			TE.DRIns[i].Key = pIns[i];
+		}
+		for(int i = TE.DROuts.length; --i >= 0; ) {
+			if(!pOuts[i].canAccept(pTask.getOutputType(i)))
+				throw new IllegalArgumentException("Incompatible output type #"+i+" "+pOuts[i]+" '"+pTask.getName()+"'.");
+			TE.DROuts[i].Key = pOuts[i];
+		}
+		return TE;
+	}
+	static private String[] getScopedNames(DataKey<?>[] pKeys) {
+		if(pKeys == null) return null;
+		String[] Names = new String[pKeys.length];
+		for(int i = pKeys.length; --i >= 0; ) {
+			if(pKeys[i] == null) throw new NullPointerException();
+			Names[i] = pKeys[i].getScopedName();
 		}
+		return Names;
+	}
+	
+	/** Checks if the output at the index is recomputable */
+	public boolean isRecomputable(int I) {
+		if((I < 0) || (I >= this.getOutputCount())) return false;
+		return this.DROuts[I].IsRecomputable;
 	}
 	
 	DataRef[]       DRIns;
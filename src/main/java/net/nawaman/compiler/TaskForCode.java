@@ -7,6 +7,29 @@ abstract public class TaskForCode extends TaskForCompiler {
 
     /** Checks if the task is a code task */
 	@Override public boolean isCodeTask() { return true; }
+	
+	/**
+	 * Checks if the task can be performed on many codes at the same time.
+	 * 
+	 * A parallelizable task must only access the data of the current code (or arbitrary data) and must not hold a
+	 * per-code state in the task itself.
+	 **/
+	public boolean isParallelizable() { return false; }
+	
+	static private final String[] NoCodeName = new String[0];
+	
+	/**
+	 * Returns the names of the other codes (of the same feeder) that the outputs of this task on the code depend on.
+	 * 
+	 * An incremental compilation (see <code>Compiler.recompile(...)</code>) reuses the outputs of a code only when the
+	 * code and all the codes it depends on (and theirs) are unchanged; the outputs loaded from a compile cache are
+	 * used only when the same holds for the codes found in the cache. The given product holds the outputs to be reused
+	 * and may be used to find the dependencies (e.g., the imports found by the previous compilation or loaded from the
+	 * cache). Returns null if the outputs may depend on any code.
+	 **/
+	public String[] getDependedCodeNames(CompileProduct pPrevious, int pFeederIndex, String pCodeName) {
+		return NoCodeName;
+	}
 
 	// SubClass --------------------------------------------------------------------------------------------------------
 	
@@ -1,5 +1,6 @@
 package net.nawaman.compiler;
 
+import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
 import java.io.OutputStream;
 
@@ -69,6 +70,25 @@ abstract public class TaskForCodeUsingRegParser extends TaskForCode.Simple {
 	}
 	public ParserTypeProvider getTypeProvider() { return this.Provider; }
 	
+	/** Mixes the parser types into the fingerprint so the cached outputs are dropped when the grammar changes */
+	@Override public long getFingerprint() {
+		long Hash = super.getFingerprint();
+		if(this.Provider == null) return Hash;
+		
+		ByteArrayOutputStream BAOS = new ByteArrayOutputStream();
+		try {
+			ParserTypeProvider.Simple.saveTypeProviderToStream(BAOS, this.Provider);
+		} catch(Exception E) {
+			// The provider cannot be saved so only its class can be used
+			return Hash ^ Code.FingerprintOf(this.Provider.getClass().getName());
+		}
+		for(byte B : BAOS.toByteArray()) {
+			Hash ^= (B & 0xFF);
+			Hash *= 0x100000001b3L;
+		}
+		return Hash;
+	}
+	
 	// Load and save ---------------------------------------------------------------------------------------------------
 	
 	final protected boolean tryToLoadFrom(InputStream pIS) {
@@ -69,6 +69,32 @@ abstract public class TaskForCompiler implements Task, Serializable {
 		return OTypes[I];
 	}
 	
+	// Data access ---------------------------------------------------------------------------------
+	
+	/**
+	 * Checks if the task accesses only the data of its inputs and outputs.
+	 * 
+	 * A task is given the whole compile product so it may read or write other data (arbitrary data or the data of other
+	 * codes). Only the tasks that declare they do not are performed out of their declaration order (see TaskGraph).
+	 **/
+	public boolean isDataDeclared() { return false; }
+	
+	// Fingerprint ---------------------------------------------------------------------------------
+	
+	/**
+	 * Returns the fingerprint of this task.
+	 * 
+	 * The fingerprint is used to tell if the cached outputs of the task are still valid (see CompileCache). A task which
+	 * result depends on more than its class, name and input/output types should mix that in.
+	 **/
+	public long getFingerprint() {
+		StringBuilder SB = new StringBuilder(this.getClass().getName());
+		SB.append(':').append(this.getName());
+		for(int i = 0; i < this.getInputCount();  i++) SB.append(" <").append(this.getInputType(i));
+		for(int i = 0; i < this.getOutputCount(); i++) SB.append(" >").append(this.getOutputType(i));
+		return Code.FingerprintOf(SB);
+	}
+	
 	// Do Task -------------------------------------------------------------------------------------
 
 	/** Performs the task */
@@ -79,7 +105,13 @@ abstract public class TaskForCompiler implements Task, Serializable {
 			throw new IllegalArgumentException("Task For Compiler only accept nawa.compiler.TaskEntry as a TaskEntry.");
 		return this.doTask(((CompileProduct)pContext), (TaskEntry)pTE, pOptions, pIns);
 	}
-	/** Performs the task */
+	/**
+	 * Performs the task.
+	 * 
+	 * A task that may run for long should check <code>pContext.isCancelled()</code> (or pass on
+	 * <code>pContext.getCancellationToken()</code>) and stop early once the compilation is cancelled or a fatal error is
+	 * reported.
+	 **/
 	abstract public Object[] doTask(CompileProduct pContext, TaskEntry pTE, TaskOptions pOptions, Object[] pIns);
 	
 	// Utilities -------------------------------------------------------------------------------------------------------
@@ -0,0 +1,144 @@
+/*----------------------------------------------------------------------------------------------------------------------
+ * Copyright (C) 2008-2021 Nawapunth Manusitthipol. Implements with and for Java 11 JDK.
+ *----------------------------------------------------------------------------------------------------------------------
+ * LICENSE:
+ * 
+ * This file is part of Nawa's SimpleCompiler.
+ * 
+ * The project is a free software; you can redistribute it and/or modify it under the SIMILAR terms of the GNU General
+ * Public License as published by the Free Software Foundation; either version 2 of the License, or any later version.
+ * You are only required to inform me about your modification and redistribution as or as part of commercial software
+ * package. You can inform me via nawa<at>nawaman<dot>net.
+ * 
+ * The project is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the 
+ * implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ * ---------------------------------------------------------------------------------------------------------------------
+ */
+
+
+package net.nawaman.compiler;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+import net.nawaman.task.TaskEntry;
+
+/**
+ * Dependency graph of task entries.
+ * 
+ * The dependencies are derived from the names of the input and the output data of each entry. An entry depends on an
+ * earlier entry if it reads a data the earlier one writes, writes a data the earlier one reads or writes the same
+ * data. The data name is resolved using the kind of the task (code or feeder) and the scope prefix ('C.', 'F.' or
+ * 'A.') so that a code data and a feeder data with the same name are not confused.
+ * 
+ * When the data an entry uses cannot be told from its entry (e.g., a compiler task that can access any data from the
+ * compile product, a task that does not declare it accesses only its inputs and outputs (see
+ * <code>TaskForCompiler.isDataDeclared()</code>) or an input/output referred without a name), the entry is treated as
+ * a barrier: it depends on all the entries before it and all the entries after it depend on it. This keeps the
+ * declaration order for them.
+ *
+ * @author Nawapunth Manusitthipol (https://github.com/NawaMan)
+ */
+final class TaskGraph {
+	
+	static private final int[] NoDependency = new int[0];
+	
+	private TaskGraph(int[][] pDependencies) {
+		this.Dependencies = pDependencies;
+	}
+	
+	final int[][] Dependencies;
+	
+	/** Returns the number of the task entries in the graph */
+	int getEntryCount() {
+		return this.Dependencies.length;
+	}
+	/** Returns the indexes of the entries that the entry at the index depends on */
+	int[] getDependencies(int pIndex) {
+		if((pIndex < 0) || (pIndex >= this.Dependencies.length)) return NoDependency;
+		return this.Dependencies[pIndex];
+	}
+	
+	/** Creates a task graph of the task entries */
+	static TaskGraph of(TaskEntry[] pTEs) {
+		int               Count    = (pTEs == null)?0:pTEs.length;
+		HashSet<String>[] Ins      = newSets(Count);
+		HashSet<String>[] Outs     = newSets(Count);
+		boolean[]         Barriers = new boolean[Count];
+		
+		for(int i = 0; i < Count; i++)
+			Barriers[i] = !collectDataNames(pTEs[i], Ins[i], Outs[i]);
+		
+		int[][] Dependencies = new int[Count][];
+		int[]   Buffer       = new int[Count];
+		for(int j = 0; j < Count; j++) {
+			int DCount = 0;
+			for(int i = 0; i < j; i++) {
+				if(Barriers[i] || Barriers[j]
+				|| isOverlapped(Outs[i], Ins[j]) || isOverlapped(Ins[i], Outs[j]) || isOverlapped(Outs[i], Outs[j]))
+					Buffer[DCount++] = i;
+			}
+			Dependencies[j] = (DCount == 0)?NoDependency:Arrays.copyOf(Buffer, DCount);
+		}
+		return new TaskGraph(Dependencies);
+	}
+	
+	/** Returns an array of the count empty name sets (also used by DataLiveness) */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	static HashSet<String>[] newSets(int pCount) {
+		HashSet<String>[] Sets = new HashSet[pCount];
+		for(int i = pCount; --i >= 0; ) Sets[i] = new HashSet<String>();
+		return Sets;
+	}
+	
+	static private boolean isOverlapped(HashSet<String> pSet1, HashSet<String> pSet2) {
+		if(pSet1.size() > pSet2.size()) return isOverlapped(pSet2, pSet1);
+		for(String Name : pSet1) {
+			if(pSet2.contains(Name)) return true;
+		}
+		return false;
+	}
+	
+	/**
+	 * Collects the scoped names of the data declared by the entry - Returns false if the data used cannot be told (the
+	 *    entry may also access data it does not declare).
+	 **/
+	static boolean collectDataNames(TaskEntry pTE, HashSet<String> pIns, HashSet<String> pOuts) {
+		if(pTE == null) return false;
+		if(!(pTE.getTask() instanceof TaskForCompiler)) return false;
+		
+		TaskForCompiler CT = (TaskForCompiler)pTE.getTask();
+		if(CT.isCompilerTask()) return false;
+		
+		char Scope = CT.isCodeTask()?'C':'F';
+		for(int i = 0; i < pTE.getInputCount(); i++) {
+			String Name = getScopedName(pTE.getInputRef(i), Scope);
+			if(Name == null) return false;
+			pIns.add(Name);
+		}
+		for(int i = 0; i < pTE.getOutputCount(); i++) {
+			String Name = getScopedName(pTE.getOutputRef(i), Scope);
+			if(Name == null) return false;
+			pOuts.add(Name);
+		}
+		return CT.isDataDeclared();
+	}
+	
+	/** Returns the name of the data with its scope (the same way CompileProduct resolves it) */
+	static private String getScopedName(net.nawaman.task.DataRef pRef, char pTaskScope) {
+		if(!(pRef instanceof DataRef)) return null;
+		String DName = ((DataRef)pRef).getDataName();
+		if(DName == null) return null;
+		
+		if((DName.length() >= 2) && (DName.charAt(1) == '.')) {
+			switch(DName.charAt(0)) {
+				case 'C': return "C." + DName.substring(2);
+				case 'F': return "F." + DName.substring(2);
+				case 'A': return "A." + DName.substring(2);
+			}
+		}
+		return pTaskScope + "." + DName;
+	}
+	
+}
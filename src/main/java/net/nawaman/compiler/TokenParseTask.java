@@ -28,6 +28,7 @@ public class TokenParseTask extends ParseTask {
 	
 	/** Performs the task */ @Override
 	public Object[] doTask(CompileProduct pContext, TaskEntry pTE, TaskOptions pOptions, Object[] pIns) {
+		if(pContext.isCancelled()) return null;
 		if(pIns[1] == null) return null;
 		String       PName  = pIns[0].toString();
 		CharSequence Source = (pIns[1] instanceof CharSequence)?(CharSequence)pIns[1]:(pIns[1] == null)?"":pIns[1].toString();
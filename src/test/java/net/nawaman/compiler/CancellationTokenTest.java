@@ -0,0 +1,87 @@
+/*----------------------------------------------------------------------------------------------------------------------
+ * Copyright (C) 2008-2021 Nawapunth Manusitthipol. Implements with and for Java 11 JDK.
+ *----------------------------------------------------------------------------------------------------------------------
+ * LICENSE:
+ * 
+ * This file is part of Nawa's SimpleCompiler.
+ * 
+ * The project is a free software; you can redistribute it and/or modify it under the SIMILAR terms of the GNU General
+ * Public License as published by the Free Software Foundation; either version 2 of the License, or any later version.
+ * You are only required to inform me about your modification and redistribution as or as part of commercial software
+ * package. You can inform me via nawa<at>nawaman<dot>net.
+ * 
+ * The project is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the 
+ * implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ * ---------------------------------------------------------------------------------------------------------------------
+ */
+
+package net.nawaman.compiler;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.CancellationException;
+
+import org.junit.Test;
+
+/**
+ * Tests of CancellationToken.
+ *
+ * @author Nawapunth Manusitthipol (https://github.com/NawaMan)
+ */
+public class CancellationTokenTest {
+	
+	@Test
+	public void testNewTokenIsActive() {
+		CancellationToken Token = new CancellationToken();
+		assertFalse(Token.isCancelled());
+		assertNull(Token.getReason());
+		Token.throwIfCancelled();
+	}
+	
+	@Test
+	public void testCancelKeepsTheFirstReason() {
+		CancellationToken Token = new CancellationToken();
+		assertTrue( Token.cancel(CancellationToken.Reason_FatalError));
+		assertFalse(Token.cancel(CancellationToken.Reason_Cancelled));
+		assertTrue(Token.isCancelled());
+		assertTrue(Token.isCancelledByFatalError());
+		assertEquals(CancellationToken.Reason_FatalError, Token.getReason());
+	}
+	
+	@Test
+	public void testCancelWithoutReason() {
+		CancellationToken Token = new CancellationToken();
+		Token.cancel(null);
+		assertEquals(CancellationToken.Reason_Cancelled, Token.getReason());
+		assertFalse(Token.isCancelledByFatalError());
+	}
+	
+	@Test(expected = CancellationException.class)
+	public void testThrowIfCancelled() {
+		CancellationToken Token = new CancellationToken();
+		Token.cancel(null);
+		Token.throwIfCancelled();
+	}
+	
+	@Test
+	public void testPassedDeadlineCancels() {
+		CancellationToken Token = new CancellationToken();
+		Token.setDeadline(System.nanoTime() - 1);
+		assertTrue(Token.isDeadlinePassed());
+		assertTrue(Token.isCancelled());
+		assertEquals(CancellationToken.Reason_Deadline, Token.getReason());
+		
+		// The cancellation stays even if the deadline is moved
+		Token.setDeadline(System.nanoTime() + 60_000_000_000L);
+		assertTrue(Token.isCancelled());
+	}
+	
+	@Test
+	public void testFutureDeadlineDoesNotCancel() {
+		CancellationToken Token = new CancellationToken();
+		Token.setDeadline(System.nanoTime() + 60_000_000_000L);
+		assertFalse(Token.isDeadlinePassed());
+		assertFalse(Token.isCancelled());
+	}
+}
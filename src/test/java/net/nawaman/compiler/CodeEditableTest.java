@@ -0,0 +1,142 @@
+/*----------------------------------------------------------------------------------------------------------------------
+ * Copyright (C) 2008-2021 Nawapunth Manusitthipol. Implements with and for Java 11 JDK.
+ *----------------------------------------------------------------------------------------------------------------------
+ * LICENSE:
+ * 
+ * This file is part of Nawa's SimpleCompiler.
+ * 
+ * The project is a free software; you can redistribute it and/or modify it under the SIMILAR terms of the GNU General
+ * Public License as published by the Free Software Foundation; either version 2 of the License, or any later version.
+ * You are only required to inform me about your modification and redistribution as or as part of commercial software
+ * package. You can inform me via nawa<at>nawaman<dot>net.
+ * 
+ * The project is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the 
+ * implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ * ---------------------------------------------------------------------------------------------------------------------
+ */
+
+package net.nawaman.compiler;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests of Code.Editable.
+ *
+ * @author Nawapunth Manusitthipol (https://github.com/NawaMan)
+ */
+public class CodeEditableTest {
+	
+	static final String[] Texts = { "", "x", "yz", "\n", "\r\n", "a\nb", "\r", "long text\nwith lines\n" };
+	
+	@Test
+	public void testEdits() {
+		Code.Editable TheCode = new Code.Editable("Test", "Hello\nWorld");
+		TheCode.insert(5, ",");
+		assertEquals("Hello,\nWorld", TheCode.getSourceString());
+		TheCode.delete(0, 1);
+		assertEquals("ello,\nWorld", TheCode.getSourceString());
+		TheCode.replace(5, 6, " ");
+		assertEquals("ello, World", TheCode.getSourceString());
+		assertEquals(1, TheCode.getLineCount());
+		assertEquals(3, TheCode.getRevision());
+		CodeLineIndexTest.assertLineIndex(TheCode);
+	}
+	
+	@Test
+	public void testTyping() {
+		Code.Editable TheCode = new Code.Editable("Test", "");
+		String        Typed   = "line one\nline two\n";
+		for(int i = 0; i < Typed.length(); i++) TheCode.insert(i, Typed.substring(i, i + 1));
+		assertEquals(Typed, TheCode.getSourceString());
+		assertEquals(3, TheCode.getLineCount());
+		CodeLineIndexTest.assertLineIndex(TheCode);
+	}
+	
+	@Test
+	public void testRandomEditsMatchTheText() {
+		Random        TheRandom = new Random(11);
+		StringBuilder Expected  = new StringBuilder("start\nof the\r\ntext");
+		Code.Editable TheCode   = new Code.Editable("Test", Expected);
+		for(int i = 0; i < 3000; i++) {	// More than the maximum piece count so the table is compacted
+			int    Start = TheRandom.nextInt(Expected.length() + 1);
+			int    End   = Math.min(Expected.length(), Start + TheRandom.nextInt(4));
+			String Text  = Texts[TheRandom.nextInt(Texts.length)];
+			TheCode.replace(Start, End, Text);
+			Expected.replace(Start, End, Text);
+			
+			if((i % 100) == 0) {
+				assertEquals(Expected.toString(), TheCode.getSourceString());
+				CodeLineIndexTest.assertLineIndex(TheCode);
+			}
+		}
+		assertEquals(Expected.toString(), TheCode.getSourceString());
+		assertEquals(Expected.length(),   TheCode.getSource().length());
+		assertEquals(Expected.substring(3, 20), TheCode.getSource().subSequence(3, 20).toString());
+		CodeLineIndexTest.assertLineIndex(TheCode);
+	}
+	
+	@Test
+	public void testEmptyEditIsNotAChange() {
+		Code.Editable TheCode = new Code.Editable("Test", "abc");
+		assertNull(TheCode.replace(1, 1, ""));
+		assertNull(TheCode.insert(1, null));
+		assertEquals(0, TheCode.getRevision());
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidRange() {
+		new Code.Editable("Test", "abc").delete(2, 4);
+	}
+	
+	@Test
+	public void testSnapshotIsNotChanged() {
+		Code.Editable TheCode  = new Code.Editable("Test", "abc\ndef");
+		Code          Snapshot = TheCode.snapshot();
+		TheCode.insert(0, "\n");
+		assertEquals("abc\ndef", Snapshot.getSourceString());
+		assertEquals(2, Snapshot.getLineCount());
+		assertEquals(3, TheCode.getLineCount());
+	}
+	
+	@Test
+	public void testChangesSince() {
+		Code.Editable TheCode = new Code.Editable("Test", "0123456789");
+		long          Start   = TheCode.getRevision();
+		TheCode.replace(2, 4, "abc");
+		TheCode.delete(7, 9);
+		assertEquals(2, TheCode.getChangesSince(Start).length);
+		assertEquals(1, TheCode.getChangesSince(Start + 1).length);
+		assertNull(TheCode.getChangeSince(TheCode.getRevision()));
+		
+		TheCode.discardChanges(Start + 1);
+		assertEquals(1, TheCode.getChangesSince(Start).length);
+	}
+	
+	@Test
+	public void testMergedChangeCoversAllEdits() {
+		Random        TheRandom = new Random(5);
+		Code.Editable TheCode   = new Code.Editable("Test", "The text before the edits\nis here.");
+		for(int n = 0; n < 200; n++) {
+			String Before   = TheCode.getSourceString();
+			long   Revision = TheCode.getRevision();
+			for(int i = TheRandom.nextInt(5) + 1; --i >= 0; ) {
+				int Start = TheRandom.nextInt(TheCode.getSource().length() + 1);
+				int End   = Math.min(TheCode.getSource().length(), Start + TheRandom.nextInt(3));
+				TheCode.replace(Start, End, Texts[TheRandom.nextInt(Texts.length)]);
+			}
+			
+			String               After  = TheCode.getSourceString();
+			Code.Editable.Change Change = TheCode.getChangeSince(Revision);
+			if(Change == null) continue;
+			assertEquals(TheCode.getRevision(), Change.getRevision());
+			assertEquals(Before.substring(0, Change.getStart()),  After.substring(0, Change.getStart()));
+			assertEquals(Before.substring(Change.getOldEnd()),    After.substring(Change.getNewEnd()));
+			assertEquals(After.length() - Before.length(),        Change.getDelta());
+		}
+	}
+}
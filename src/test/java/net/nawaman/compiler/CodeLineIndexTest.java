@@ -0,0 +1,154 @@
+/*----------------------------------------------------------------------------------------------------------------------
+ * Copyright (C) 2008-2021 Nawapunth Manusitthipol. Implements with and for Java 11 JDK.
+ *----------------------------------------------------------------------------------------------------------------------
+ * LICENSE:
+ * 
+ * This file is part of Nawa's SimpleCompiler.
+ * 
+ * The project is a free software; you can redistribute it and/or modify it under the SIMILAR terms of the GNU General
+ * Public License as published by the Free Software Foundation; either version 2 of the License, or any later version.
+ * You are only required to inform me about your modification and redistribution as or as part of commercial software
+ * package. You can inform me via nawa<at>nawaman<dot>net.
+ * 
+ * The project is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the 
+ * implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ * ---------------------------------------------------------------------------------------------------------------------
+ */
+
+package net.nawaman.compiler;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests of the line index of Code.
+ *
+ * @author Nawapunth Manusitthipol (https://github.com/NawaMan)
+ */
+public class CodeLineIndexTest {
+	
+	/** Checks the line, column and line bounds of every position against a scan of the source */
+	static void assertLineIndex(Code pCode) {
+		String Source = pCode.getSourceString();
+		int    Row    = 0;
+		int    Start  = 0;
+		for(int i = 0; i < Source.length(); i++) {
+			assertEquals("Row of " + i, Row,       pCode.getRowOf(i));
+			assertEquals("Col of " + i, i - Start, pCode.getColOf(i));
+			
+			char C = Source.charAt(i);
+			if((C == '\r') && ((i + 1) < Source.length()) && (Source.charAt(i + 1) == '\n')) continue;
+			if((C == '\r') || (C == '\n')) {
+				assertEquals("Start of " + Row, Start, pCode.getStartPosOfLine(Row));
+				assertEquals("End of "   + Row, i,     pCode.getEndPosOfLine(Row));
+				Row++;
+				Start = i + 1;
+			}
+		}
+		assertEquals(Row + 1,         pCode.getLineCount());
+		assertEquals(Start,           pCode.getStartPosOfLine(Row));
+		assertEquals(Source.length(), pCode.getEndPosOfLine(Row));
+	}
+	
+	@Test
+	public void testLines() {
+		Code TheCode = new Code.Simple("Test", "ab\ncde\n\nf");
+		assertEquals(4, TheCode.getLineCount());
+		assertEquals("ab",  TheCode.getLineAsString(0));
+		assertEquals("cde", TheCode.getLineAsString(1));
+		assertEquals("",    TheCode.getLineAsString(2));
+		assertEquals("f",   TheCode.getLineAsString(3));
+		assertNull(TheCode.getLine(4));
+		assertNull(TheCode.getLine(-1));
+		
+		assertEquals(1, TheCode.getRowOf(5));
+		assertEquals(2, TheCode.getColOf(5));
+		assertEquals(3, TheCode.getRowOf(8));
+		assertEquals(0, TheCode.getColOf(8));
+		assertLineIndex(TheCode);
+	}
+	
+	@Test
+	public void testNoNewLine() {
+		Code TheCode = new Code.Simple("Test", "abc");
+		assertEquals(1, TheCode.getLineCount());
+		assertEquals(0, TheCode.getRowOf(2));
+		assertEquals(2, TheCode.getColOf(2));
+		assertLineIndex(TheCode);
+	}
+	
+	@Test
+	public void testEmpty() {
+		Code TheCode = new Code.Simple("Test", "");
+		assertEquals(1, TheCode.getLineCount());
+		assertEquals(0, TheCode.getStartPosOfLine(0));
+		assertEquals(0, TheCode.getEndPosOfLine(0));
+		assertEquals(-1, TheCode.getRowOf(0));
+	}
+	
+	@Test
+	public void testPositionOutOfTheCode() {
+		Code TheCode = new Code.Simple("Test", "ab\ncd");
+		assertEquals(-1, TheCode.getRowOf(-1));
+		assertEquals(-1, TheCode.getColOf(-1));
+		assertEquals(-1, TheCode.getRowOf(5));
+		assertEquals(-1, TheCode.getColOf(5));
+		assertEquals(-1, TheCode.getStartPosOfLine(2));
+		assertEquals(-1, TheCode.getEndPosOfLine(2));
+	}
+	
+	@Test
+	public void testLineEndings() {
+		assertLineIndex(new Code.Simple("Test", "a\r\nb\rc\nd\r\n\r\ne\n\r"));
+		assertLineIndex(new Code.Simple("Test", "\r\n"));
+		assertLineIndex(new Code.Simple("Test", "\n\n\n"));
+	}
+	
+	@Test
+	public void testRandomText() {
+		Random        TheRandom = new Random(7);
+		StringBuilder SB        = new StringBuilder();
+		for(int i = 0; i < 5000; i++) {
+			int R = TheRandom.nextInt(20);
+			SB.append((R == 0)?"\n":(R == 1)?"\r\n":(R == 2)?"\r":"x");
+		}
+		assertLineIndex(new Code.Simple("Test", SB));
+	}
+	
+	@Test
+	public void testResolvePositions() {
+		Code  TheCode = new Code.Simple("Test", "ab\ncde\r\n\nfgh");
+		int[] Offsets = { 9, 0, 4, 4, -1, 12, 11, 7 };	// Unsorted, repeated and out of the code
+		int[] Cols    = new int[Offsets.length];
+		int[] Rows    = new int[Offsets.length];
+		TheCode.resolvePositions(Offsets, Cols, Rows);
+		for(int i = 0; i < Offsets.length; i++) {
+			assertEquals("Col of " + Offsets[i], TheCode.getColOf(Offsets[i]), Cols[i]);
+			assertEquals("Row of " + Offsets[i], TheCode.getRowOf(Offsets[i]), Rows[i]);
+		}
+		
+		// Resolve the first offsets only with the columns written over the offsets
+		int[] Buffer = Offsets.clone();
+		TheCode.resolvePositions(Buffer, 3, Buffer, null);
+		for(int i = 0; i < 3; i++) assertEquals(Cols[i], Buffer[i]);
+		assertEquals(Offsets[3], Buffer[3]);
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testResolvePositionsIntoShortOutput() {
+		new Code.Simple("Test", "abc").resolvePositions(new int[3], new int[2], null);
+	}
+	
+	@Test
+	public void testNearestValidPosition() {
+		Code TheCode = new Code.Simple("Test", "ab\ncde\nf");
+		assertEquals(0, TheCode.getNearestValidPositionOf(-1, 1));
+		assertEquals(4, TheCode.getNearestValidPositionOf( 1, 1));
+		assertEquals(6, TheCode.getNearestValidPositionOf(9, 1));	// Beyond the end of the line
+		assertEquals(8, TheCode.getNearestValidPositionOf(1, 9));	// Beyond the last line
+	}
+}
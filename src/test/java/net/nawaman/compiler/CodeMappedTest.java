@@ -0,0 +1,131 @@
+/*----------------------------------------------------------------------------------------------------------------------
+ * Copyright (C) 2008-2021 Nawapunth Manusitthipol. Implements with and for Java 11 JDK.
+ *----------------------------------------------------------------------------------------------------------------------
+ * LICENSE:
+ * 
+ * This file is part of Nawa's SimpleCompiler.
+ * 
+ * The project is a free software; you can redistribute it and/or modify it under the SIMILAR terms of the GNU General
+ * Public License as published by the Free Software Foundation; either version 2 of the License, or any later version.
+ * You are only required to inform me about your modification and redistribution as or as part of commercial software
+ * package. You can inform me via nawa<at>nawaman<dot>net.
+ * 
+ * The project is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the 
+ * implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ * ---------------------------------------------------------------------------------------------------------------------
+ */
+
+package net.nawaman.compiler;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.Vector;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Tests of Code.Mapped.
+ *
+ * @author Nawapunth Manusitthipol (https://github.com/NawaMan)
+ */
+public class CodeMappedTest {
+	
+	final Vector<File> Files = new Vector<File>();
+	
+	@After
+	public void deleteFiles() {
+		for(File F : this.Files) F.delete();
+	}
+	
+	File fileOf(byte[] pBytes) throws IOException {
+		File TheFile = File.createTempFile("CodeMappedTest", ".txt");
+		this.Files.add(TheFile);
+		java.nio.file.Files.write(TheFile.toPath(), pBytes);
+		return TheFile;
+	}
+	Code.Mapped mappedOf(String pText) throws IOException {
+		return new Code.Mapped("Test", this.fileOf(pText.getBytes(StandardCharsets.UTF_8)));
+	}
+	
+	@Test
+	public void testAscii() throws IOException {
+		Code.Mapped TheCode = this.mappedOf("abc\ndef");
+		assertTrue(TheCode.isSingleByte());
+		assertEquals("abc\ndef", TheCode.getSourceString());
+		assertEquals(2, TheCode.getLineCount());
+		CodeLineIndexTest.assertLineIndex(TheCode);
+	}
+	
+	@Test
+	public void testEmpty() throws IOException {
+		Code.Mapped TheCode = this.mappedOf("");
+		assertEquals(0, TheCode.getSource().length());
+		assertEquals("", TheCode.getSourceString());
+	}
+	
+	@Test
+	public void testUtf8() throws IOException {
+		String      Text    = "a\u00E9\u0E01\n\uD83D\uDE00z";	// 1, 2, 3 and 4 bytes (e acute, ko kai and a smiley)
+		Code.Mapped TheCode = this.mappedOf(Text);
+		assertFalse(TheCode.isSingleByte());
+		assertEquals(Text.length(), TheCode.getSource().length());
+		assertEquals(Text, TheCode.getSourceString());
+		assertEquals('\uDE00', TheCode.getSource().charAt(5));
+		CodeLineIndexTest.assertLineIndex(TheCode);
+	}
+	
+	@Test
+	public void testLatin1() throws IOException {
+		byte[]      Bytes   = { 'a', (byte)0xE9, '\n', (byte)0xFF };
+		Code.Mapped TheCode = new Code.Mapped("Test", this.fileOf(Bytes), true);
+		assertTrue(TheCode.isSingleByte());
+		assertEquals("a\u00E9\n\u00FF", TheCode.getSourceString());
+	}
+	
+	@Test
+	public void testMalformedBytes() throws IOException {
+		byte[] Bytes = {
+			'a', (byte)0xFF,                     // Invalid byte
+			'b', (byte)0xC3, 'c',                // Missing continuation
+			(byte)0xC0, (byte)0x80,              // Overlong
+			(byte)0xED, (byte)0xA0, (byte)0x80,  // Surrogate
+			'd', (byte)0xE2, (byte)0x82          // Truncated at the end
+		};
+		Code.Mapped TheCode = new Code.Mapped("Test", this.fileOf(Bytes));
+		assertEquals("a\uFFFDb\uFFFDc\uFFFD\uFFFD\uFFFD\uFFFD\uFFFDd\uFFFD\uFFFD", TheCode.getSourceString());
+	}
+	
+	@Test
+	public void testRandomAccessAcrossCheckpoints() throws IOException {
+		String[]      Parts     = { "x", "\n", "\u00E9", "\u0E01", "\uD83D\uDE00", "\r\n" };
+		Random        TheRandom = new Random(3);
+		StringBuilder SB        = new StringBuilder();
+		for(int i = 0; i < 8*1024; i++) SB.append("ascii prefix ".charAt(i % 13));	// Checkpoints in the ASCII prefix
+		while(SB.length() < 20*Code.Mapped.CheckpointSize) SB.append(Parts[TheRandom.nextInt(Parts.length)]);
+		String      Text    = SB.toString();
+		Code.Mapped TheCode = this.mappedOf(Text);
+		
+		assertEquals(Text.length(), TheCode.getSource().length());
+		assertEquals(Text, TheCode.getSourceString());
+		
+		CharSequence Source = TheCode.getSource();
+		for(int i = 0; i < 5000; i++) {
+			int Index = TheRandom.nextInt(Text.length());
+			assertEquals("Char at " + Index, Text.charAt(Index), Source.charAt(Index));
+		}
+		for(int i = Text.length(); --i >= 0; ) assertEquals("Char at " + i, Text.charAt(i), Source.charAt(i));
+		assertEquals(Text.substring(9000, 12000), Source.subSequence(9000, 12000).toString());
+		CodeLineIndexTest.assertLineIndex(TheCode);
+	}
+	
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testCharOutOfTheSource() throws IOException {
+		this.mappedOf("abc").getSource().charAt(3);
+	}
+}
@@ -0,0 +1,107 @@
+/*----------------------------------------------------------------------------------------------------------------------
+ * Copyright (C) 2008-2021 Nawapunth Manusitthipol. Implements with and for Java 11 JDK.
+ *----------------------------------------------------------------------------------------------------------------------
+ * LICENSE:
+ * 
+ * This file is part of Nawa's SimpleCompiler.
+ * 
+ * The project is a free software; you can redistribute it and/or modify it under the SIMILAR terms of the GNU General
+ * Public License as published by the Free Software Foundation; either version 2 of the License, or any later version.
+ * You are only required to inform me about your modification and redistribution as or as part of commercial software
+ * package. You can inform me via nawa<at>nawaman<dot>net.
+ * 
+ * The project is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the 
+ * implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ * ---------------------------------------------------------------------------------------------------------------------
+ */
+
+package net.nawaman.compiler;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+/**
+ * Tests of CodeNameIndex.
+ *
+ * @author Nawapunth Manusitthipol (https://github.com/NawaMan)
+ */
+public class CodeNameIndexTest {
+	
+	@Test
+	public void testIndexOf() {
+		CodeNameIndex Index = CodeNameIndex.of("A", "B", "C");
+		assertEquals(3, Index.size());
+		assertEquals(0, Index.indexOf("A"));
+		assertEquals(1, Index.indexOf("B"));
+		assertEquals(2, Index.indexOf("C"));
+		assertEquals(-1, Index.indexOf("D"));
+		assertEquals(-1, Index.indexOf(null));
+		assertTrue( Index.contains("B"));
+		assertFalse(Index.contains("D"));
+		assertEquals("C", Index.getName(2));
+		assertNull(Index.getName(3));
+		assertNull(Index.getName(-1));
+	}
+	
+	@Test
+	public void testFirstDuplicateIsIndexed() {
+		CodeNameIndex Index = CodeNameIndex.of("A", "B", "A");
+		assertEquals(3, Index.size());
+		assertEquals(0, Index.indexOf("A"));
+		assertEquals("A", Index.getName(2));
+	}
+	
+	@Test
+	public void testNullNameIsSkipped() {
+		CodeNameIndex Index = CodeNameIndex.of("A", null, "C");
+		assertEquals(3, Index.size());
+		assertEquals(2, Index.indexOf("C"));
+		assertNull(Index.getName(1));
+	}
+	
+	@Test
+	public void testEmpty() {
+		assertSame(CodeNameIndex.Empty, CodeNameIndex.of());
+		assertSame(CodeNameIndex.Empty, CodeNameIndex.of((String[])null));
+		assertSame(CodeNameIndex.Empty, CodeNameIndex.of(Arrays.<String>asList()));
+		assertEquals(-1, CodeNameIndex.Empty.indexOf("A"));
+	}
+	
+	@Test
+	public void testCollidingNames() {
+		// "Aa" and "BB" have the same hash code
+		CodeNameIndex Index = CodeNameIndex.of("Aa", "BB", "AaAa", "BBBB", "AaBB", "BBAa");
+		assertEquals(0, Index.indexOf("Aa"));
+		assertEquals(1, Index.indexOf("BB"));
+		assertEquals(2, Index.indexOf("AaAa"));
+		assertEquals(3, Index.indexOf("BBBB"));
+		assertEquals(4, Index.indexOf("AaBB"));
+		assertEquals(5, Index.indexOf("BBAa"));
+		assertEquals(-1, Index.indexOf("AaAaAa"));
+	}
+	
+	@Test
+	public void testManyNames() {
+		String[] Names = new String[1000];
+		for(int i = 0; i < Names.length; i++) Names[i] = "Code" + i;
+		CodeNameIndex Index = CodeNameIndex.of(Arrays.asList(Names));
+		for(int i = 0; i < Names.length; i++) assertEquals(i, Index.indexOf("Code" + i));
+		assertEquals(-1, Index.indexOf("Code" + Names.length));
+	}
+	
+	@Test
+	public void testNamesAreCopied() {
+		String[]      Names = { "A", "B" };
+		CodeNameIndex Index = CodeNameIndex.of(Names);
+		Names[0] = "X";
+		assertEquals(0, Index.indexOf("A"));
+		
+		String[] Copy = Index.getNames();
+		Copy[1] = "Y";
+		assertEquals(1, Index.indexOf("B"));
+	}
+}
@@ -0,0 +1,144 @@
+/*----------------------------------------------------------------------------------------------------------------------
+ * Copyright (C) 2008-2021 Nawapunth Manusitthipol. Implements with and for Java 11 JDK.
+ *----------------------------------------------------------------------------------------------------------------------
+ * LICENSE:
+ * 
+ * This file is part of Nawa's SimpleCompiler.
+ * 
+ * The project is a free software; you can redistribute it and/or modify it under the SIMILAR terms of the GNU General
+ * Public License as published by the Free Software Foundation; either version 2 of the License, or any later version.
+ * You are only required to inform me about your modification and redistribution as or as part of commercial software
+ * package. You can inform me via nawa<at>nawaman<dot>net.
+ * 
+ * The project is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the 
+ * implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ * ---------------------------------------------------------------------------------------------------------------------
+ */
+
+package net.nawaman.compiler;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * Tests of the copy-on-write sharing of the data of CompilationData.Simple (see <code>shareDataOf(...)</code> and
+ *    <code>CompileProduct.fork()</code>).
+ *
+ * @author Nawapunth Manusitthipol (https://github.com/NawaMan)
+ */
+public class CompilationDataSharingTest {
+	
+	static CompileProduct newProduct() {
+		CompileProduct Product = new CompileProduct("TheFeeder", "TheCode", "Code");
+		Product.setCodeData(0, "TheCode", "CData", "Source");
+		Product.setFeederData(0, "FData", "Source");
+		Product.setArbitraryData("AData", "Source");
+		return Product;
+	}
+	
+	static void assertData(CompilationData pData, String pValue) {
+		assertEquals(pValue, pData.getCodeData(0, "TheCode", "CData"));
+		assertEquals(pValue, pData.getFeederData(0, "FData"));
+		assertEquals(pValue, pData.getArbitraryData("AData"));
+	}
+	static void setData(CompilationData pData, String pValue) {
+		pData.setCodeData(0, "TheCode", "CData", pValue);
+		pData.setFeederData(0, "FData", pValue);
+		pData.setArbitraryData("AData", pValue);
+	}
+	
+	@Test
+	public void testForkHoldsTheData() {
+		CompileProduct Source = newProduct();
+		CompileProduct Fork   = Source.fork();
+		assertData(Fork, "Source");
+	}
+	
+	@Test
+	public void testWriteToForkDoesNotLeak() {
+		CompileProduct Source = newProduct();
+		CompileProduct Fork   = Source.fork();
+		setData(Fork, "Fork");
+		assertData(Fork,   "Fork");
+		assertData(Source, "Source");
+	}
+	
+	@Test
+	public void testWriteToSourceDoesNotLeak() {
+		CompileProduct Source = newProduct();
+		CompileProduct Fork   = Source.fork();
+		setData(Source, "Changed");
+		assertData(Source, "Changed");
+		assertData(Fork,   "Source");
+	}
+	
+	@Test
+	public void testWriteToForkOfForkDoesNotLeak() {
+		CompileProduct Source = newProduct();
+		CompileProduct Fork1  = Source.fork();
+		CompileProduct Fork2  = Fork1.fork();
+		setData(Fork2, "Fork2");
+		assertData(Source, "Source");
+		assertData(Fork1,  "Source");
+		assertData(Fork2,  "Fork2");
+		
+		setData(Fork1, "Fork1");
+		assertData(Source, "Source");
+		assertData(Fork1,  "Fork1");
+		assertData(Fork2,  "Fork2");
+	}
+	
+	@Test
+	public void testNewDataDoesNotLeak() {
+		CompileProduct Source = newProduct();
+		CompileProduct Fork   = Source.fork();
+		Fork.setCodeData(0, "TheCode", "New", "Fork");
+		Fork.setFeederData(0, "New", "Fork");
+		Fork.setArbitraryData("New", "Fork");
+		assertNull(Source.getCodeData(0, "TheCode", "New"));
+		assertNull(Source.getFeederData(0, "New"));
+		assertNull(Source.getArbitraryData("New"));
+	}
+	
+	@Test
+	public void testWriteAfterShareDataOfDoesNotLeak() {
+		CompileProduct Source = newProduct();
+		CompileProduct Target = new CompileProduct("Other");
+		Target.shareDataOf(Source);
+		assertData(Target, "Source");
+		
+		setData(Target, "Target");
+		assertData(Source, "Source");
+		
+		setData(Source, "Changed");
+		assertData(Target, "Target");
+	}
+	
+	@Test
+	public void testProductDoesNotChangeItsCodeFeeders() {
+		CodeFeeders    Feeders = new CodeFeeders(new CodeFeeder.CFCharSequence("TheFeeder", "TheCode", "Code"));
+		CompileProduct Product = new CompileProduct(Feeders) {};
+		Product.setFeederData(0, "FData", "Product");
+		Product.setCodeData(0, "TheCode", "CData", "Product");
+		assertNull(Feeders.getFeederData(0, "FData"));
+		assertNull(Feeders.getCodeData(0, "TheCode", "CData"));
+		assertSame(Feeders.getFeeder(0), Product.getFeederData(0, CodeFeeders.DataName_Feeder));
+	}
+	
+	@Test
+	public void testWriteAfterShareArbitraryDataOfDoesNotLeak() {
+		CompileProduct Source = newProduct();
+		CompileProduct Target = new CompileProduct("Other");
+		Target.shareArbitraryDataOf(Source);
+		assertEquals("Source", Target.getArbitraryData("AData"));
+		
+		Target.setArbitraryData("AData", "Target");
+		assertEquals("Source", Source.getArbitraryData("AData"));
+		
+		Source.setArbitraryData("AData", "Changed");
+		assertEquals("Target", Target.getArbitraryData("AData"));
+	}
+	
+}
@@ -0,0 +1,128 @@
+/*----------------------------------------------------------------------------------------------------------------------
+ * Copyright (C) 2008-2021 Nawapunth Manusitthipol. Implements with and for Java 11 JDK.
+ *----------------------------------------------------------------------------------------------------------------------
+ * LICENSE:
+ * 
+ * This file is part of Nawa's SimpleCompiler.
+ * 
+ * The project is a free software; you can redistribute it and/or modify it under the SIMILAR terms of the GNU General
+ * Public License as published by the Free Software Foundation; either version 2 of the License, or any later version.
+ * You are only required to inform me about your modification and redistribution as or as part of commercial software
+ * package. You can inform me via nawa<at>nawaman<dot>net.
+ * 
+ * The project is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the 
+ * implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ * ---------------------------------------------------------------------------------------------------------------------
+ */
+
+package net.nawaman.compiler;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests of CompileCache.
+ *
+ * @author Nawapunth Manusitthipol (https://github.com/NawaMan)
+ */
+public class CompileCacheTest {
+	
+	File Folder;
+	
+	@Before
+	public void createFolder() throws IOException {
+		this.Folder = Files.createTempDirectory("CompileCacheTest").toFile();
+	}
+	@After
+	public void deleteFolder() {
+		File[] Files = this.Folder.listFiles();
+		if(Files != null) for(File F : Files) F.delete();
+		this.Folder.delete();
+	}
+	
+	static Map<String, Object> outputsOf(String pName, int pSize) {
+		HashMap<String, Object> Outputs = new HashMap<String, Object>();
+		Outputs.put(pName, new byte[pSize]);
+		return Outputs;
+	}
+	
+	@Test
+	public void testStoreAndLoad() {
+		CompileCache Cache = new CompileCache(this.Folder, 1 << 20);
+		HashMap<String, Object> Outputs = new HashMap<String, Object>();
+		Outputs.put("Text",   "Hello");
+		Outputs.put("Number", 42);
+		assertTrue(Cache.store(1, 2, "Code", 3, Outputs));
+		
+		assertEquals(Outputs, Cache.load(1, 2, "Code", 3));
+		assertNull(Cache.load(9, 2, "Code",  3));	// Other pipeline
+		assertNull(Cache.load(1, 9, "Code",  3));	// Other options
+		assertNull(Cache.load(1, 2, "Other", 3));	// Other code
+		assertNull(Cache.load(1, 2, "Code",  9));	// Changed source
+	}
+	
+	@Test
+	public void testNoOptionIsTheZeroFingerprint() {
+		CompileCache Cache = new CompileCache(this.Folder, 1 << 20);
+		assertTrue(Cache.store(1, "Code", 3, outputsOf("Data", 10)));
+		assertNotNull(Cache.load(1, 0, "Code", 3));
+	}
+	
+	@Test
+	public void testUncachableOutput() {
+		CompileCache Cache = new CompileCache(this.Folder, 1 << 20);
+		HashMap<String, Object> Outputs = new HashMap<String, Object>();
+		Outputs.put("Data", new Object());
+		assertFalse(Cache.store(1, 2, "Code", 3, Outputs));
+		assertNull(Cache.load(1, 2, "Code", 3));
+		assertEquals(0, this.Folder.list().length);	// No temporary file is left
+	}
+	
+	@Test
+	public void testLeastRecentlyUsedIsEvicted() {
+		CompileCache Cache = new CompileCache(this.Folder, 2500);
+		assertTrue(Cache.store(1, 0, "A", 1, outputsOf("Data", 1000)));
+		assertTrue(Cache.store(1, 0, "B", 1, outputsOf("Data", 1000)));
+		
+		// Use A so B becomes the least recently used
+		assertNotNull(Cache.load(1, 0, "A", 1));
+		assertTrue(Cache.store(1, 0, "C", 1, outputsOf("Data", 1000)));
+		
+		assertNotNull(Cache.load(1, 0, "A", 1));
+		assertNull(   Cache.load(1, 0, "B", 1));
+		assertNotNull(Cache.load(1, 0, "C", 1));
+		assertTrue(Cache.getTotalBytes() <= Cache.getMaxBytes());
+		assertEquals(2, this.Folder.list().length);
+	}
+	
+	@Test
+	public void testIndexIsRebuiltFromTheFolder() {
+		CompileCache Cache = new CompileCache(this.Folder, 1 << 20);
+		assertTrue(Cache.store(1, 0, "A", 1, outputsOf("Data", 100)));
+		long TotalBytes = Cache.getTotalBytes();
+		
+		CompileCache Reopened = new CompileCache(this.Folder, 1 << 20);
+		assertEquals(TotalBytes, Reopened.getTotalBytes());
+		assertNotNull(Reopened.load(1, 0, "A", 1));
+	}
+	
+	@Test
+	public void testClear() {
+		CompileCache Cache = new CompileCache(this.Folder, 1 << 20);
+		assertTrue(Cache.store(1, 0, "A", 1, outputsOf("Data", 100)));
+		Cache.clear();
+		assertEquals(0, Cache.getTotalBytes());
+		assertNull(Cache.load(1, 0, "A", 1));
+		assertEquals(0, this.Folder.list().length);
+	}
+}
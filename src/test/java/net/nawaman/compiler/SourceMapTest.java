@@ -0,0 +1,164 @@
+/*----------------------------------------------------------------------------------------------------------------------
+ * Copyright (C) 2008-2021 Nawapunth Manusitthipol. Implements with and for Java 11 JDK.
+ *----------------------------------------------------------------------------------------------------------------------
+ * LICENSE:
+ * 
+ * This file is part of Nawa's SimpleCompiler.
+ * 
+ * The project is a free software; you can redistribute it and/or modify it under the SIMILAR terms of the GNU General
+ * Public License as published by the Free Software Foundation; either version 2 of the License, or any later version.
+ * You are only required to inform me about your modification and redistribution as or as part of commercial software
+ * package. You can inform me via nawa<at>nawaman<dot>net.
+ * 
+ * The project is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the 
+ * implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ * ---------------------------------------------------------------------------------------------------------------------
+ */
+
+package net.nawaman.compiler;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests of SourceMap.
+ *
+ * @author Nawapunth Manusitthipol (https://github.com/NawaMan)
+ */
+public class SourceMapTest {
+	
+	@Test
+	public void testIdentity() {
+		SourceMap Map = SourceMap.identity(10);
+		assertEquals(10, Map.getLength());
+		assertEquals(1,  Map.getSegmentCount());
+		for(int i = 0; i <= 10; i++) assertEquals(i, Map.getOriginalPos(i));
+		assertEquals(-1, Map.getOriginalPos(-1));
+		assertEquals(-1, Map.getOriginalPos(11));
+		assertNull(Map.getOriginalRef(5));
+	}
+	
+	@Test
+	public void testSegments() {
+		CodeRef   Other = new CodeRef.Simple(0, "Other");
+		SourceMap Map   = new SourceMap.Builder()
+				.copy(5, 10)           // [0, 5)   -> 10..14
+				.generate(3, 2)        // [5, 8)   => 2
+				.copy(4, Other, 20)    // [8, 12)  -> Other 20..23
+				.build();
+		assertEquals(12, Map.getLength());
+		assertEquals(3,  Map.getSegmentCount());
+		
+		assertEquals(10, Map.getOriginalPos(0));
+		assertEquals(14, Map.getOriginalPos(4));
+		assertEquals(2,  Map.getOriginalPos(5));
+		assertEquals(2,  Map.getOriginalPos(7));
+		assertEquals(20, Map.getOriginalPos(8));
+		assertEquals(23, Map.getOriginalPos(11));
+		assertNull(       Map.getOriginalRef(4));
+		assertSame(Other, Map.getOriginalRef(8));
+		assertEquals(2, Map.indexOfSegment(11));
+	}
+	
+	@Test
+	public void testEndPositionMapsThroughTheLastSegment() {
+		SourceMap Map = new SourceMap.Builder().copy(5, 10).generate(3, 2).copy(4, 20).build();
+		assertEquals(2,  Map.indexOfSegment(12));
+		assertEquals(24, Map.getOriginalPos(12));
+		assertEquals(-1, Map.getOriginalPos(13));
+		
+		SourceMap Generated = new SourceMap.Builder().copy(2, 0).generate(3, 7).build();
+		assertEquals(7, Generated.getOriginalPos(5));
+		
+		SourceMap Empty = SourceMap.identity(0);
+		assertEquals(-1, Empty.getOriginalPos(0));
+	}
+	
+	@Test
+	public void testContinuedSegmentsAreMerged() {
+		SourceMap Map = SourceMap.of(new int[] { 0, 1, 2, 3, 7, 8, 9 });
+		assertEquals(2, Map.getSegmentCount());
+		assertEquals(3, Map.getOriginalPos(3));
+		assertEquals(7, Map.getOriginalPos(4));
+		assertEquals(9, Map.getOriginalPos(6));
+		
+		SourceMap Generated = new SourceMap.Builder().generate(2, 5).generate(3, 5).build();
+		assertEquals(1, Generated.getSegmentCount());
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testNegativeLength() {
+		new SourceMap.Builder().copy(-1, 0);
+	}
+	
+	@Test
+	public void testCompose() {
+		// Include: [0, 4) of the source, then 6 characters from another code, then [4, 10) of the source
+		CodeRef   Other   = new CodeRef.Simple(0, "Other");
+		SourceMap Include = new SourceMap.Builder().copy(4, 0).copy(6, Other, 100).copy(6, 4).build();
+		// Macro: [0, 2) of the included text, a 3-character expansion of 2, then [5, 16) of the included text
+		SourceMap Macro   = new SourceMap.Builder().copy(2, 0).generate(3, 2).copy(11, 5).build();
+		SourceMap Both    = Macro.compose(Include);
+		
+		assertEquals(Macro.getLength(), Both.getLength());
+		assertEquals(1,   Both.getOriginalPos(1));
+		assertEquals(2,   Both.getOriginalPos(3));	// The expansion of 2 which is 2 in the source
+		assertEquals(101, Both.getOriginalPos(5));	// 5 of the included text is the second character of Other
+		assertSame(Other, Both.getOriginalRef(5));
+		assertEquals(4,   Both.getOriginalPos(10));	// 10 of the included text is 4 in the source
+		assertNull(       Both.getOriginalRef(10));
+		assertEquals(10,  Both.getOriginalPos(16));	// The end maps to the end of the source
+	}
+	
+	@Test
+	public void testComposeMatchesMappingTwice() {
+		Random TheRandom = new Random(13);
+		for(int n = 0; n < 50; n++) {
+			SourceMap First  = randomMap(TheRandom, 200);
+			SourceMap Second = randomMap(TheRandom, First.getLength());
+			SourceMap Both   = Second.compose(First);
+			assertEquals(Second.getLength(), Both.getLength());
+			for(int i = 0; i < Second.getLength(); i++) {
+				int Pos = Second.getOriginalPos(i);
+				assertEquals("Position " + i + " of " + Second + " after " + First,
+						First.getOriginalPos(Pos), Both.getOriginalPos(i));
+			}
+		}
+	}
+	
+	/** Returns a random map of a text adjusted from a text of the length (positions within the text only) */
+	static SourceMap randomMap(Random pRandom, int pLength) {
+		SourceMap.Builder TheBuilder = new SourceMap.Builder();
+		int               Pos        = 0;
+		while(Pos < pLength) {
+			int Length = 1 + pRandom.nextInt(Math.min(10, pLength - Pos));
+			if(pRandom.nextInt(4) == 0) TheBuilder.generate(1 + pRandom.nextInt(5), Pos);
+			else                        TheBuilder.copy(Length, Pos);
+			Pos += Length;
+		}
+		return TheBuilder.build();
+	}
+	
+	@Test
+	public void testAdjustedCode() {
+		SourceMap            Map     = new SourceMap.Builder().copy(3, 0).generate(4, 3).copy(3, 4).build();
+		Code.Adjusted.Simple TheCode = new Code.Adjusted.Simple("Test", "abcMdef", "abcXXXXdef", Map);
+		assertEquals(5, TheCode.getOriginalPos(8));
+		
+		// Adjust again: drop the first 3 characters
+		SourceMap            Drop  = new SourceMap.Builder().copy(7, 3).build();
+		Code.Adjusted.Simple Again = TheCode.adjust("XXXXdef", Drop);
+		assertEquals(3, Again.getOriginalPos(0));
+		assertEquals(5, Again.getOriginalPos(5));
+		assertEquals(7, Again.getOriginalPos(7));
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testMapMustMatchTheAdjustedText() {
+		new Code.Adjusted.Simple("Test", "abc", "abcd", SourceMap.identity(3));
+	}
+}
@@ -0,0 +1,224 @@
+/*----------------------------------------------------------------------------------------------------------------------
+ * Copyright (C) 2008-2021 Nawapunth Manusitthipol. Implements with and for Java 11 JDK.
+ *----------------------------------------------------------------------------------------------------------------------
+ * LICENSE:
+ * 
+ * This file is part of Nawa's SimpleCompiler.
+ * 
+ * The project is a free software; you can redistribute it and/or modify it under the SIMILAR terms of the GNU General
+ * Public License as published by the Free Software Foundation; either version 2 of the License, or any later version.
+ * You are only required to inform me about your modification and redistribution as or as part of commercial software
+ * package. You can inform me via nawa<at>nawaman<dot>net.
+ * 
+ * The project is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the 
+ * implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for
+ * more details.
+ * ---------------------------------------------------------------------------------------------------------------------
+ */
+
+package net.nawaman.compiler;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import net.nawaman.task.TaskOptions;
+
+/**
+ * Tests of TaskGraph and the performing of task entries following it.
+ *
+ * @author Nawapunth Manusitthipol (https://github.com/NawaMan)
+ */
+public class TaskGraphTest {
+	
+	/** A feeder task that logs when it starts and ends */
+	static class LogTask extends TaskForFeeder.Simple {
+		
+		private static final long serialVersionUID = 4629381270163826513L;
+		
+		LogTask(String pName, int pInCount, int pOutCount, boolean pIsDataDeclared, List<String> pLog,
+				CountDownLatch pLatch) {
+			super(pName, typesOf(pInCount), typesOf(pOutCount));
+			this.IsDataDeclared = pIsDataDeclared;
+			this.Log            = pLog;
+			this.Latch          = pLatch;
+		}
+		
+		final boolean                  IsDataDeclared;
+		final transient List<String>   Log;
+		final transient CountDownLatch Latch;
+		volatile boolean               IsOverlapped = false;
+		
+		static Class<?>[] typesOf(int pCount) {
+			Class<?>[] Types = new Class<?>[pCount];
+			Arrays.fill(Types, Object.class);
+			return Types;
+		}
+		
+		@Override public boolean isDataDeclared() { return this.IsDataDeclared; }
+		
+		@Override public Object[] doTask(CompileProduct pContext, TaskEntry pTE, TaskOptions pOptions, Object[] pIns) {
+			this.Log.add("+" + this.getName());
+			if(this.Latch != null) {
+				// Only returns true if the other task counts down while this one is waiting
+				this.Latch.countDown();
+				try { this.IsOverlapped = this.Latch.await(5, TimeUnit.SECONDS); }
+				catch(InterruptedException E) { Thread.currentThread().interrupt(); }
+			}
+			this.Log.add("-" + this.getName());
+			Object[] Outs = new Object[this.getOutputCount()];
+			Arrays.fill(Outs, this.getName());
+			return Outs;
+		}
+	}
+	
+	static TaskEntry entryOf(String pName, String[] pIns, String[] pOuts, boolean pIsDataDeclared, List<String> pLog,
+			CountDownLatch pLatch) {
+		LogTask Task = new LogTask(pName, pIns.length, pOuts.length, pIsDataDeclared, pLog, pLatch);
+		return new TaskEntry(Task, pIns, pOuts);
+	}
+	static TaskEntry entryOf(String pName, String[] pIns, String[] pOuts) {
+		return entryOf(pName, pIns, pOuts, true, null, null);
+	}
+	static String[] names(String ... pNames) {
+		return pNames;
+	}
+	
+	static void assertBefore(List<String> pLog, String pFirst, String pSecond) {
+		int First  = pLog.indexOf(pFirst);
+		int Second = pLog.indexOf(pSecond);
+		assertTrue(pLog.toString(), (First != -1) && (Second != -1) && (First < Second));
+	}
+	
+	ExecutorService Executor;
+	
+	@Before
+	public void createExecutor() {
+		this.Executor = Executors.newFixedThreadPool(4);
+	}
+	@After
+	public void shutdownExecutor() {
+		this.Executor.shutdownNow();
+	}
+	
+	CompileProduct compile(TaskEntry ... pTEs) {
+		Compiler TheCompiler = new Compiler("TaskGraphTest", pTEs);
+		TheCompiler.setTaskEntryExecutor(this.Executor);
+		return TheCompiler.compile(new CodeFeeders(new CodeFeeder.CFCharSequence("TheFeeder", "TheCode", "Code")));
+	}
+	
+	// Graph ---------------------------------------------------------------------------------------
+	
+	@Test
+	public void testDependencies() {
+		TaskGraph Graph = TaskGraph.of(new TaskEntry[] {
+			entryOf("A", names(),         names("X")),	// 0
+			entryOf("B", names(),         names("Y")),	// 1 - Independent from A
+			entryOf("C", names("X"),      names("Z")),	// 2 - Reads what A writes
+			entryOf("D", names("Y", "Z"), names()),   	// 3 - Reads what B and C write
+			entryOf("E", names(),         names("X")),	// 4 - Writes what A writes and C reads
+		});
+		assertEquals(5, Graph.getEntryCount());
+		assertArrayEquals(new Object[] {},         box(Graph.getDependencies(0)));
+		assertArrayEquals(new Object[] {},         box(Graph.getDependencies(1)));
+		assertArrayEquals(new Object[] { 0 },      box(Graph.getDependencies(2)));
+		assertArrayEquals(new Object[] { 1, 2 },   box(Graph.getDependencies(3)));
+		assertArrayEquals(new Object[] { 0, 2 },   box(Graph.getDependencies(4)));
+	}
+	
+	@Test
+	public void testScopedNames() {
+		// A code data and a feeder data with the same name are different data
+		TaskGraph Graph = TaskGraph.of(new TaskEntry[] {
+			entryOf("A", names(),      names("C.X")),
+			entryOf("B", names("F.X"), names()),
+			entryOf("C", names(),      names("X")),	// Same as F.X for a feeder task
+		});
+		assertArrayEquals(new Object[] {},    box(Graph.getDependencies(1)));
+		assertArrayEquals(new Object[] { 1 }, box(Graph.getDependencies(2)));
+	}
+	
+	@Test
+	public void testUndeclaredDataIsBarrier() {
+		TaskGraph Graph = TaskGraph.of(new TaskEntry[] {
+			entryOf("A", names(), names("X")),
+			entryOf("B", names(), names("Y")),
+			entryOf("U", names(), names(), false, null, null),
+			entryOf("C", names(), names("Z")),
+			entryOf("D", names(), names("W")),
+		});
+		assertArrayEquals(new Object[] {},            box(Graph.getDependencies(1)));
+		assertArrayEquals(new Object[] { 0, 1 },      box(Graph.getDependencies(2)));
+		assertArrayEquals(new Object[] { 2 },         box(Graph.getDependencies(3)));
+		assertArrayEquals(new Object[] { 2 },         box(Graph.getDependencies(4)));
+	}
+	
+	static Object[] box(int[] pInts) {
+		Object[] Objs = new Object[pInts.length];
+		for(int i = 0; i < pInts.length; i++) Objs[i] = pInts[i];
+		return Objs;
+	}
+	
+	// Performing ----------------------------------------------------------------------------------
+	
+	@Test
+	public void testIndependentEntriesOverlap() {
+		List<String>   Log   = Collections.synchronizedList(new ArrayList<String>());
+		CountDownLatch Latch = new CountDownLatch(2);
+		TaskEntry      A     = entryOf("A", names(), names("X"), true, Log, Latch);
+		TaskEntry      B     = entryOf("B", names(), names("Y"), true, Log, Latch);
+		
+		CompileProduct Product = this.compile(A, B);
+		assertFalse(Product.toString(), Product.hasErrMessage());
+		assertTrue(((LogTask)A.getTask()).IsOverlapped);
+		assertTrue(((LogTask)B.getTask()).IsOverlapped);
+	}
+	
+	@Test
+	public void testDependentEntriesAreOrdered() {
+		List<String> Log = Collections.synchronizedList(new ArrayList<String>());
+		CompileProduct Product = this.compile(
+			entryOf("A", names(),         names("X"), true, Log, null),
+			entryOf("B", names(),         names("Y"), true, Log, null),
+			entryOf("C", names("X"),      names("Z"), true, Log, null),
+			entryOf("D", names("Y", "Z"), names(),    true, Log, null)
+		);
+		assertFalse(Product.toString(), Product.hasErrMessage());
+		assertEquals(Log.toString(), 8, Log.size());
+		assertBefore(Log, "-A", "+C");
+		assertBefore(Log, "-B", "+D");
+		assertBefore(Log, "-C", "+D");
+		assertEquals("A", Product.getFeederData(0, "X"));
+		assertEquals("C", Product.getFeederData(0, "Z"));
+	}
+	
+	@Test
+	public void testUndeclaredDataEntryActsAsBarrier() {
+		List<String> Log = Collections.synchronizedList(new ArrayList<String>());
+		CompileProduct Product = this.compile(
+			entryOf("A", names(), names("X"), true,  Log, null),
+			entryOf("B", names(), names("Y"), true,  Log, null),
+			entryOf("U", names(), names(),    false, Log, null),
+			entryOf("C", names(), names("Z"), true,  Log, null),
+			entryOf("D", names(), names("W"), true,  Log, null)
+		);
+		assertFalse(Product.toString(), Product.hasErrMessage());
+		assertEquals(Log.toString(), 10, Log.size());
+		assertBefore(Log, "-A", "+U");
+		assertBefore(Log, "-B", "+U");
+		assertBefore(Log, "-U", "+C");
+		assertBefore(Log, "-U", "+D");
+	}
+	
+}